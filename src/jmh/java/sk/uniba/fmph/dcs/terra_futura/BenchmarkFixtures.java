@@ -0,0 +1,96 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Builders shared by the JMH harnesses, so every benchmark plays on the same table.
+final class BenchmarkFixtures {
+    static final int CARDS_PER_PILE = 9;
+
+    private BenchmarkFixtures() {
+    }
+
+    static Card newCard() {
+        return new Card(1,
+                new TransformationFixed(List.of(Resource.Green), List.of(Resource.Red), 0),
+                new ArbitraryBasic(1, List.of(Resource.Money), 1));
+    }
+
+    static Pile newPile() {
+        ArrayList<Card> display = new ArrayList<>();
+        for (int i = 0; i < CARDS_PER_PILE; i++) {
+            display.add(newCard());
+        }
+        return new Pile(display, new ArrayList<>());
+    }
+
+    static Player newPlayer(int id) {
+        Grid grid = new Grid();
+        Map<Resource, Integer> owned = new EnumMap<>(Resource.class);
+        owned.put(Resource.Green, 4);
+        owned.put(Resource.Car, 2);
+        return new Player(id, grid,
+                new ActivationPattern(grid, List.of(new SimpleEntry<>(0, 0), new SimpleEntry<>(1, 1))),
+                new ActivationPattern(grid, List.of(new SimpleEntry<>(2, 0), new SimpleEntry<>(2, 2))),
+                new ScoringMethod(List.of(Resource.Green, Resource.Car), new Points(3), () -> owned),
+                new ScoringMethod(List.of(Resource.Green), new Points(1), () -> owned));
+    }
+
+    static Game newGame() {
+        Player[] players = {newPlayer(1), newPlayer(2)};
+        return new Game(players, newPile(), newPile(), null,
+                new GameObserver(Map.of()), null,
+                new ProcessActionAssistance(), new SelectReward());
+    }
+
+    static Grid fullGrid() {
+        Grid grid = new Grid();
+        for (int x = 0; x < 3; x++) {
+            for (int y = 0; y < 3; y++) {
+                Card card = newCard();
+                card.putResources(List.of(Resource.Green, Resource.Green, Resource.Car));
+                grid.putCard(new GridPosition(x, y), card);
+            }
+        }
+        return grid;
+    }
+
+    static CardSource source(Deck deck, int index) {
+        CardSource source = new CardSource();
+        source.deck = deck;
+        source.index = index;
+        return source;
+    }
+
+    // Plays one whole game: nine take-card turns per player, then final patterns and scoring.
+    static GameState playFullGame(Game game) {
+        while (game.state != GameState.Finish) {
+            int playerId = game.players[game.onTurn].id;
+            switch (game.state) {
+                case TakeCardNoCardDiscarded:
+                case TakeCardCardDiscarded:
+                    int placed = game.turnNumber - 1;
+                    Deck deck = game.onTurn == 0 ? Deck.I : Deck.II;
+                    if (!game.takeCard(playerId, source(deck, 0), new GridPosition(placed % 3, placed / 3))) {
+                        throw new IllegalStateException("Card could not be placed");
+                    }
+                    break;
+                case ActivateCard:
+                    game.turnFinished(playerId);
+                    break;
+                case SelectActivationPattern:
+                    game.selectActivationPattern(playerId, 0);
+                    break;
+                case SelectScoringMethod:
+                    game.selectScoring(playerId, 0);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected state " + game.state);
+            }
+        }
+        return game.state;
+    }
+}
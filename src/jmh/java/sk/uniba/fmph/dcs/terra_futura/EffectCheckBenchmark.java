@@ -0,0 +1,60 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EffectCheckBenchmark {
+    private final Effect fixed = new TransformationFixed(
+            List.of(Resource.Green, Resource.Red), List.of(Resource.Gear), 1);
+    private final Effect arbitrary = new ArbitraryBasic(
+            2, List.of(Resource.Bulb, Resource.Money), 0);
+    private final Effect or = new EffectOr(fixed, arbitrary);
+
+    private final List<Resource> input = List.of(Resource.Green, Resource.Red);
+    private final List<Resource> swappedInput = List.of(Resource.Red, Resource.Green);
+    private final List<Resource> fixedOutput = List.of(Resource.Gear);
+    private final List<Resource> arbitraryOutput = List.of(Resource.Bulb, Resource.Money);
+    private final long packedInput = ResourceSignature.of(swappedInput);
+    private final long packedOutput = ResourceSignature.of(fixedOutput);
+
+    @Benchmark
+    public boolean transformationFixedHit() {
+        return fixed.check(input, fixedOutput, 1);
+    }
+
+    @Benchmark
+    public boolean transformationFixedMiss() {
+        return fixed.check(swappedInput, fixedOutput, 1);
+    }
+
+    @Benchmark
+    public boolean transformationFixedPacked() {
+        return fixed.check(packedInput, packedOutput, 1);
+    }
+
+    @Benchmark
+    public boolean arbitraryBasicHit() {
+        return arbitrary.check(input, arbitraryOutput, 0);
+    }
+
+    @Benchmark
+    public boolean effectOrSecondBranch() {
+        return or.check(input, arbitraryOutput, 0);
+    }
+}
@@ -0,0 +1,129 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Events per second written to the log (buffered, and waiting for the group commit
+// from many threads) and replayed from it.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventLogBenchmark {
+    static final int REPLAYED_EVENTS = 100_000;
+
+    @State(Scope.Benchmark)
+    public static class Log {
+        Path directory;
+        EventLog log;
+
+        // a fresh log per iteration keeps the written segments from piling up on disk
+        @Setup(Level.Iteration)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("event-log-bench");
+            log = new EventLog(directory);
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            log.close();
+            delete(directory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Written {
+        Path directory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("event-log-replay");
+            CardSource source = BenchmarkFixtures.source(Deck.I, 0);
+            GridPosition destination = new GridPosition(1, 1);
+            try (EventLog log = new EventLog(directory)) {
+                for (int i = 0; i < REPLAYED_EVENTS; i++) {
+                    if (i % 2 == 0) {
+                        log.takeCard(i % 64, 1, source, destination);
+                    } else {
+                        log.turnFinished(i % 64, 1);
+                    }
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            delete(directory);
+        }
+    }
+
+    // counts the events instead of applying them, so only reading and decoding is measured
+    static final class Counting implements EventLog.EventHandler {
+        final TerraFuturaInterface sink = new TerraFuturaInterface() {
+            public boolean takeCard(int playerId, CardSource source, GridPosition destination) { return true; }
+            public boolean discardLastCardFromDeck(int playerId, Deck deck) { return true; }
+            public boolean activateCard(int playerId, GridPosition card,
+                                        List<Pair<Resource, GridPosition>> inputs,
+                                        List<Pair<Resource, GridPosition>> outputs,
+                                        List<GridPosition> pollution,
+                                        Optional<Integer> otherPlayerId,
+                                        Optional<GridPosition> otherCard) { return true; }
+            public boolean selectReward(int playerId, Resource resource) { return true; }
+            public boolean turnFinished(int playerId) { return true; }
+            public boolean selectActivationPattern(int playerId, int card) { return true; }
+            public boolean selectScoring(int playerId, int card) { return true; }
+        };
+
+        public void created(int gameId, long seed) { }
+
+        public TerraFuturaInterface game(int gameId) { return sink; }
+    }
+
+    static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public CompletableFuture<Void> append(Log state) {
+        return state.log.turnFinished(1, 1);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void appendDurable(Log state) {
+        state.log.turnFinished(1, 1).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REPLAYED_EVENTS)
+    public long replay(Written state) {
+        return EventLog.replay(state.directory, new Counting());
+    }
+}
@@ -0,0 +1,41 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GameLoopBenchmark {
+    private Game game;
+
+    @Setup(Level.Invocation)
+    public void newGame() {
+        game = BenchmarkFixtures.newGame();
+    }
+
+    // games per second, setup excluded
+    @Benchmark
+    public GameState fullGame() {
+        return BenchmarkFixtures.playFullGame(game);
+    }
+
+    @Benchmark
+    public boolean takeCard() {
+        return game.takeCard(1, BenchmarkFixtures.source(Deck.I, 0), new GridPosition(1, 1));
+    }
+}
@@ -0,0 +1,55 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Plays `games` full games concurrently through one server; compare runs with
+// -jvmArgs -XX:ActiveProcessorCount=N to see how throughput scales with cores.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GameServerBenchmark {
+    @Param({"1", "64", "4096"})
+    public int games;
+
+    private GameServer server;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        server = new GameServer();
+        for (int id = 0; id < games; id++) {
+            server.host(id, BenchmarkFixtures.newGame());
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public void playAllGames() {
+        CompletableFuture<?>[] results = new CompletableFuture<?>[games];
+        for (int id = 0; id < games; id++) {
+            results[id] = server.submit(id, BenchmarkFixtures::playFullGame);
+        }
+        CompletableFuture.allOf(results).join();
+    }
+}
@@ -0,0 +1,44 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameSnapshotBenchmark {
+    private GameSnapshot snapshot;
+    private int[] buffer;
+    private int[] saved;
+
+    @Setup
+    public void setUp() {
+        snapshot = new GameSnapshot(BenchmarkFixtures.newGame());
+        saved = snapshot.capture();
+        buffer = new int[saved.length * 2];
+    }
+
+    @Benchmark
+    public int[] capture() {
+        return snapshot.capture(buffer);
+    }
+
+    @Benchmark
+    public Game restore() {
+        snapshot.restore(saved);
+        return snapshot.game();
+    }
+}
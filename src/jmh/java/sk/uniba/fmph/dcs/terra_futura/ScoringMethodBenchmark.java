@@ -0,0 +1,44 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScoringMethodBenchmark {
+    private ScoringMethod method;
+
+    @Setup
+    public void setUp() {
+        Map<Resource, Integer> owned = new EnumMap<>(Resource.class);
+        owned.put(Resource.Green, 7);
+        owned.put(Resource.Gear, 3);
+        owned.put(Resource.Car, 5);
+        method = new ScoringMethod(
+                List.of(Resource.Green, Resource.Green, Resource.Gear, Resource.Car),
+                new Points(4), () -> owned);
+    }
+
+    @Benchmark
+    public Points selectThisMethodAndCalculate() {
+        method.selectThisMethodAndCalculate();
+        return method.calculatedTotal.get();
+    }
+}
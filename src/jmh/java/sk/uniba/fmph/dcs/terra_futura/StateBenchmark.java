@@ -0,0 +1,62 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StateBenchmark {
+    private Card card;
+    private Grid grid;
+    private Pile pile;
+    private Card gridCard;
+    private final List<Resource> changed = List.of(Resource.Car);
+
+    @Setup
+    public void setUp() {
+        card = BenchmarkFixtures.newCard();
+        card.putResources(List.of(Resource.Green, Resource.Red, Resource.Red));
+        grid = BenchmarkFixtures.fullGrid();
+        pile = BenchmarkFixtures.newPile();
+        gridCard = grid.getCard(new GridPosition(1, 1)).orElseThrow();
+    }
+
+    @Benchmark
+    public String cardState() {
+        return card.state();
+    }
+
+    @Benchmark
+    public String gridState() {
+        return grid.state();
+    }
+
+    @Benchmark
+    public String pileState() {
+        return pile.state();
+    }
+
+    // one card changed since the last call: only that card is rendered again; the
+    // resource is taken back so the card does not grow between invocations
+    @Benchmark
+    public String gridStateAfterCardChange() {
+        gridCard.putResources(changed);
+        gridCard.getResources(changed);
+        return grid.state();
+    }
+}
@@ -0,0 +1,71 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Full-table serialization: the org.json snapshot the tracker sends today against the
+// streaming JSON codec and the binary codec writing into a reused buffer.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StateCodecBenchmark {
+    private Game game;
+    private Grid grid;
+    private final StateBuffer buffer = new StateBuffer(64 * 1024);
+    private final StateCodec json = new JsonStateCodec();
+    private final StateCodec binary = new BinaryStateCodec();
+
+    @Setup
+    public void setUp() {
+        game = BenchmarkFixtures.newGame();
+        grid = BenchmarkFixtures.fullGrid();
+    }
+
+    @Benchmark
+    public String gameOrgJson() {
+        game.getChangeTracker().requestResync();
+        return game.getChangeTracker().flush(game);
+    }
+
+    @Benchmark
+    public StateBuffer gameJsonCodec() {
+        return json.encode(game, buffer);
+    }
+
+    @Benchmark
+    public StateBuffer gameBinaryCodec() {
+        return binary.encode(game, buffer);
+    }
+
+    @Benchmark
+    public String gridOrgJson() {
+        return grid.state();
+    }
+
+    @Benchmark
+    public StateBuffer gridJsonCodec() {
+        buffer.clear();
+        json.writeGrid(grid, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public StateBuffer gridBinaryCodec() {
+        buffer.clear();
+        binary.writeGrid(grid, buffer);
+        return buffer;
+    }
+}
@@ -3,9 +3,7 @@ package sk.uniba.fmph.dcs.terra_futura;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Collection;
-
-import org.json.JSONObject;
-import org.json.JSONArray;
+import java.util.List;
 
 
 
@@ -33,18 +31,25 @@ public final class ActivationPattern {
         return this.selected;
     }
 
+    void restoreSelected(boolean selected) {
+        this.selected = selected;
+    }
 
-    public String state() {
-        JSONArray patternList = new JSONArray();
-        for (SimpleEntry<Integer, Integer> entry: pattern) {
-            JSONObject pair = new JSONObject();
-            pair.put("x", entry.getKey());
-            pair.put("y", entry.getValue());
-            patternList.put(pair);
+    List<SimpleEntry<Integer, Integer>> entries() {
+        return pattern;
+    }
+
+
+    public void writeState(JsonWriter out) {
+        out.beginObject().name("selected").value(this.selected);
+        out.name("activations").beginArray();
+        for (SimpleEntry<Integer, Integer> entry : pattern) {
+            out.beginObject().name("x").value(entry.getKey()).name("y").value(entry.getValue()).endObject();
         }
-        JSONObject result = new JSONObject();
-        result.put("selected", this.selected);
-        result.put("activations", patternList);
-        return result.toString();
+        out.endArray().endObject();
+    }
+
+    public String state() {
+        return JsonWriter.render(this::writeState);
     }
 }
@@ -0,0 +1,199 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.List;
+
+// The result of validating an activation: per grid cell (0..8), the resources to take,
+// the resources to add and the pollution to place, packed as ResourceSignature counters.
+// The activated card's upper or lower effect must accept the totals over all cells;
+// each cell must hold a card with its inputs and room for its outputs and pollution.
+// Validation only reads the grid and its cards, so a plan can be built on another
+// thread or kept to preview a move; commit applies it without validating again. A plan
+// remembers the activated card's cell, the card in every touched cell and that card's
+// modification count, and refuses to commit once any of them has changed.
+public final class ActivationPlan {
+    private final long[] inputs = new long[GridBits.CELLS];
+    private final long[] outputs = new long[GridBits.CELLS];
+    private final int[] pollution = new int[GridBits.CELLS];
+    private final Card[] targets = new Card[GridBits.CELLS];
+    private final int[] stamps = new int[GridBits.CELLS];
+    private int touched;  // cells with at least one input, output or pollution
+    private Grid grid;
+    private Card card;
+    private int cardCell = -1;
+    private boolean valid;
+
+    ActivationPlan() {
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    public Grid grid() {
+        return grid;
+    }
+
+    public Card card() {
+        return card;
+    }
+
+    // bit per cell the plan changes
+    public int touchedCells() {
+        return touched;
+    }
+
+    public int inputCount(int cell, Resource resource) {
+        return ResourceSignature.count(inputs[cell], resource);
+    }
+
+    public int outputCount(int cell, Resource resource) {
+        return ResourceSignature.count(outputs[cell], resource);
+    }
+
+    public int pollution(int cell) {
+        return pollution[cell];
+    }
+
+    // true while the activated card and every touched cell's card are still in place, unchanged
+    public boolean isCurrent() {
+        if (!valid || grid.cardAt(cardCell) != card) return false;
+        for (int rest = touched; rest != 0; rest &= rest - 1) {
+            int cell = Integer.numberOfTrailingZeros(rest);
+            if (grid.cardAt(cell) != targets[cell] || targets[cell].modCount() != stamps[cell]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    ActivationPlan build(Card card, Grid grid,
+                         List<Pair<Resource, GridPosition>> inputs,
+                         List<Pair<Resource, GridPosition>> outputs,
+                         List<GridPosition> pollution) {
+        clear();
+        this.card = card;
+        this.grid = grid;
+        cardCell = card == null || grid == null ? -1 : cellOf(grid, card);
+        valid = cardCell >= 0
+                && collect(inputs, this.inputs) && collect(outputs, this.outputs)
+                && collectPollution(pollution) && check();
+        return this;
+    }
+
+    ActivationPlan reject() {
+        clear();
+        valid = false;
+        return this;
+    }
+
+    private void clear() {
+        for (int rest = touched; rest != 0; rest &= rest - 1) {
+            int cell = Integer.numberOfTrailingZeros(rest);
+            inputs[cell] = 0;
+            outputs[cell] = 0;
+            pollution[cell] = 0;
+            targets[cell] = null;
+        }
+        touched = 0;
+        grid = null;
+        card = null;
+        cardCell = -1;
+    }
+
+    // cell holding the card, or -1 when it is not on the grid
+    private static int cellOf(Grid grid, Card card) {
+        for (int cell = 0; cell < GridBits.CELLS; cell++) {
+            if (grid.cardAt(cell) == card) return cell;
+        }
+        return -1;
+    }
+
+    // adds each resource to the counter of its cell; false on a bad position or overflow
+    private boolean collect(List<Pair<Resource, GridPosition>> resources, long[] counters) {
+        if (resources == null) return true;
+        for (int i = 0; i < resources.size(); i++) {
+            Pair<Resource, GridPosition> pair = resources.get(i);
+            if (pair == null || pair.first == null || !GridBits.isValid(pair.second)) {
+                return false;
+            }
+            int cell = GridBits.cell(pair.second);
+            int shift = pair.first.ordinal() * ResourceSignature.BITS;
+            if (((counters[cell] >>> shift) & ResourceSignature.BYTE) == ResourceSignature.BYTE) {
+                return false;
+            }
+            counters[cell] += 1L << shift;
+            touched |= 1 << cell;
+        }
+        return true;
+    }
+
+    private boolean collectPollution(List<GridPosition> positions) {
+        if (positions == null) return true;
+        for (int i = 0; i < positions.size(); i++) {
+            GridPosition position = positions.get(i);
+            if (!GridBits.isValid(position)) {
+                return false;
+            }
+            int cell = GridBits.cell(position);
+            pollution[cell]++;
+            touched |= 1 << cell;
+        }
+        return true;
+    }
+
+    private boolean check() {
+        long input = 0;
+        long output = 0;
+        int totalPollution = 0;
+        for (int rest = touched; rest != 0; rest &= rest - 1) {
+            int cell = Integer.numberOfTrailingZeros(rest);
+            Card target = grid.cardAt(cell);
+            if (target == null || !target.hasResources(inputs[cell])
+                    || !target.canAddResources(outputs[cell]) || !target.canAddPollution(pollution[cell])) {
+                return false;
+            }
+            input = add(input, inputs[cell]);
+            output = add(output, outputs[cell]);
+            if (input == ResourceSignature.OVERFLOW || output == ResourceSignature.OVERFLOW) {
+                return false;
+            }
+            totalPollution += pollution[cell];
+            targets[cell] = target;
+            stamps[cell] = target.modCount();
+        }
+        return accepts(card.getUpperEffect(), input, output, totalPollution)
+                || accepts(card.getLowerEffect(), input, output, totalPollution);
+    }
+
+    private static boolean accepts(Effect effect, long input, long output, int pollution) {
+        return effect != null && effect.check(input, output, pollution);
+    }
+
+    // sum of two signatures, or OVERFLOW when a resource no longer fits its byte
+    private static long add(long first, long second) {
+        long sum = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += ResourceSignature.BITS) {
+            long count = ((first >>> shift) & ResourceSignature.BYTE) + ((second >>> shift) & ResourceSignature.BYTE);
+            if (count > ResourceSignature.BYTE) {
+                return ResourceSignature.OVERFLOW;
+            }
+            sum |= count << shift;
+        }
+        return sum;
+    }
+
+    void commit() {
+        if (!isCurrent()) {
+            throw new IllegalStateException(valid ? "Activation plan is stale" : "Activation plan is not valid");
+        }
+        for (int rest = touched; rest != 0; rest &= rest - 1) {
+            int cell = Integer.numberOfTrailingZeros(rest);
+            Card target = targets[cell];
+            target.takeResources(inputs[cell]);
+            target.addResources(outputs[cell]);
+            if (pollution[cell] > 0) {
+                target.addPollution(pollution[cell]);
+            }
+        }
+    }
+}
@@ -7,28 +7,35 @@ public class ArbitraryBasic implements Effect{
     private final List<Resource> to;
     private final int pollution;
 
+    // compiled once; matching ignores the order of resources
+    private final long toSignature;
+    private final List<EffectOption> options;
+
     public ArbitraryBasic(int from, List<Resource> to, int pollution) {
         this.from = from;
         this.to = to;
         this.pollution = pollution;
+        this.toSignature = ResourceSignature.compile(to);
+        this.options = List.of(EffectOption.any(from, toSignature, pollution));
     }
 
     @Override
     public boolean check(List<Resource> input, List<Resource> output, int pollution) {
-
-        if(input.size() != from){
-            return false;
-        }
-
-        if (!output.equals(to) ) {
+        if (input.size() != from) {
             return false;
         }
+        return ResourceSignature.of(output) == toSignature && pollution == this.pollution;
+    }
 
-        if (pollution != this.pollution) {
-            return false;
-        }
+    @Override
+    public boolean check(long input, long output, int pollution) {
+        return output == toSignature && pollution == this.pollution
+                && input != ResourceSignature.OVERFLOW && ResourceSignature.size(input) == from;
+    }
 
-        return true;
+    @Override
+    public List<EffectOption> options() {
+        return options;
     }
 
     @Override
@@ -36,13 +43,17 @@ public class ArbitraryBasic implements Effect{
         return false;
     }
 
+    @Override
+    public void writeState(JsonWriter out) {
+        out.beginObject().name("type").value("ArbitraryBasic");
+        out.name("from").value(from);
+        out.name("to");
+        JsonWriter.writeResources(out, to);
+        out.name("pollution").value(pollution).endObject();
+    }
+
     @Override
     public String state() {
-        return "{ " +
-                "\"type\": \"TransformationFixed\", " +
-                "\"from\": " + from + ", " +
-                "\"to\": " + to.toString() + ", " +
-                "\"pollution\": " + pollution +
-                " }";
+        return JsonWriter.render(this::writeState);
     }
 }
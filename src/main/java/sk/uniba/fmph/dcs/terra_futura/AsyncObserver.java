@@ -0,0 +1,228 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+// Queues notifications for one observer and delivers them on a virtual thread,
+// so a slow client never blocks the game thread.
+public class AsyncObserver implements TerraFuturaObserverInterface {
+
+    public enum OverflowPolicy {
+        DROP_NEWEST,   // a full queue rejects the incoming state
+        DROP_OLDEST,   // a full queue evicts its oldest state
+        COALESCE       // only the latest undelivered state is kept; a lagging patch stream
+                       // is replaced by one snapshot
+    }
+
+    private static final Executor VIRTUAL_THREADS = Thread::startVirtualThread;
+    private static final String NO_VIEW = "";
+
+    private final TerraFuturaObserverInterface delegate;
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final Executor executor;
+
+    // all fields below are guarded by this
+    private final ArrayDeque<String> states = new ArrayDeque<>();
+    private final ArrayDeque<String> views = new ArrayDeque<>();  // personal parts, NO_VIEW if none
+    private final ArrayDeque<Boolean> patches = new ArrayDeque<>();
+    private final ArrayDeque<Long> enqueuedAt = new ArrayDeque<>();
+    private boolean draining = false;
+    private boolean outOfSync = false;
+    private long delivered = 0;
+    private long dropped = 0;
+    private long coalesced = 0;
+    private long failed = 0;
+    private long resyncs = 0;
+    private long totalLatencyNanos = 0;
+    private long maxLatencyNanos = 0;
+
+    public AsyncObserver(TerraFuturaObserverInterface delegate, int capacity, OverflowPolicy policy) {
+        this(delegate, capacity, policy, VIRTUAL_THREADS);
+    }
+
+    public AsyncObserver(TerraFuturaObserverInterface delegate, int capacity, OverflowPolicy policy, Executor executor) {
+        if (delegate == null || policy == null || executor == null) {
+            throw new IllegalArgumentException("Arguments must be non-null");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.executor = executor;
+    }
+
+    // messages passed without their kind are self-contained
+    @Override
+    public void notify(String gameState) {
+        enqueue(gameState, NO_VIEW, false);
+    }
+
+    // keeps the parts apart; the delegate gets them on the delivery thread
+    @Override
+    public void notifyView(String sharedState, String personalState) {
+        notifyView(sharedState, personalState, false);
+    }
+
+    // as above, `patch` telling whether the update only applies on top of the one before
+    public void notifyView(String sharedState, String personalState, boolean patch) {
+        enqueue(sharedState, personalState == null ? NO_VIEW : personalState, patch);
+    }
+
+    // Patches only apply on top of the message before them, so a patch can never be
+    // dropped or coalesced on its own: once the policy would lose one, the observer is
+    // out of sync and every patch is discarded until a self-contained message (a
+    // snapshot) arrives and replaces the queue. GameObserver.publish sends it one at once.
+    private void enqueue(String gameState, String view, boolean patch) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (outOfSync) {
+                if (patch) {
+                    dropped++;
+                    return;
+                }
+                discardQueue();
+                outOfSync = false;
+            } else if (policy == OverflowPolicy.COALESCE) {
+                if (patch && !states.isEmpty()) {
+                    loseSync(true);
+                    return;
+                }
+                coalesced += states.size();
+                clearQueue();
+            } else if (states.size() >= capacity) {
+                if (policy == OverflowPolicy.DROP_NEWEST) {
+                    // what is queued is still consistent, but whatever comes next was
+                    // built on top of the message dropped here
+                    dropped++;
+                    outOfSync = true;
+                    resyncs++;
+                    return;
+                }
+                dropped++;
+                states.pollFirst();
+                views.pollFirst();
+                patches.pollFirst();
+                enqueuedAt.pollFirst();
+                boolean nextIsPatch = states.isEmpty() ? patch : patches.peekFirst();
+                if (nextIsPatch) {
+                    loseSync(false);
+                    return;
+                }
+            }
+            states.addLast(gameState);
+            views.addLast(view);
+            patches.addLast(patch);
+            enqueuedAt.addLast(now);
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        try {
+            executor.execute(this::drain);
+        } catch (RuntimeException ex) {
+            // the executor refused the drain (e.g. after shutdown); what is queued cannot
+            // be delivered, so it is dropped and the next snapshot starts a new drain
+            synchronized (this) {
+                draining = false;
+                discardQueue();
+                outOfSync = true;
+                resyncs++;
+            }
+        }
+    }
+
+    // drops the incoming message and everything queued; guarded by this
+    private void loseSync(boolean coalescing) {
+        if (coalescing) {
+            coalesced += states.size() + 1;
+        } else {
+            dropped += states.size() + 1;
+        }
+        clearQueue();
+        outOfSync = true;
+        resyncs++;
+    }
+
+    private void discardQueue() {
+        dropped += states.size();
+        clearQueue();
+    }
+
+    private void clearQueue() {
+        states.clear();
+        views.clear();
+        patches.clear();
+        enqueuedAt.clear();
+    }
+
+    // true after a lost patch, until a snapshot has been queued
+    public synchronized boolean needsResync() {
+        return outOfSync;
+    }
+
+    private void drain() {
+        boolean emptied = false;
+        try {
+            while (true) {
+                String state;
+                String view;
+                long since;
+                synchronized (this) {
+                    state = states.pollFirst();
+                    if (state == null) {
+                        draining = false;
+                        emptied = true;
+                        return;
+                    }
+                    view = views.pollFirst();
+                    patches.pollFirst();
+                    since = enqueuedAt.pollFirst();
+                }
+
+                // whatever the delegate throws, Errors included, only fails this message
+                boolean ok = true;
+                try {
+                    if (view.isEmpty()) {
+                        delegate.notify(state);
+                    } else {
+                        delegate.notifyView(state, view);
+                    }
+                } catch (Throwable ex) {
+                    ok = false;
+                }
+
+                long latency = System.nanoTime() - since;
+                synchronized (this) {
+                    if (ok) {
+                        delivered++;
+                    } else {
+                        failed++;
+                    }
+                    totalLatencyNanos += latency;
+                    maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+                }
+            }
+        } finally {
+            if (!emptied) {
+                // left abnormally; the next notification schedules a new drain
+                synchronized (this) {
+                    draining = false;
+                }
+            }
+        }
+    }
+
+    public synchronized int queueDepth() {
+        return states.size();
+    }
+
+    public synchronized ObserverMetrics metrics() {
+        long finished = delivered + failed;
+        return new ObserverMetrics(states.size(), delivered, dropped, coalesced, failed, resyncs,
+                finished == 0 ? 0 : totalLatencyNanos / finished, maxLatencyNanos);
+    }
+}
@@ -0,0 +1,305 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.List;
+
+// Compact binary form of the same state as the JSON codec. Numbers are varints
+// (zig-zag where they may be negative), enums are ordinals, and nothing is named.
+//
+//   card    : flags (0 = no card; 0x80 present | 1 upper | 2 lower | 4 assistance),
+//             pollution spaces, pollution used, n, n * (resource ordinal, count)
+//   grid    : 9 cards by cell (x * 3 + y), card count, n, n * (x, y) signed, null as (-1, -1)
+//   pile    : n visible, n * card, hidden count
+//   pattern : selected, n, n * (x, y) signed
+//   scoring : present (0 = no method, then nothing), n, n * resource ordinal,
+//             points per combination signed, selected, total signed
+//   reward  : pending (0 = none, then nothing), player id signed, n, n * resource ordinal
+//   game    : FORMAT, state ordinal, on-turn player id signed, turn number, reward,
+//             n players, n * (player id signed, grid, n, n * scoring), n piles, n * pile
+// decodeGame turns the bytes of writeGame back into the document JsonStateCodec writes.
+public final class BinaryStateCodec implements StateCodec {
+    public static final int FORMAT = 2;
+
+    private static final int PRESENT = 0x80;
+    private static final int UPPER = 0x01;
+    private static final int LOWER = 0x02;
+    private static final int ASSISTANCE = 0x04;
+
+    @Override
+    public void writeCard(Card card, StateBuffer out) {
+        if (card == null) {
+            out.put(0);
+            return;
+        }
+        int flags = PRESENT;
+        if (card.getUpperEffect() != null) flags |= UPPER;
+        if (card.getLowerEffect() != null) flags |= LOWER;
+        if (card.hasAssistance()) flags |= ASSISTANCE;
+        out.put(flags);
+        out.putVarInt(card.pollutionSpaces());
+        out.putVarInt(card.pollutionUsed());
+
+        int kinds = 0;
+        for (Resource resource : ResourceCounts.RESOURCES) {
+            if (card.getResourceCount(resource) > 0) kinds++;
+        }
+        out.put(kinds);
+        for (Resource resource : ResourceCounts.RESOURCES) {
+            int count = card.getResourceCount(resource);
+            if (count > 0) {
+                out.put(resource.ordinal());
+                out.putVarInt(count);
+            }
+        }
+    }
+
+    @Override
+    public void writeGrid(Grid grid, StateBuffer out) {
+        for (int cell = 0; cell < GridBits.CELLS; cell++) {
+            writeCard(grid.cardAt(cell), out);
+        }
+        out.putVarInt(grid.cardsCount());
+        List<GridPosition> pattern = grid.activationPattern();
+        out.putVarInt(pattern.size());
+        for (int i = 0; i < pattern.size(); i++) {
+            GridPosition position = pattern.get(i);
+            out.putSignedVarInt(position == null ? -1 : position.x);
+            out.putSignedVarInt(position == null ? -1 : position.y);
+        }
+    }
+
+    @Override
+    public void writePile(Pile pile, StateBuffer out) {
+        List<Card> display = pile.getDisplayCards();
+        out.putVarInt(display.size());
+        for (int i = 0; i < display.size(); i++) {
+            writeCard(display.get(i), out);
+        }
+        out.putVarInt(pile.discardPileSize());
+    }
+
+    @Override
+    public void writePattern(ActivationPattern pattern, StateBuffer out) {
+        out.put(pattern.isSelected() ? 1 : 0);
+        List<SimpleEntry<Integer, Integer>> entries = pattern.entries();
+        out.putVarInt(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            SimpleEntry<Integer, Integer> entry = entries.get(i);
+            out.putSignedVarInt(entry.getKey());
+            out.putSignedVarInt(entry.getValue());
+        }
+    }
+
+    @Override
+    public void writeScoring(ScoringMethod method, StateBuffer out) {
+        if (method == null) {
+            out.put(0);
+            return;
+        }
+        out.put(1);
+        out.putVarInt(method.resources.size());
+        for (int i = 0; i < method.resources.size(); i++) {
+            out.put(method.resources.get(i).ordinal());
+        }
+        out.putSignedVarInt(method.pointsPerCombination.value());
+        boolean selected = method.calculatedTotal.isPresent();
+        out.put(selected ? 1 : 0);
+        out.putSignedVarInt(selected ? method.calculatedTotal.get().value() : 0);
+    }
+
+    @Override
+    public void writeGame(Game game, StateBuffer out) {
+        out.put(FORMAT);
+        out.put(game.state.ordinal());
+        out.putSignedVarInt(game.players[game.onTurn].id);
+        out.putVarInt(game.turnNumber);
+        writeReward(game, out);
+        out.putVarInt(game.players.length);
+        for (Player player : game.players) {
+            out.putSignedVarInt(player.id);
+            writeGrid(player.grid, out);
+            out.putVarInt(player.scoringMethods.length);
+            for (ScoringMethod method : player.scoringMethods) {
+                writeScoring(method, out);
+            }
+        }
+        Deck[] decks = Deck.values();
+        out.putVarInt(decks.length);
+        for (Deck deck : decks) {
+            writePile(game.getPile(deck), out);
+        }
+    }
+
+    // present exactly when the JSON game fields carry a reward
+    private static void writeReward(Game game, StateBuffer out) {
+        SelectReward reward = game.getSelectReward();
+        if (game.state != GameState.SelectReward || reward == null) {
+            out.put(0);
+            return;
+        }
+        out.put(1);
+        out.putSignedVarInt(reward.playerId());
+        out.putVarInt(reward.selelction.size());
+        for (int i = 0; i < reward.selelction.size(); i++) {
+            out.put(reward.selelction.get(i).ordinal());
+        }
+    }
+
+    // reads what writeGame wrote and writes it as JsonStateCodec.writeGame would
+    public static void decodeGame(ByteBuffer in, JsonWriter out) {
+        try {
+            if (in.get() != FORMAT) {
+                throw new IllegalArgumentException("Unknown state format");
+            }
+            out.beginObject().name("game").beginObject()
+                    .name("state").value(GameState.values()[in.get()].name())
+                    .name("onTurn").value(getSignedVarInt(in))
+                    .name("turnNumber").value(getVarInt(in));
+            if (in.get() != 0) {
+                out.name("reward").beginObject().name("player");
+                int player = getSignedVarInt(in);
+                if (player < 0) {
+                    out.nullValue();
+                } else {
+                    out.value(player);
+                }
+                out.name("selection");
+                readResources(in, out);
+                out.endObject();
+            }
+            out.endObject().name("players").beginObject();
+            for (int players = getVarInt(in); players > 0; players--) {
+                out.name(Integer.toString(getSignedVarInt(in))).beginObject().name("grid");
+                readGrid(in, out);
+                out.name("scoring").beginArray();
+                for (int methods = getVarInt(in); methods > 0; methods--) {
+                    readScoring(in, out);
+                }
+                out.endArray().endObject();
+            }
+            out.endObject().name("piles").beginObject();
+            int piles = getVarInt(in);
+            for (int i = 0; i < piles; i++) {
+                out.name(Deck.values()[i].name());
+                readPile(in, out);
+            }
+            out.endObject().endObject();
+        } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Truncated or corrupt state", ex);
+        }
+        if (in.hasRemaining()) {
+            throw new IllegalArgumentException("Trailing bytes after the state");
+        }
+    }
+
+    private static void readCard(ByteBuffer in, JsonWriter out) {
+        int flags = in.get() & 0xFF;
+        if (flags == 0) {
+            out.nullValue();
+            return;
+        }
+        int spaces = getVarInt(in);
+        int used = getVarInt(in);
+        out.beginObject().name("resources").beginObject();
+        for (int kinds = in.get(); kinds > 0; kinds--) {
+            out.name(ResourceCounts.RESOURCES[in.get()].name()).value(getVarInt(in));
+        }
+        out.endObject()
+                .name("pollution_spaces").value(spaces)
+                .name("pollution_used").value(used)
+                .name("has_upper").value((flags & UPPER) != 0)
+                .name("has_lower").value((flags & LOWER) != 0)
+                .name("has_assistance").value((flags & ASSISTANCE) != 0)
+                .endObject();
+    }
+
+    private static void readGrid(ByteBuffer in, JsonWriter out) {
+        out.beginObject().name("cards").beginObject();
+        for (int cell = 0; cell < GridBits.CELLS; cell++) {
+            out.name(Grid.CELL_NAMES[cell]);
+            readCard(in, out);
+        }
+        out.endObject().name("card_count").value(getVarInt(in));
+        out.name("activation_pattern").beginArray();
+        for (int n = getVarInt(in); n > 0; n--) {
+            int x = getSignedVarInt(in);
+            int y = getSignedVarInt(in);
+            if (x == -1 && y == -1) {
+                out.nullValue();
+            } else {
+                out.value(new GridPosition(x, y).toString());
+            }
+        }
+        out.endArray().endObject();
+    }
+
+    private static void readPile(ByteBuffer in, JsonWriter out) {
+        int visible = getVarInt(in);
+        // the hidden count follows the cards, while JSON names it first
+        int start = in.position();
+        for (int i = 0; i < visible; i++) {
+            skipCard(in);
+        }
+        int hidden = getVarInt(in);
+        int end = in.position();
+        in.position(start);
+        out.beginObject().name("visible_count").value(visible)
+                .name("hidden_count").value(hidden)
+                .name("visible_cards").beginArray();
+        for (int i = 0; i < visible; i++) {
+            readCard(in, out);
+        }
+        out.endArray().endObject();
+        in.position(end);
+    }
+
+    private static void skipCard(ByteBuffer in) {
+        if (in.get() == 0) return;
+        getVarInt(in);
+        getVarInt(in);
+        for (int kinds = in.get(); kinds > 0; kinds--) {
+            in.get();
+            getVarInt(in);
+        }
+    }
+
+    private static void readScoring(ByteBuffer in, JsonWriter out) {
+        if (in.get() == 0) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject().name("resources");
+        readResources(in, out);
+        out.name("pointsPerCombination").value(getSignedVarInt(in));
+        out.name("selected").value(in.get() != 0);
+        out.name("total").value(getSignedVarInt(in));
+        out.endObject();
+    }
+
+    private static void readResources(ByteBuffer in, JsonWriter out) {
+        out.beginArray();
+        for (int n = getVarInt(in); n > 0; n--) {
+            out.value(ResourceCounts.RESOURCES[in.get()].name());
+        }
+        out.endArray();
+    }
+
+    private static int getVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            int b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint is too long");
+    }
+
+    private static int getSignedVarInt(ByteBuffer in) {
+        int value = getVarInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
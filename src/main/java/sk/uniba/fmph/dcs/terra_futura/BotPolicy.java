@@ -0,0 +1,14 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.random.RandomGenerator;
+
+// A computer player. Each call must issue exactly one command for the player on turn
+// through the TerraFuturaInterface; the game is passed as Game so the bot can read its state.
+public interface BotPolicy {
+    void move(Game game, int playerId, RandomGenerator random);
+
+    // simulations pass the whole SimulatedGame, so policies that search can replicate it
+    default void move(SimulatedGame game, int playerId, RandomGenerator random) {
+        move(game.game, playerId, random);
+    }
+}
@@ -1,21 +1,29 @@
 package sk.uniba.fmph.dcs.terra_futura;
 
-import org.json.JSONObject;
 import java.util.*;
 
 public class Card {
-    private final Map<Resource, Integer> resources = new EnumMap<>(Resource.class);
+    // most of one resource a card can hold, so its contents always pack into a
+    // ResourceSignature; pollution is never a resource, it takes pollution spaces
+    public static final int RESOURCE_CAPACITY = (int) ResourceSignature.BYTE;
+
+    // the per-game state: one primitive count array and the pollution placed here
+    private final ResourceCounts resources = new ResourceCounts();
 
-    private final int pollutionSpaces;
     private int pollutionUsed = 0;
 
-    private final Effect upperEffect;
-    private final Effect lowerEffect;
+    private final CardDefinition definition;
+
+    // bumped on every change, so a grid or pile can tell its cached state went stale
+    private int modCount = 0;
+    private String cachedState;
 
     public Card(int pollutionSpacesL, Effect upperEffect, Effect lowerEffect) {
-        this.pollutionSpaces = pollutionSpacesL;
-        this.upperEffect = upperEffect;
-        this.lowerEffect = lowerEffect;
+        this(new CardDefinition(pollutionSpacesL, upperEffect, lowerEffect));
+    }
+
+    public Card(CardDefinition definition) {
+        this.definition = definition;
     }
 
     public Card(int pollutionSpaces) {
@@ -27,56 +35,94 @@ public class Card {
     }
 
     public boolean canGetResources(List<Resource> requiredResources) {
-        Map<Resource, Integer> needed = count(requiredResources);
+        return resources.containsAll(requiredResources);
+    }
 
-        for (Map.Entry<Resource,Integer> resource : needed.entrySet()) {
-            if (resources.getOrDefault(resource.getKey(), 0) < resource.getValue()) {
-                return false;
-            }
-        }
-        return true;
+    public boolean canGetResources(ResourceCounts requiredResources) {
+        return resources.contains(requiredResources);
     }
 
     public void getResources(List<Resource> requiredResources) {
         if (!canGetResources(requiredResources)) {
             throw new IllegalStateException("Not enough resources on card");
         }
+        resources.subtractAll(requiredResources);
+        changed();
+    }
 
-        for (Resource resource : requiredResources) {
-            resources.put(resource, resources.get(resource) - 1);
+    public void getResources(ResourceCounts requiredResources) {
+        if (!canGetResources(requiredResources)) {
+            throw new IllegalStateException("Not enough resources on card");
         }
+        resources.subtractAll(requiredResources);
+        changed();
     }
 
-    public boolean canPutResources(List<Resource> newResources) {
-        return newResources != null;
+    // packed ResourceSignature multisets, for activations that count per cell
+    boolean hasResources(long signature) {
+        for (Resource resource : ResourceCounts.RESOURCES) {
+            if (resources.get(resource) < ResourceSignature.count(signature, resource)) return false;
+        }
+        return true;
     }
 
-    public void putResources(List<Resource> newResources) {
-        if (!canPutResources(newResources)) {
-            throw new IllegalStateException("Invalid resources");
+    void takeResources(long signature) {
+        if (!hasResources(signature)) {
+            throw new IllegalStateException("Not enough resources on card");
+        }
+        for (Resource resource : ResourceCounts.RESOURCES) {
+            resources.subtract(resource, ResourceSignature.count(signature, resource));
+        }
+        changed();
+    }
+
+    boolean canAddResources(long signature) {
+        if (signature == ResourceSignature.OVERFLOW
+                || ResourceSignature.count(signature, Resource.Polution) != 0) {
+            return false;
         }
+        for (Resource resource : ResourceCounts.RESOURCES) {
+            if (resources.get(resource) + ResourceSignature.count(signature, resource) > RESOURCE_CAPACITY) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        Map<Resource, Integer> result = new EnumMap<>(Resource.class);
-        for (Resource resource : newResources) {
-            result.put(resource, result.getOrDefault(resource, 0) + 1);
+    void addResources(long signature) {
+        if (!canAddResources(signature)) {
+            throw new IllegalStateException("Invalid resources");
+        }
+        for (Resource resource : ResourceCounts.RESOURCES) {
+            resources.add(resource, ResourceSignature.count(signature, resource));
         }
-        resources.clear();
-        resources.putAll(result);
+        changed();
+    }
+
+    public int getResourceCount(Resource resource) {
+        return resources.get(resource);
     }
 
-    private Map<Resource, Integer> count(List<Resource> items) {
-        Map<Resource, Integer> counter = new EnumMap<>(Resource.class);
-        if (items == null) return counter;
+    public boolean canPutResources(List<Resource> newResources) {
+        if (newResources == null) return false;
+        for (int i = 0; i < newResources.size(); i++) {
+            if (newResources.get(i) == null) return false;
+        }
+        return canAddResources(ResourceSignature.of(newResources));
+    }
 
-        for (Resource resource : items) {
-            counter.put(resource, counter.getOrDefault(resource, 0) + 1);
+    // adds the resources to what the card already holds
+    public void putResources(List<Resource> newResources) {
+        if (!canPutResources(newResources)) {
+            throw new IllegalStateException("Invalid resources");
         }
-        return counter;
+        resources.addAll(newResources);
+        changed();
     }
 
     public boolean canAddPollution(int pollution) {
         if (pollution < 0) return false;
-        return pollutionUsed + pollution <= pollutionSpaces;
+        return pollutionUsed + pollution <= definition.pollutionSpaces();
     }
 
     public void addPollution(int pollution) {
@@ -84,42 +130,93 @@ public class Card {
             throw new IllegalStateException("Pollution exceeds capacity");
         }
         pollutionUsed += pollution;
+        changed();
     }
 
     public boolean check(List<Resource> input, List<Resource> output, int pollution) {
+        Effect upperEffect = definition.upperEffect();
         if (upperEffect == null) return false;
         return upperEffect.check(input, output, pollution) && canAddPollution(pollution);
     }
 
     public boolean checkLower(List<Resource> input, List<Resource> output, int pollution) {
+        Effect lowerEffect = definition.lowerEffect();
         if (lowerEffect == null) return false;
         return lowerEffect.check(input, output, pollution) && canAddPollution(pollution);
     }
 
     public boolean hasAssistance() {
-        return (upperEffect != null && upperEffect.hasAssistance())
-                || (lowerEffect != null && lowerEffect.hasAssistance());
+        return definition.hasAssistance();
     }
 
-    public String state() {
-        JSONObject o = new JSONObject();
+    private void changed() {
+        modCount++;
+        cachedState = null;
+    }
+
+    int modCount() {
+        return modCount;
+    }
 
-        JSONObject resJson = new JSONObject();
-        for (Map.Entry<Resource,Integer> resource : resources.entrySet()) {
-            resJson.put(resource.getKey().name(), resource.getValue());
+    public void writeState(JsonWriter out) {
+        if (cachedState != null) {
+            StateCache.hit(StateCache.Kind.CARD);
+        } else {
+            StateCache.miss(StateCache.Kind.CARD);
         }
+        cachedState = out.cachedValue(cachedState, this::render);
+    }
+
+    private void render(JsonWriter out) {
+        out.beginObject().name("resources").beginObject();
+        for (Resource resource : ResourceCounts.RESOURCES) {
+            int count = resources.get(resource);
+            if (count > 0) {
+                out.name(resource.name()).value(count);
+            }
+        }
+        out.endObject()
+                .name("pollution_spaces").value(definition.pollutionSpaces())
+                .name("pollution_used").value(pollutionUsed)
+                .name("has_upper").value(definition.upperEffect() != null)
+                .name("has_lower").value(definition.lowerEffect() != null)
+                .name("has_assistance").value(hasAssistance())
+                .endObject();
+    }
+
+    public String state() {
+        if (cachedState != null) {
+            StateCache.hit(StateCache.Kind.CARD);
+            return cachedState;
+        }
+        JsonWriter.render(this::writeState);
+        return cachedState;
+    }
+
+    // the mutable part of the card: resources and used pollution spaces
+    int write(int[] to, int at) {
+        at = resources.write(to, at);
+        to[at] = pollutionUsed;
+        return at + 1;
+    }
 
-        o.put("resources", resJson);
-        o.put("pollution_spaces", pollutionSpaces);
-        o.put("pollution_used", pollutionUsed);
-        o.put("has_upper", upperEffect != null);
-        o.put("has_lower", lowerEffect != null);
-        o.put("has_assistance", hasAssistance());
+    int read(int[] from, int at) {
+        at = resources.read(from, at);
+        pollutionUsed = from[at];
+        changed();
+        return at + 1;
+    }
+
+    int pollutionSpaces() {
+        return definition.pollutionSpaces();
+    }
 
-        return o.toString();
+    int pollutionUsed() {
+        return pollutionUsed;
     }
 
-    public Effect getUpperEffect() { return upperEffect; }
-    public Effect getLowerEffect() { return lowerEffect; }
+    public CardDefinition getDefinition() { return definition; }
+    public Effect getUpperEffect() { return definition.upperEffect(); }
+    public Effect getLowerEffect() { return definition.lowerEffect(); }
 }
 
@@ -0,0 +1,147 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Every card of both decks, loaded once and shared by all games. Equal effects are
+// interned to one instance, and copies of a card share one CardDefinition, so a game
+// only allocates the per-card resources and pollution.
+//
+// Format: {"cards": [{"deck": "I", "count": 2, "pollution": 1,
+//                     "upper": <effect>, "lower": <effect>}, ...]}
+// where an effect is written as by Effect.writeState, e.g.
+//   {"type": "TransformationFixed", "from": ["Green"], "to": ["Car"], "pollution": 0}
+//   {"type": "ArbitraryBasic", "from": 2, "to": ["Money"], "pollution": 1}
+//   {"type": "EffectOr", "effects": [<effect>, <effect>]}
+// and a missing upper or lower effect means the card has none.
+public final class CardCatalogue {
+    private final Map<Deck, List<CardDefinition>> decks = new EnumMap<>(Deck.class);
+    private final Map<String, Effect> effects = new HashMap<>();
+    private int definitionCount = 0;
+
+    private CardCatalogue() {
+        for (Deck deck : Deck.values()) {
+            decks.put(deck, new ArrayList<>());
+        }
+    }
+
+    public static CardCatalogue parse(String json) {
+        CardCatalogue catalogue = new CardCatalogue();
+        try {
+            JSONArray cards = new JSONObject(json).getJSONArray("cards");
+            for (int i = 0; i < cards.length(); i++) {
+                catalogue.add(cards.getJSONObject(i));
+            }
+        } catch (JSONException ex) {
+            throw new IllegalArgumentException("Invalid card catalogue: " + ex.getMessage(), ex);
+        }
+        for (Deck deck : Deck.values()) {
+            catalogue.decks.put(deck, List.copyOf(catalogue.decks.get(deck)));
+        }
+        return catalogue;
+    }
+
+    public static CardCatalogue load(Reader reader) throws IOException {
+        StringBuilder text = new StringBuilder();
+        char[] chunk = new char[8192];
+        for (int read; (read = reader.read(chunk)) != -1; ) {
+            text.append(chunk, 0, read);
+        }
+        return parse(text.toString());
+    }
+
+    // a catalogue on the class path, e.g. "/cards.json"
+    public static CardCatalogue fromResource(String name) throws IOException {
+        InputStream in = CardCatalogue.class.getResourceAsStream(name);
+        if (in == null) {
+            throw new IOException("No card catalogue at " + name);
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    private void add(JSONObject card) {
+        Deck deck = Deck.valueOf(card.getString("deck"));
+        int count = card.optInt("count", 1);
+        if (count < 1) {
+            throw new IllegalArgumentException("Card count must be positive");
+        }
+        CardDefinition definition = new CardDefinition(card.getInt("pollution"),
+                effect(card.optJSONObject("upper")), effect(card.optJSONObject("lower")));
+        definitionCount++;
+        for (int i = 0; i < count; i++) {
+            decks.get(deck).add(definition);
+        }
+    }
+
+    private Effect effect(JSONObject json) {
+        if (json == null) return null;
+        Effect effect;
+        String type = json.getString("type");
+        switch (type) {
+            case "TransformationFixed":
+                effect = new TransformationFixed(resources(json.getJSONArray("from")),
+                        resources(json.getJSONArray("to")), json.getInt("pollution"));
+                break;
+            case "ArbitraryBasic":
+                effect = new ArbitraryBasic(json.getInt("from"),
+                        resources(json.getJSONArray("to")), json.getInt("pollution"));
+                break;
+            case "EffectOr": {
+                JSONArray both = json.getJSONArray("effects");
+                if (both.length() != 2) {
+                    throw new IllegalArgumentException("EffectOr needs exactly two effects");
+                }
+                effect = new EffectOr(effect(both.getJSONObject(0)), effect(both.getJSONObject(1)));
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown effect type " + type);
+        }
+        // the canonical state text identifies equal effects
+        return effects.computeIfAbsent(effect.state(), key -> effect);
+    }
+
+    private static List<Resource> resources(JSONArray names) {
+        List<Resource> result = new ArrayList<>(names.length());
+        for (int i = 0; i < names.length(); i++) {
+            result.add(Resource.valueOf(names.getString(i)));
+        }
+        return List.copyOf(result);
+    }
+
+    // the cards of a deck, one entry per physical card; copies share a definition
+    public List<CardDefinition> deck(Deck deck) {
+        return decks.get(deck);
+    }
+
+    public int size() {
+        int size = 0;
+        for (List<CardDefinition> deck : decks.values()) {
+            size += deck.size();
+        }
+        return size;
+    }
+
+    // distinct definitions and distinct effects; what all games share
+    public int definitionCount() {
+        return definitionCount;
+    }
+
+    public int effectCount() {
+        return effects.size();
+    }
+}
@@ -0,0 +1,45 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+// The printed, never-changing part of a card: pollution spaces and effects. One
+// definition is shared by every copy of the card in every game; a Card only adds the
+// resources and pollution placed on it during play. That per-game state stays on the
+// Card object rather than in one array per game: cards are dealt before any game owns
+// them, move between piles and grids, and the snapshot, journal and activation plans
+// all address them by reference.
+public final class CardDefinition {
+    private final int pollutionSpaces;
+    private final Effect upperEffect;
+    private final Effect lowerEffect;
+    private final boolean assistance;
+
+    public CardDefinition(int pollutionSpaces, Effect upperEffect, Effect lowerEffect) {
+        if (pollutionSpaces < 0) {
+            throw new IllegalArgumentException("Pollution spaces must not be negative");
+        }
+        this.pollutionSpaces = pollutionSpaces;
+        this.upperEffect = upperEffect;
+        this.lowerEffect = lowerEffect;
+        this.assistance = (upperEffect != null && upperEffect.hasAssistance())
+                || (lowerEffect != null && lowerEffect.hasAssistance());
+    }
+
+    public Card newCard() {
+        return new Card(this);
+    }
+
+    public int pollutionSpaces() {
+        return pollutionSpaces;
+    }
+
+    public Effect upperEffect() {
+        return upperEffect;
+    }
+
+    public Effect lowerEffect() {
+        return lowerEffect;
+    }
+
+    public boolean hasAssistance() {
+        return assistance;
+    }
+}
@@ -0,0 +1,125 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+// Deals games from a catalogue of card templates: both piles are shuffled from streams
+// split off the game's seed, four cards of each face up, and every player draws two
+// scoring methods.
+public class CatalogueGameFactory implements GameFactory {
+
+    private final PileFactory deckI;
+    private final PileFactory deckII;
+    private final List<ScoringMethodTemplate> scoring;
+    private final int players;
+
+    // what a scoring card needs, independent of the player it is dealt to
+    public static final class ScoringMethodTemplate {
+        final List<Resource> resources;
+        final Points points;
+
+        public ScoringMethodTemplate(List<Resource> resources, Points points) {
+            this.resources = List.copyOf(resources);
+            this.points = points;
+        }
+    }
+
+    public CatalogueGameFactory(List<Supplier<Card>> deckI,
+                                List<Supplier<Card>> deckII,
+                                List<ScoringMethodTemplate> scoring,
+                                int players) {
+        this(new PileFactory(deckI), new PileFactory(deckII), scoring, players);
+    }
+
+    // deals the catalogue's cards; games share its definitions and effects
+    public CatalogueGameFactory(CardCatalogue catalogue, List<ScoringMethodTemplate> scoring, int players) {
+        this(PileFactory.of(catalogue, Deck.I), PileFactory.of(catalogue, Deck.II), scoring, players);
+    }
+
+    public CatalogueGameFactory(PileFactory deckI, PileFactory deckII,
+                                List<ScoringMethodTemplate> scoring, int players) {
+        if (players < 1) {
+            throw new IllegalArgumentException("At least one player is needed");
+        }
+        if (scoring.size() < 2) {
+            throw new IllegalArgumentException("At least two scoring methods are needed");
+        }
+        this.deckI = deckI;
+        this.deckII = deckII;
+        this.scoring = List.copyOf(scoring);
+        this.players = players;
+    }
+
+    @Override
+    public int catalogueSize() {
+        return deckI.size() + deckII.size();
+    }
+
+    // the set-up is dealt from one seed, so the game can be rebuilt as a replica for search
+    @Override
+    public SimulatedGame newGame(RandomGenerator random) {
+        return deal(random.nextLong());
+    }
+
+    private SimulatedGame deal(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Map<Card, Integer> cardIds = new IdentityHashMap<>();
+        // each deck shuffles from its own stream
+        Pile pileI = deal(deckI, 0, random.split(), cardIds);
+        Pile pileII = deal(deckII, deckI.size(), random.split(), cardIds);
+
+        Player[] seats = new Player[players];
+        for (int i = 0; i < players; i++) {
+            seats[i] = newPlayer(i + 1, random);
+        }
+        Game game = new Game(seats, pileI, pileII, null,
+                new GameObserver(Map.of()), new ProcessAction(), new ProcessActionAssistance(), new SelectReward());
+        return new SimulatedGame(game, cardIds, () -> deal(seed));
+    }
+
+    private static Pile deal(PileFactory factory, int firstId, SplittableRandom random, Map<Card, Integer> cardIds) {
+        Pile pile = factory.deal(random);
+        for (int i = 0; i < pile.dealtCount(); i++) {
+            cardIds.put(pile.dealt(i), firstId + i);
+        }
+        return pile;
+    }
+
+    private Player newPlayer(int id, RandomGenerator random) {
+        Grid grid = new Grid();
+        int first = random.nextInt(scoring.size());
+        int second = (first + 1 + random.nextInt(scoring.size() - 1)) % scoring.size();
+        return new Player(id, grid,
+                new ActivationPattern(grid, List.of(new SimpleEntry<>(0, 0), new SimpleEntry<>(1, 1), new SimpleEntry<>(2, 2))),
+                new ActivationPattern(grid, List.of(new SimpleEntry<>(0, 2), new SimpleEntry<>(1, 1), new SimpleEntry<>(2, 0))),
+                scoringMethod(scoring.get(first), grid),
+                scoringMethod(scoring.get(second), grid));
+    }
+
+    private static ScoringMethod scoringMethod(ScoringMethodTemplate template, Grid grid) {
+        return new ScoringMethod(template.resources, template.points, () -> resourcesOn(grid));
+    }
+
+    static Map<Resource, Integer> resourcesOn(Grid grid) {
+        Map<Resource, Integer> totals = new EnumMap<>(Resource.class);
+        for (int x = 0; x < GridBits.SIZE; x++) {
+            for (int y = 0; y < GridBits.SIZE; y++) {
+                Card card = grid.getCard(new GridPosition(x, y)).orElse(null);
+                if (card == null) continue;
+                for (Resource resource : ResourceCounts.RESOURCES) {
+                    int count = card.getResourceCount(resource);
+                    if (count > 0) {
+                        totals.merge(resource, count, Integer::sum);
+                    }
+                }
+            }
+        }
+        return totals;
+    }
+}
@@ -4,6 +4,25 @@ import java.util.List;
 
 public interface Effect {
     boolean check(List<Resource> input, List<Resource> output, int pollution);
+
+    // same as check on lists, with both sides packed by ResourceSignature
+    default boolean check(long input, long output, int pollution) {
+        if (input == ResourceSignature.OVERFLOW || output == ResourceSignature.OVERFLOW) {
+            return false;
+        }
+        return check(ResourceSignature.toList(input), ResourceSignature.toList(output), pollution);
+    }
+
+    // the ways this effect can be used, for move generation; empty if they cannot be listed
+    default List<EffectOption> options() {
+        return List.of();
+    }
+
     boolean hasAssistance();
     String state();
+
+    // streams the same document as state(); effects without their own writer embed state()
+    default void writeState(JsonWriter out) {
+        out.rawValue(state());
+    }
 }
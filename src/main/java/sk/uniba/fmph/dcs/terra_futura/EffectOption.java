@@ -0,0 +1,47 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+// One concrete way to use an effect: the packed input (or "any `anyInputs` resources"),
+// the packed output and the pollution it produces.
+public final class EffectOption {
+    public static final int EXACT = -1;
+
+    private final long input;
+    private final int anyInputs;
+    private final long output;
+    private final int pollution;
+
+    public EffectOption(final long input, final int anyInputs, final long output, final int pollution) {
+        this.input = input;
+        this.anyInputs = anyInputs;
+        this.output = output;
+        this.pollution = pollution;
+    }
+
+    public static EffectOption exact(final long input, final long output, final int pollution) {
+        return new EffectOption(input, EXACT, output, pollution);
+    }
+
+    public static EffectOption any(final int inputs, final long output, final int pollution) {
+        return new EffectOption(0, inputs, output, pollution);
+    }
+
+    public boolean isExact() {
+        return anyInputs == EXACT;
+    }
+
+    public long input() {
+        return input;
+    }
+
+    public int anyInputs() {
+        return anyInputs;
+    }
+
+    public long output() {
+        return output;
+    }
+
+    public int pollution() {
+        return pollution;
+    }
+}
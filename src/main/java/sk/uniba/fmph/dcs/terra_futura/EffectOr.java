@@ -1,35 +1,53 @@
 package sk.uniba.fmph.dcs.terra_futura;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class EffectOr implements Effect {
     private final Effect first;
     private final Effect second;
+    private final List<EffectOption> options;
 
     EffectOr(Effect first, Effect second) {
         this.first = first;
         this.second = second;
+        List<EffectOption> both = new ArrayList<>(first.options());
+        both.addAll(second.options());
+        this.options = List.copyOf(both);
     }
 
     @Override
     public boolean check(List<Resource> input, List<Resource> output, int pollution) {
+        // pack once for both branches
+        return check(ResourceSignature.of(input), ResourceSignature.of(output), pollution);
+    }
+
+    @Override
+    public boolean check(long input, long output, int pollution) {
         return first.check(input, output, pollution) || second.check(input, output, pollution);
     }
 
+    @Override
+    public List<EffectOption> options() {
+        return options;
+    }
+
     @Override
     public boolean hasAssistance() {
         return first.hasAssistance() || second.hasAssistance();
     }
 
+    @Override
+    public void writeState(JsonWriter out) {
+        out.beginObject().name("type").value("EffectOr").name("effects").beginArray();
+        first.writeState(out);
+        second.writeState(out);
+        out.endArray().endObject();
+    }
+
     @Override
     public String state() {
-        return "{ " +
-                "\"type\": \"EffectOr\", " +
-                "\"effects\": [" +
-                first.state() + ", " +
-                second.state() +
-                "]" +
-                " }";
+        return JsonWriter.render(this::writeState);
     }
 }
 
@@ -0,0 +1,525 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Append-only log of the accepted commands of every game on the node, stored in
+// memory-mapped segment files (events-00000000.log, ...). Each record is
+// [payload length][CRC32C of the payload][payload], see GameEventCodec for the payload.
+// Appends only copy into the mapped segment; one commit thread forces the written
+// range to disk for all games at once and then completes the appenders' futures
+// (group commit). On open, the log continues after the last intact record, so a
+// record torn by a crash is dropped and overwritten. Once a force fails, nothing
+// written since can be trusted to reach the disk, so the log fails every pending and
+// later append instead of retrying.
+public class EventLog implements AutoCloseable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    public static final Duration DEFAULT_COMMIT_INTERVAL = Duration.ofMillis(2);
+
+    static final int RECORD_HEADER = 8;
+    private static final int MAX_PAYLOAD = 64 << 10;
+    private static final String PREFIX = "events-";
+    private static final String SUFFIX = ".log";
+
+    // receives the records in log order; game() returns null for games to skip
+    public interface EventHandler {
+        void created(int gameId, long seed);
+
+        TerraFuturaInterface game(int gameId);
+    }
+
+    // forces a written range of a segment to disk; tests pass one that fails
+    interface Force {
+        void force(MappedByteBuffer target, int from, int length);
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long commitNanos;
+    private final Force force;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_PAYLOAD);
+    private final CRC32C crc = new CRC32C();
+
+    private int segmentIndex;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int flushedTo;   // written bytes of the segment below this offset are on disk
+
+    private List<CompletableFuture<Void>> waiting = new ArrayList<>();
+    private List<CompletableFuture<Void>> committing = new ArrayList<>();
+    private long records = 0;
+    private boolean closed = false;
+    private RuntimeException failure;   // the first failed force; set once, under the lock
+    private final Thread committer;
+
+    public EventLog(Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_COMMIT_INTERVAL);
+    }
+
+    public EventLog(Path directory, int segmentSize, Duration commitInterval) {
+        this(directory, segmentSize, commitInterval, MappedByteBuffer::force);
+    }
+
+    EventLog(Path directory, int segmentSize, Duration commitInterval, Force force) {
+        if (segmentSize <= RECORD_HEADER + MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Segment size must exceed " + (RECORD_HEADER + MAX_PAYLOAD));
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.commitNanos = commitInterval.toNanos();
+        this.force = force;
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = segments(directory);
+            segmentIndex = segments.isEmpty() ? 0 : index(segments.get(segments.size() - 1));
+            openSegment(segmentIndex);
+            int end = validEnd(segment);
+            // whatever follows the last intact record is a torn write
+            for (int i = end; i < segmentSize; i++) {
+                segment.put(i, (byte) 0);
+            }
+            segment.force();
+            segment.position(end);
+            flushedTo = end;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        committer = new Thread(this::commitLoop, "event-log-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    // records appended by this instance
+    public long records() {
+        lock.lock();
+        try {
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CompletableFuture<Void> created(int gameId, long seed) {
+        lock.lock();
+        try {
+            begin();
+            GameEventCodec.created(scratch, gameId, seed);
+            return append();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CompletableFuture<Void> takeCard(int gameId, int playerId, CardSource source, GridPosition destination) {
+        lock.lock();
+        try {
+            begin();
+            GameEventCodec.takeCard(scratch, gameId, playerId, source, destination);
+            return append();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CompletableFuture<Void> discardLastCardFromDeck(int gameId, int playerId, Deck deck) {
+        lock.lock();
+        try {
+            begin();
+            GameEventCodec.discardLastCardFromDeck(scratch, gameId, playerId, deck);
+            return append();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CompletableFuture<Void> activateCard(int gameId, int playerId, GridPosition card,
+                                                List<Pair<Resource, GridPosition>> inputs,
+                                                List<Pair<Resource, GridPosition>> outputs,
+                                                List<GridPosition> pollution,
+                                                Optional<Integer> otherPlayerId,
+                                                Optional<GridPosition> otherCard) {
+        lock.lock();
+        try {
+            begin();
+            GameEventCodec.activateCard(scratch, gameId, playerId, card, inputs, outputs, pollution,
+                    otherPlayerId, otherCard);
+            return append();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CompletableFuture<Void> selectReward(int gameId, int playerId, Resource resource) {
+        lock.lock();
+        try {
+            begin();
+            GameEventCodec.selectReward(scratch, gameId, playerId, resource);
+            return append();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CompletableFuture<Void> turnFinished(int gameId, int playerId) {
+        lock.lock();
+        try {
+            begin();
+            GameEventCodec.turnFinished(scratch, gameId, playerId);
+            return append();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CompletableFuture<Void> selectActivationPattern(int gameId, int playerId, int card) {
+        lock.lock();
+        try {
+            begin();
+            GameEventCodec.selectActivationPattern(scratch, gameId, playerId, card);
+            return append();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CompletableFuture<Void> selectScoring(int gameId, int playerId, int card) {
+        lock.lock();
+        try {
+            begin();
+            GameEventCodec.selectScoring(scratch, gameId, playerId, card);
+            return append();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void begin() {
+        if (closed) {
+            throw new IllegalStateException("Event log is closed");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Event log failed to reach the disk", failure);
+        }
+        scratch.clear();
+    }
+
+    // copies the encoded record into the segment; called with the lock held
+    private CompletableFuture<Void> append() {
+        scratch.flip();
+        int length = scratch.remaining();
+        if (segment.remaining() < RECORD_HEADER + length) {
+            roll();
+        }
+        crc.reset();
+        crc.update(scratch.array(), 0, length);
+        segment.putInt(length);
+        segment.putInt((int) crc.getValue());
+        segment.put(scratch);
+        records++;
+
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        waiting.add(durable);
+        if (waiting.size() == 1) {
+            appended.signal();
+        }
+        return durable;
+    }
+
+    // moves to a new segment; the finished one is forced right away
+    private void roll() {
+        try {
+            force.force(segment, flushedTo, segment.position() - flushedTo);
+            channel.close();
+            openSegment(++segmentIndex);
+            flushedTo = 0;
+        } catch (IOException ex) {
+            failure = new UncheckedIOException(ex);
+            throw failure;
+        } catch (RuntimeException ex) {
+            failure = ex;
+            throw ex;
+        }
+    }
+
+    private void openSegment(int index) throws IOException {
+        channel = FileChannel.open(directory.resolve(name(index)),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+
+    private void commitLoop() {
+        while (true) {
+            MappedByteBuffer target;
+            int from;
+            int to;
+            RuntimeException failed;
+            List<CompletableFuture<Void>> batch;
+            lock.lock();
+            try {
+                while (waiting.isEmpty() && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (waiting.isEmpty()) {
+                    return;
+                }
+                // let more appends from other games join the batch
+                if (!closed && commitNanos > 0) {
+                    try {
+                        appended.awaitNanos(commitNanos);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                target = segment;
+                from = flushedTo;
+                to = segment.position();
+                failed = failure;
+                batch = waiting;
+                waiting = committing;
+                committing = batch;
+            } finally {
+                lock.unlock();
+            }
+
+            if (failed == null && to > from) {
+                try {
+                    force.force(target, from, to - from);
+                } catch (RuntimeException ex) {
+                    failed = ex;
+                }
+                lock.lock();
+                try {
+                    if (failed != null) {
+                        if (failure == null) failure = failed;
+                    } else if (segment == target) {
+                        // only now is the range known to be on disk
+                        flushedTo = to;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+            for (CompletableFuture<Void> durable : batch) {
+                if (failed == null) {
+                    durable.complete(null);
+                } else {
+                    durable.completeExceptionally(failed);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    // waits for the pending commits and releases the files
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            committer.join();
+            channel.close();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // reads every intact record of the log in the directory, oldest first
+    public static long replay(Path directory, EventHandler handler) {
+        long count = 0;
+        try {
+            for (Path file : segments(directory)) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    CRC32C check = new CRC32C();
+                    int at = 0;
+                    int length;
+                    while ((length = recordLength(segment, at, check)) > 0) {
+                        ByteBuffer record = segment.slice(at + RECORD_HEADER, length);
+                        GameEventCodec.decode(record, handler);
+                        at += RECORD_HEADER + length;
+                        count++;
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return count;
+    }
+
+    // rebuilds the games of the log: `setUp` deals a game from the seed it was created
+    // with and the logged commands are played on it again
+    public static Map<Integer, Game> recover(Path directory, LongFunction<Game> setUp) {
+        Map<Integer, Replaying> replaying = new HashMap<>();
+        replay(directory, new EventHandler() {
+            @Override
+            public void created(int gameId, long seed) {
+                replaying.put(gameId, new Replaying(gameId, setUp.apply(seed)));
+            }
+
+            @Override
+            public TerraFuturaInterface game(int gameId) {
+                Replaying game = replaying.get(gameId);
+                if (game == null) {
+                    throw new IllegalStateException("Log has commands for game " + gameId + " before it was created");
+                }
+                return game;
+            }
+        });
+        Map<Integer, Game> games = new HashMap<>();
+        for (Map.Entry<Integer, Replaying> entry : replaying.entrySet()) {
+            games.put(entry.getKey(), entry.getValue().game);
+        }
+        return games;
+    }
+
+    // Only accepted commands are logged, so every one of them must be accepted again; a
+    // command the rebuilt game rejects or throws on means it no longer matches the
+    // original, and recovery fails rather than host a diverged game.
+    private static final class Replaying implements TerraFuturaInterface {
+        private final int gameId;
+        private final Game game;
+        private long commands = 0;
+
+        Replaying(int gameId, Game game) {
+            this.gameId = gameId;
+            this.game = game;
+        }
+
+        private boolean replay(String command, BooleanSupplier move) {
+            commands++;
+            boolean accepted;
+            try {
+                accepted = move.getAsBoolean();
+            } catch (RuntimeException ex) {
+                throw diverged(command, ex);
+            }
+            if (!accepted) {
+                throw diverged(command, null);
+            }
+            return true;
+        }
+
+        private IllegalStateException diverged(String command, RuntimeException cause) {
+            return new IllegalStateException("Game " + gameId + " diverged on replay: logged command "
+                    + commands + " (" + command + ") was not accepted", cause);
+        }
+
+        @Override
+        public boolean takeCard(int playerId, CardSource source, GridPosition destination) {
+            return replay("takeCard", () -> game.takeCard(playerId, source, destination));
+        }
+
+        @Override
+        public boolean discardLastCardFromDeck(int playerId, Deck deck) {
+            return replay("discardLastCardFromDeck", () -> game.discardLastCardFromDeck(playerId, deck));
+        }
+
+        @Override
+        public boolean activateCard(int playerId, GridPosition card,
+                                    List<Pair<Resource, GridPosition>> inputs,
+                                    List<Pair<Resource, GridPosition>> outputs,
+                                    List<GridPosition> pollution,
+                                    Optional<Integer> otherPlayerId,
+                                    Optional<GridPosition> otherCard) {
+            return replay("activateCard", () -> game.activateCard(playerId, card, inputs, outputs, pollution,
+                    otherPlayerId, otherCard));
+        }
+
+        @Override
+        public boolean selectReward(int playerId, Resource resource) {
+            return replay("selectReward", () -> game.selectReward(playerId, resource));
+        }
+
+        @Override
+        public boolean turnFinished(int playerId) {
+            return replay("turnFinished", () -> game.turnFinished(playerId));
+        }
+
+        @Override
+        public boolean selectActivationPattern(int playerId, int card) {
+            return replay("selectActivationPattern", () -> game.selectActivationPattern(playerId, card));
+        }
+
+        @Override
+        public boolean selectScoring(int playerId, int card) {
+            return replay("selectScoring", () -> game.selectScoring(playerId, card));
+        }
+    }
+
+    // end of the intact records of a segment
+    private static int validEnd(ByteBuffer segment) {
+        CRC32C check = new CRC32C();
+        int at = 0;
+        int length;
+        while ((length = recordLength(segment, at, check)) > 0) {
+            at += RECORD_HEADER + length;
+        }
+        return at;
+    }
+
+    // length of the intact record at `at`, or 0 at the end of the log
+    private static int recordLength(ByteBuffer segment, int at, CRC32C check) {
+        if (at + RECORD_HEADER > segment.limit()) return 0;
+        int length = segment.getInt(at);
+        if (length <= 0 || length > MAX_PAYLOAD || at + RECORD_HEADER + length > segment.limit()) return 0;
+        check.reset();
+        check.update(segment.slice(at + RECORD_HEADER, length));
+        return (int) check.getValue() == segment.getInt(at + 4) ? length : 0;
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    private static String name(int index) {
+        return String.format("%s%08d%s", PREFIX, index, SUFFIX);
+    }
+
+    private static int index(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -1,7 +1,9 @@
 package sk.uniba.fmph.dcs.terra_futura;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 public class Game implements TerraFuturaInterface {
 
@@ -21,6 +23,11 @@ public class Game implements TerraFuturaInterface {
     private final ProcessAction processAction;
     private final ProcessActionAssistance processActionAssistance;
     private final SelectReward selectReward;
+    private final StateChangeTracker changes = new StateChangeTracker();
+    private final ViewProjector views = new ViewProjector();
+    private final Supplier<String> resyncSnapshot = () -> changes.resync(this);
+    private UndoJournal journal;
+    private boolean publishing = true;
 
     public Game(Player[] players,
                 Pile pile1,
@@ -47,6 +54,47 @@ public class Game implements TerraFuturaInterface {
     }
 
 
+    Pile getPile(Deck deck) {
+        return piles[deck.getIndex()];
+    }
+
+    SelectReward getSelectReward() {
+        return selectReward;
+    }
+
+    public StateChangeTracker getChangeTracker() {
+        return changes;
+    }
+
+    // when set, every command records how to revert itself; null turns recording off
+    public void setJournal(UndoJournal journal) {
+        this.journal = journal;
+    }
+
+    public UndoJournal getJournal() {
+        return journal;
+    }
+
+    // off while a bot plays hypothetical moves on this game; restoring a snapshot
+    // afterwards requests a resync, so observers then get the real position at once
+    public void setPublishing(boolean publishing) {
+        this.publishing = publishing;
+    }
+
+    public boolean isPublishing() {
+        return publishing;
+    }
+
+    // sends what the last command changed to the observers
+    private void publishChanges() {
+        if (!publishing || gameObserver == null || !gameObserver.hasObservers() || !changes.hasChanges()) {
+            return;
+        }
+        views.update(this);
+        String update = changes.flush(this);
+        gameObserver.publish(update, changes.flushedPatch(), views, resyncSnapshot);
+    }
+
     private Player getPlayerById(int playerId) {
         for (Player p : players) {
             if (p.id == playerId) {
@@ -135,10 +183,19 @@ public class Game implements TerraFuturaInterface {
             return false;
         }
 
+        if (journal != null) {
+            journal.game(this);
+            journal.gridCell(grid, GridBits.cell(destination));
+            journal.pileTake(pile, source.index, card);
+        }
         grid.putCard(destination, card);
         pile.takeCard(source.index);
 
         this.state = GameState.ActivateCard;
+        changes.markCell(playerId, destination);
+        changes.markPileSlotsFrom(source.deck, source.index);
+        changes.markGameFields();
+        publishChanges();
         return true;
     }
 
@@ -146,13 +203,25 @@ public class Game implements TerraFuturaInterface {
     public boolean discardLastCardFromDeck(int playerId, Deck deck) {
         ensurePlayerOnTurn(playerId);
         ensureState(GameState.TakeCardNoCardDiscarded);
-        piles[deck.getIndex()].removeLastCard();
+        Pile pile = piles[deck.getIndex()];
+        // checked before anything is journaled, so a rejected discard leaves no entry
+        if (pile.getDisplayCards().isEmpty()) {
+            return false;
+        }
+        if (journal != null) {
+            journal.game(this);
+            journal.pileDiscard(pile);
+        }
+        pile.removeLastCard();
         state = GameState.TakeCardCardDiscarded;
+        changes.markPileSlotsFrom(deck, 0);
+        changes.markGameFields();
+        publishChanges();
         return true;
     }
 
     @Override
-    public void activateCard(
+    public boolean activateCard(
             int playerId,
             GridPosition card,
             List<Pair<Resource, GridPosition>> inputs,
@@ -167,70 +236,124 @@ public class Game implements TerraFuturaInterface {
         Grid grid = player.grid;
 
         if (!grid.canBeActivated(card)) {
-            return;
+            return false;
         }
 
         Optional<Card> cardOpt = grid.getCard(card);
         if (cardOpt.isEmpty()) {
-            return;
+            return false;
         }
 
         Card cardEnt = cardOpt.get();
 
         boolean hasAssistance = otherPlayerId.isPresent() && otherCard.isPresent();
-        boolean success = false;
-
-        if (!hasAssistance) {
-            success = processAction.activateCard(
-                    cardEnt,
-                    grid,
-                    inputs,
-                    outputs,
-                    pollution
-            );
-
-            if (success) {
-                grid.setActivated(card);
+        int assistingId = -1;
+        Card assistingCard = null;
+        if (hasAssistance) {
+            assistingId = otherPlayerId.get();
+            Optional<Card> assistingCardOpt = getPlayerById(assistingId).grid.getCard(otherCard.get());
+            if (assistingCardOpt.isEmpty()) {
+                return false;
             }
-        } else {
-            int assistingId = otherPlayerId.get();
-            Player assistingPlayer = getPlayerById(assistingId);
-            Grid assistingGrid = assistingPlayer.grid;
+            assistingCard = assistingCardOpt.get();
+        }
 
-            Optional<Card> assistingCardOpt = assistingGrid.getCard(otherCard.get());
-            if (assistingCardOpt.isEmpty()) {
-                return;
+        // validated before anything is journaled, so a rejected activation leaves no entry
+        ActivationPlan plan = hasAssistance
+                ? processActionAssistance.prepare(cardEnt, grid, assistingCard, inputs, outputs, pollution)
+                : processAction.prepare(cardEnt, grid, inputs, outputs, pollution);
+        if (!plan.isValid()) {
+            return false;
+        }
+
+        if (journal != null) {
+            journal.game(this);
+            journal.gridBits(grid);
+            journal.card(cardEnt);
+            journalCards(grid, positionsOf(inputs));
+            journalCards(grid, positionsOf(outputs));
+            journalCards(grid, pollution);
+            if (hasAssistance && selectReward != null) {
+                journal.reward(selectReward);
             }
-            Card assistingCard = assistingCardOpt.get();
-
-            success = processActionAssistance.activateCard(
-                    cardEnt,
-                    grid,
-                    assistingId,
-                    assistingCard,
-                    inputs,
-                    outputs,
-                    pollution
-            );
-
-            if (success) {
-                grid.setActivated(card);
-                this.state = GameState.SelectReward;
+        }
+
+        plan.commit();
+        grid.setActivated(card);
+        if (hasAssistance) {
+            Resource[] reward = rewardOptions(inputs);
+            if (selectReward != null) {
+                selectReward.setReward(assistingId, assistingCard, reward);
+                if (selectReward.isPending()) {
+                    this.state = GameState.SelectReward;
+                }
             }
+            changes.markGameFields();
+        }
+
+        changes.markCell(playerId, card);
+        changes.markCells(playerId, positionsOf(inputs));
+        changes.markCells(playerId, positionsOf(outputs));
+        changes.markCells(playerId, pollution);
+        publishChanges();
+        return true;
+    }
+
+    // the assisting player is rewarded with one of the resources paid for the activation
+    private static Resource[] rewardOptions(List<Pair<Resource, GridPosition>> inputs) {
+        if (inputs == null) {
+            return new Resource[0];
+        }
+        Resource[] reward = new Resource[inputs.size()];
+        for (int i = 0; i < reward.length; i++) {
+            reward[i] = inputs.get(i).first;
+        }
+        return reward;
+    }
+
+    private void journalCards(Grid grid, List<GridPosition> positions) {
+        if (positions == null) return;
+        for (GridPosition position : positions) {
+            journal.card(grid.getCard(position).orElse(null));
         }
+    }
 
+    private static List<GridPosition> positionsOf(List<Pair<Resource, GridPosition>> resources) {
+        if (resources == null) {
+            return List.of();
+        }
+        List<GridPosition> positions = new ArrayList<>(resources.size());
+        for (Pair<Resource, GridPosition> p : resources) {
+            positions.add(p.second);
+        }
+        return positions;
     }
 
     @Override
-    public void selectReward(int playerId, Resource resource) {
-        ensurePlayerOnTurn(playerId);
+    public boolean selectReward(int playerId, Resource resource) {
         ensureState(GameState.SelectReward);
+        if (selectReward.playerId() != playerId) {
+            throw new IllegalStateException("Wrong player");
+        }
         if (!selectReward.canSelectReward(resource)) {
-            return;
+            return false;
+        }
+        Card card = selectReward.card();
+        if (journal != null) {
+            journal.game(this);
+            journal.card(card);
+            journal.reward(selectReward);
         }
         selectReward.selectReward(resource);
 
         this.state = GameState.ActivateCard;
+        GridPosition position = getPlayerById(playerId).grid.positionOf(card);
+        if (position != null) {
+            changes.markCell(playerId, position);
+        }
+        changes.markGameFields();
+        publishChanges();
+        return true;
     }
 
     @Override
@@ -239,8 +362,18 @@ public class Game implements TerraFuturaInterface {
         ensureState(GameState.ActivateCard);
 
         Player player = getPlayerById(playerId);
+        if (journal != null) {
+            journal.game(this);
+            journal.gridBits(player.grid);
+        }
         player.grid.endTurn();
+        changes.markGameFields();
+        boolean result = advanceTurn();
+        publishChanges();
+        return result;
+    }
 
+    private boolean advanceTurn() {
         if(turnNumber < 10){
             if(onTurn < players.length - 1){
                 onTurn++;
@@ -282,9 +415,18 @@ public class Game implements TerraFuturaInterface {
 
         ActivationPattern pattern = player.activationPatterns[card];
 
+        if (journal != null) {
+            journal.game(this);
+            journal.pattern(pattern);
+            journal.gridPattern(player.grid);
+            journal.gridBits(player.grid);
+        }
         pattern.select();
 
         this.state = GameState.ActivateCard;
+        changes.markGrid(playerId);
+        changes.markGameFields();
+        publishChanges();
         return true;
     }
 
@@ -301,6 +443,10 @@ public class Game implements TerraFuturaInterface {
 
         ScoringMethod method = player.scoringMethods[card];
 
+        if (journal != null) {
+            journal.game(this);
+            journal.scoring(method);
+        }
         method.selectThisMethodAndCalculate();
 
         if (allPlayersHaveSelectedScoring()) {
@@ -310,6 +456,9 @@ public class Game implements TerraFuturaInterface {
             this.state = GameState.SelectScoringMethod;
         }
 
+        changes.markScoring(playerId);
+        changes.markGameFields();
+        publishChanges();
         return true;
     }
 }
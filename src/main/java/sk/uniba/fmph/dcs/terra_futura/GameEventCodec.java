@@ -0,0 +1,216 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+// Binary form of the commands in the event log. A record is the game id, a one byte
+// event code and the command arguments; coordinates, indexes and resources are single
+// bytes, with -1 standing for null. The codes are part of the file format, never reuse one.
+final class GameEventCodec {
+    static final byte CREATED = 1;
+    static final byte TAKE_CARD = 2;
+    static final byte DISCARD_LAST_CARD = 3;
+    static final byte ACTIVATE_CARD = 4;
+    static final byte SELECT_REWARD = 5;
+    static final byte TURN_FINISHED = 6;
+    static final byte SELECT_ACTIVATION_PATTERN = 7;
+    static final byte SELECT_SCORING = 8;
+
+    private static final byte NULL = -1;
+    private static final Deck[] DECKS = Deck.values();
+
+    private GameEventCodec() {
+    }
+
+    static void created(ByteBuffer out, int gameId, long seed) {
+        header(out, gameId, CREATED);
+        out.putLong(seed);
+    }
+
+    static void takeCard(ByteBuffer out, int gameId, int playerId, CardSource source, GridPosition destination) {
+        header(out, gameId, TAKE_CARD);
+        out.putInt(playerId);
+        out.put(source.deck == null ? NULL : (byte) source.deck.getIndex());
+        out.put(small(source.index));
+        position(out, destination);
+    }
+
+    static void discardLastCardFromDeck(ByteBuffer out, int gameId, int playerId, Deck deck) {
+        header(out, gameId, DISCARD_LAST_CARD);
+        out.putInt(playerId);
+        out.put(deck == null ? NULL : (byte) deck.getIndex());
+    }
+
+    static void activateCard(ByteBuffer out, int gameId, int playerId, GridPosition card,
+                             List<Pair<Resource, GridPosition>> inputs,
+                             List<Pair<Resource, GridPosition>> outputs,
+                             List<GridPosition> pollution,
+                             Optional<Integer> otherPlayerId,
+                             Optional<GridPosition> otherCard) {
+        header(out, gameId, ACTIVATE_CARD);
+        out.putInt(playerId);
+        position(out, card);
+        resources(out, inputs);
+        resources(out, outputs);
+        out.putShort(pollution == null ? NULL : (short) pollution.size());
+        if (pollution != null) {
+            for (GridPosition position : pollution) {
+                position(out, position);
+            }
+        }
+        boolean assisted = otherPlayerId != null && otherPlayerId.isPresent()
+                && otherCard != null && otherCard.isPresent();
+        out.put(assisted ? (byte) 1 : (byte) 0);
+        if (assisted) {
+            out.putInt(otherPlayerId.get());
+            position(out, otherCard.get());
+        }
+    }
+
+    static void selectReward(ByteBuffer out, int gameId, int playerId, Resource resource) {
+        header(out, gameId, SELECT_REWARD);
+        out.putInt(playerId);
+        out.put(resource == null ? NULL : (byte) resource.ordinal());
+    }
+
+    static void turnFinished(ByteBuffer out, int gameId, int playerId) {
+        header(out, gameId, TURN_FINISHED);
+        out.putInt(playerId);
+    }
+
+    static void selectActivationPattern(ByteBuffer out, int gameId, int playerId, int card) {
+        header(out, gameId, SELECT_ACTIVATION_PATTERN);
+        out.putInt(playerId);
+        out.putInt(card);
+    }
+
+    static void selectScoring(ByteBuffer out, int gameId, int playerId, int card) {
+        header(out, gameId, SELECT_SCORING);
+        out.putInt(playerId);
+        out.putInt(card);
+    }
+
+    // reads one record and hands it to the handler; `in` spans exactly the record
+    static void decode(ByteBuffer in, EventLog.EventHandler handler) {
+        int gameId = in.getInt();
+        byte code = in.get();
+        if (code == CREATED) {
+            handler.created(gameId, in.getLong());
+            return;
+        }
+        TerraFuturaInterface game = handler.game(gameId);
+        if (game == null) {
+            return;
+        }
+        int playerId = in.getInt();
+        switch (code) {
+            case TAKE_CARD: {
+                CardSource source = new CardSource();
+                source.deck = deck(in.get());
+                source.index = in.get();
+                game.takeCard(playerId, source, position(in));
+                break;
+            }
+            case DISCARD_LAST_CARD:
+                game.discardLastCardFromDeck(playerId, deck(in.get()));
+                break;
+            case ACTIVATE_CARD: {
+                GridPosition card = position(in);
+                List<Pair<Resource, GridPosition>> inputs = resources(in);
+                List<Pair<Resource, GridPosition>> outputs = resources(in);
+                List<GridPosition> pollution = null;
+                short count = in.getShort();
+                if (count != NULL) {
+                    pollution = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        pollution.add(position(in));
+                    }
+                }
+                Optional<Integer> otherPlayerId = Optional.empty();
+                Optional<GridPosition> otherCard = Optional.empty();
+                if (in.get() == 1) {
+                    otherPlayerId = Optional.of(in.getInt());
+                    otherCard = Optional.ofNullable(position(in));
+                }
+                game.activateCard(playerId, card, inputs, outputs, pollution, otherPlayerId, otherCard);
+                break;
+            }
+            case SELECT_REWARD:
+                game.selectReward(playerId, resource(in.get()));
+                break;
+            case TURN_FINISHED:
+                game.turnFinished(playerId);
+                break;
+            case SELECT_ACTIVATION_PATTERN:
+                game.selectActivationPattern(playerId, in.getInt());
+                break;
+            case SELECT_SCORING:
+                game.selectScoring(playerId, in.getInt());
+                break;
+            default:
+                throw new IllegalStateException("Unknown event " + code);
+        }
+    }
+
+    private static void header(ByteBuffer out, int gameId, byte code) {
+        out.putInt(gameId);
+        out.put(code);
+    }
+
+    private static byte small(int value) {
+        if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Value does not fit the event format: " + value);
+        }
+        return (byte) value;
+    }
+
+    private static void position(ByteBuffer out, GridPosition position) {
+        out.put(position == null ? NULL : small(position.x));
+        out.put(position == null ? NULL : small(position.y));
+    }
+
+    private static GridPosition position(ByteBuffer in) {
+        byte x = in.get();
+        byte y = in.get();
+        return x == NULL && y == NULL ? null : new GridPosition(x, y);
+    }
+
+    private static void resources(ByteBuffer out, List<Pair<Resource, GridPosition>> resources) {
+        if (resources == null) {
+            out.putShort(NULL);
+            return;
+        }
+        if (resources.size() > Short.MAX_VALUE) {
+            throw new BufferOverflowException();
+        }
+        out.putShort((short) resources.size());
+        for (Pair<Resource, GridPosition> pair : resources) {
+            out.put(pair == null || pair.first == null ? NULL : (byte) pair.first.ordinal());
+            position(out, pair == null ? null : pair.second);
+        }
+    }
+
+    private static List<Pair<Resource, GridPosition>> resources(ByteBuffer in) {
+        short count = in.getShort();
+        if (count == NULL) {
+            return null;
+        }
+        List<Pair<Resource, GridPosition>> resources = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Resource resource = resource(in.get());
+            resources.add(Pair.of(resource, position(in)));
+        }
+        return resources;
+    }
+
+    private static Resource resource(byte ordinal) {
+        return ordinal == NULL ? null : ResourceCounts.RESOURCES[ordinal];
+    }
+
+    private static Deck deck(byte index) {
+        return index == NULL ? null : DECKS[index];
+    }
+}
@@ -0,0 +1,10 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.random.RandomGenerator;
+
+public interface GameFactory {
+    // all randomness of the set-up must come from `random`, so a seed reproduces the game
+    SimulatedGame newGame(RandomGenerator random);
+
+    int catalogueSize();
+}
@@ -0,0 +1,83 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+// Runs the commands of one game one at a time, in submission order.
+// At most one drain task per game is scheduled on the executor at any moment.
+class GameMailbox {
+    private final Game game;
+    private final Executor executor;
+    private final Queue<Command<?>> commands = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    // a queued command and the future its caller waits on; whatever it throws,
+    // Errors included, completes the future instead of escaping the drain loop
+    private final class Command<T> {
+        private final Function<Game, T> body;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Command(Function<Game, T> body) {
+            this.body = body;
+        }
+
+        void run() {
+            try {
+                result.complete(body.apply(game));
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            }
+        }
+    }
+
+    GameMailbox(Game game, Executor executor) {
+        this.game = game;
+        this.executor = executor;
+    }
+
+    <T> CompletableFuture<T> submit(Function<Game, T> command) {
+        Command<T> queued = new Command<>(command);
+        commands.add(queued);
+        schedule();
+        return queued.result;
+    }
+
+    int pending() {
+        return commands.size();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RuntimeException ex) {
+                // the executor refused the drain (e.g. after shutdown); nothing would ever
+                // run what is queued, so fail it rather than leave the callers waiting
+                scheduled.set(false);
+                Command<?> command;
+                while ((command = commands.poll()) != null) {
+                    command.result.completeExceptionally(ex);
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            Command<?> command;
+            while ((command = commands.poll()) != null) {
+                command.run();
+            }
+        } finally {
+            scheduled.set(false);
+        }
+        // a command may have been queued after the last poll but before the flag was cleared
+        if (!commands.isEmpty()) {
+            schedule();
+        }
+    }
+}
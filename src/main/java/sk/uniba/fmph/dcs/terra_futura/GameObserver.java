@@ -2,6 +2,7 @@ package sk.uniba.fmph.dcs.terra_futura;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 public class GameObserver {
 
@@ -11,6 +12,16 @@ public class GameObserver {
         this.observers = new HashMap<>(observers);
     }
 
+    // every observer gets its own bounded queue and delivery thread
+    public static GameObserver async(Map<Integer, TerraFuturaObserverInterface> observers,
+                                     int capacity, AsyncObserver.OverflowPolicy policy) {
+        Map<Integer, TerraFuturaObserverInterface> wrapped = new HashMap<>();
+        for (Map.Entry<Integer, TerraFuturaObserverInterface> entry : observers.entrySet()) {
+            wrapped.put(entry.getKey(), new AsyncObserver(entry.getValue(), capacity, policy));
+        }
+        return new GameObserver(wrapped);
+    }
+
     public void notifyAll(Map<Integer, String> newState) {
         for (Map.Entry<Integer, String> entry : newState.entrySet()) {
             int playerId = entry.getKey();
@@ -22,4 +33,54 @@ public class GameObserver {
             }
         }
     }
+
+    // same string to every observer, e.g. a patch that carries no hidden information
+    public void broadcast(String newState) {
+        for (TerraFuturaObserverInterface observer : observers.values()) {
+            observer.notify(newState);
+        }
+    }
+
+    // the same self-contained update to everyone, each player with their personal part
+    // from `views`
+    public void publish(String sharedState, ViewProjector views) {
+        publish(sharedState, false, views, null);
+    }
+
+    // as above; `patch` tells asynchronous observers the update only applies on top of
+    // the one before. One that had to drop a patch gets `resync`, a snapshot of the same
+    // version, rendered at most once per update
+    public void publish(String sharedState, boolean patch, ViewProjector views, Supplier<String> resync) {
+        String snapshot = null;
+        for (Map.Entry<Integer, TerraFuturaObserverInterface> entry : observers.entrySet()) {
+            TerraFuturaObserverInterface observer = entry.getValue();
+            String personal = views.personal(entry.getKey());
+            if (!(observer instanceof AsyncObserver async)) {
+                observer.notifyView(sharedState, personal);
+                continue;
+            }
+            async.notifyView(sharedState, personal, patch);
+            if (resync != null && async.needsResync()) {
+                if (snapshot == null) {
+                    snapshot = resync.get();
+                }
+                async.notifyView(snapshot, personal, false);
+            }
+        }
+    }
+
+    public boolean hasObservers() {
+        return !observers.isEmpty();
+    }
+
+    // metrics of observers that are dispatched asynchronously
+    public Map<Integer, ObserverMetrics> metrics() {
+        Map<Integer, ObserverMetrics> result = new HashMap<>();
+        for (Map.Entry<Integer, TerraFuturaObserverInterface> entry : observers.entrySet()) {
+            if (entry.getValue() instanceof AsyncObserver async) {
+                result.put(entry.getKey(), async.metrics());
+            }
+        }
+        return result;
+    }
 }
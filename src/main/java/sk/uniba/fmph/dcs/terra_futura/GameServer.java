@@ -0,0 +1,162 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+// Hosts many games on one node. Commands for the same game are serialized through
+// that game's mailbox; different games never share a lock and run in parallel.
+public class GameServer implements AutoCloseable {
+
+    private final ConcurrentHashMap<Integer, GameMailbox> games = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+    private final EventLog log;
+
+    public GameServer() {
+        this(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    public GameServer(ExecutorService executor) {
+        this(executor, null);
+    }
+
+    // with a log, accepted commands are appended to it and their futures complete
+    // once the record is on disk
+    public GameServer(ExecutorService executor, EventLog log) {
+        this.executor = executor;
+        this.log = log;
+    }
+
+    public void host(int gameId, Game game) {
+        if (log != null) {
+            throw new IllegalStateException("A logged game needs the seed it was dealt from");
+        }
+        hostMailbox(gameId, game);
+    }
+
+    // `seed` must deal `game` again on recovery, see EventLog.recover
+    public CompletableFuture<Void> host(int gameId, long seed, Game game) {
+        hostMailbox(gameId, game);
+        return log == null ? CompletableFuture.completedFuture(null) : log.created(gameId, seed);
+    }
+
+    // hosts the games of the server's log as they were before the node stopped
+    public int recover(LongFunction<Game> setUp) {
+        if (log == null) {
+            throw new IllegalStateException("Server has no event log");
+        }
+        Map<Integer, Game> recovered = EventLog.recover(log.directory(), setUp);
+        for (Map.Entry<Integer, Game> entry : recovered.entrySet()) {
+            hostMailbox(entry.getKey(), entry.getValue());
+        }
+        return recovered.size();
+    }
+
+    private void hostMailbox(int gameId, Game game) {
+        if (games.putIfAbsent(gameId, new GameMailbox(game, executor)) != null) {
+            throw new IllegalArgumentException("Game " + gameId + " is already hosted");
+        }
+    }
+
+    public boolean remove(int gameId) {
+        return games.remove(gameId) != null;
+    }
+
+    public boolean isHosted(int gameId) {
+        return games.containsKey(gameId);
+    }
+
+    public int gameCount() {
+        return games.size();
+    }
+
+    public int pendingCommands(int gameId) {
+        GameMailbox mailbox = games.get(gameId);
+        return mailbox == null ? 0 : mailbox.pending();
+    }
+
+    // Runs an arbitrary command on the game's mailbox. Exceptions thrown by the game
+    // (wrong player, wrong state) complete the future exceptionally.
+    public <T> CompletableFuture<T> submit(int gameId, Function<Game, T> command) {
+        GameMailbox mailbox = games.get(gameId);
+        if (mailbox == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Unknown game " + gameId));
+        }
+        return mailbox.submit(command);
+    }
+
+    // runs the command and, when the game accepted it, appends it to the log on the
+    // game's mailbox, so the log keeps the order in which the game saw the commands
+    private <T> CompletableFuture<T> logged(int gameId, Function<Game, T> command,
+                                            BiFunction<EventLog, T, CompletableFuture<Void>> record) {
+        if (log == null) {
+            return submit(gameId, command);
+        }
+        return submit(gameId, game -> {
+            T result = command.apply(game);
+            return record.apply(log, result).thenApply(durable -> result);
+        }).thenCompose(Function.identity());
+    }
+
+    private static CompletableFuture<Void> recordIf(boolean accepted, Supplier<CompletableFuture<Void>> record) {
+        return accepted ? record.get() : CompletableFuture.completedFuture(null);
+    }
+
+    public CompletableFuture<Boolean> takeCard(int gameId, int playerId, CardSource source, GridPosition destination) {
+        return logged(gameId, game -> game.takeCard(playerId, source, destination),
+                (log, accepted) -> recordIf(accepted, () -> log.takeCard(gameId, playerId, source, destination)));
+    }
+
+    public CompletableFuture<Boolean> discardLastCardFromDeck(int gameId, int playerId, Deck deck) {
+        return logged(gameId, game -> game.discardLastCardFromDeck(playerId, deck),
+                (log, accepted) -> recordIf(accepted, () -> log.discardLastCardFromDeck(gameId, playerId, deck)));
+    }
+
+    public CompletableFuture<Boolean> activateCard(
+            int gameId,
+            int playerId,
+            GridPosition card,
+            List<Pair<Resource, GridPosition>> inputs,
+            List<Pair<Resource, GridPosition>> outputs,
+            List<GridPosition> pollution,
+            Optional<Integer> otherPlayerId,
+            Optional<GridPosition> otherCard
+    ) {
+        return logged(gameId, game -> game.activateCard(playerId, card, inputs, outputs, pollution, otherPlayerId, otherCard),
+                (log, accepted) -> recordIf(accepted, () -> log.activateCard(gameId, playerId, card,
+                        inputs, outputs, pollution, otherPlayerId, otherCard)));
+    }
+
+    public CompletableFuture<Boolean> selectReward(int gameId, int playerId, Resource resource) {
+        return logged(gameId, game -> game.selectReward(playerId, resource),
+                (log, accepted) -> recordIf(accepted, () -> log.selectReward(gameId, playerId, resource)));
+    }
+
+    public CompletableFuture<Boolean> turnFinished(int gameId, int playerId) {
+        return logged(gameId, game -> game.turnFinished(playerId),
+                (log, accepted) -> recordIf(accepted, () -> log.turnFinished(gameId, playerId)));
+    }
+
+    public CompletableFuture<Boolean> selectActivationPattern(int gameId, int playerId, int card) {
+        return logged(gameId, game -> game.selectActivationPattern(playerId, card),
+                (log, accepted) -> recordIf(accepted, () -> log.selectActivationPattern(gameId, playerId, card)));
+    }
+
+    public CompletableFuture<Boolean> selectScoring(int gameId, int playerId, int card) {
+        return logged(gameId, game -> game.selectScoring(playerId, card),
+                (log, accepted) -> recordIf(accepted, () -> log.selectScoring(gameId, playerId, card)));
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,276 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Captures the mutable state of one game into a flat int[] and writes it back, so a
+// search can apply a move, evaluate and undo without cloning objects. Cards never
+// leave the game, they only move between piles and grids, so each card gets a fixed
+// index when the snapshot is created and the state refers to cards by that index.
+//
+// Layout: game fields, pending reward | per card: resources, used pollution | per player: 9 card
+// indexes, grid masks, selected patterns, scoring totals, grid activation pattern |
+// per pile: display cards, deck cards, discarded cards. Not thread safe; one instance
+// per game.
+public final class GameSnapshot {
+    private static final int HEADER = 7;
+    private static final int CARD_INTS = ResourceCounts.SIZE + 1;
+    private static final int NO_CARD = -1;
+    private static final int NOT_SCORED = Integer.MIN_VALUE;
+
+    private final Game game;
+    private final Card[] cards;
+    private final Map<Card, Integer> cardIds = new IdentityHashMap<>();
+    private final Card[] displayScratch;
+    private final Card[] deckScratch;
+    private final Card[] discardScratch;
+
+    public GameSnapshot(Game game) {
+        this.game = game;
+        List<Card> found = new ArrayList<>();
+        for (Player player : game.players) {
+            for (int cell = 0; cell < GridBits.CELLS; cell++) {
+                index(player.grid.cardAt(cell), found);
+            }
+        }
+        for (Deck deck : Deck.values()) {
+            Pile pile = game.getPile(deck);
+            for (Card card : pile.getDisplayCards()) {
+                index(card, found);
+            }
+            for (Iterator<Card> it = pile.deckCards(); it.hasNext(); ) {
+                index(it.next(), found);
+            }
+            for (Card card : pile.getDiscardedCards()) {
+                index(card, found);
+            }
+        }
+        cards = found.toArray(new Card[0]);
+        displayScratch = new Card[cards.length];
+        deckScratch = new Card[cards.length];
+        discardScratch = new Card[cards.length];
+    }
+
+    // uses the given card order; games with the same order and the same players share
+    // the layout, so a capture of one can be restored into the other
+    public GameSnapshot(Game game, List<Card> cards) {
+        this.game = game;
+        this.cards = cards.toArray(new Card[0]);
+        for (int i = 0; i < this.cards.length; i++) {
+            if (this.cards[i] == null || cardIds.put(this.cards[i], i) != null) {
+                throw new IllegalArgumentException("Cards must be distinct and non-null");
+            }
+        }
+        displayScratch = new Card[this.cards.length];
+        deckScratch = new Card[this.cards.length];
+        discardScratch = new Card[this.cards.length];
+    }
+
+    private void index(Card card, List<Card> found) {
+        if (card != null && !cardIds.containsKey(card)) {
+            cardIds.put(card, found.size());
+            found.add(card);
+        }
+    }
+
+    public Game game() {
+        return game;
+    }
+
+    public int cardCount() {
+        return cards.length;
+    }
+
+    // number of ints the current state takes
+    public int size() {
+        int size = HEADER + cards.length * CARD_INTS;
+        for (Player player : game.players) {
+            size += GridBits.CELLS + GridBits.STATE_INTS + 1 + player.scoringMethods.length
+                    + 1 + 2 * player.grid.activationPattern().size();
+        }
+        for (Deck deck : Deck.values()) {
+            Pile pile = game.getPile(deck);
+            size += 3 + pile.getDisplayCards().size() + pile.deckSize() + pile.discardedCount();
+        }
+        return size;
+    }
+
+    public int[] capture() {
+        return capture(null);
+    }
+
+    // writes the state into `buffer` when it is large enough, otherwise into a new array
+    public int[] capture(int[] buffer) {
+        int size = size();
+        int[] data = buffer != null && buffer.length >= size ? buffer : new int[size];
+
+        data[0] = game.state.ordinal();
+        data[1] = game.onTurn;
+        data[2] = game.startingPlayer;
+        data[3] = game.turnNumber;
+        SelectReward reward = game.getSelectReward();
+        data[4] = reward == null ? NO_CARD : reward.playerId();
+        data[5] = reward == null ? NO_CARD : idOf(reward.card());
+        data[6] = reward == null ? 0 : reward.options();
+        int at = HEADER;
+
+        for (Card card : cards) {
+            at = card.write(data, at);
+        }
+
+        for (Player player : game.players) {
+            Grid grid = player.grid;
+            for (int cell = 0; cell < GridBits.CELLS; cell++) {
+                data[at++] = idOf(grid.cardAt(cell));
+            }
+            at = grid.bits().write(data, at);
+
+            int selected = 0;
+            for (int i = 0; i < player.activationPatterns.length; i++) {
+                ActivationPattern pattern = player.activationPatterns[i];
+                if (pattern != null && pattern.isSelected()) {
+                    selected |= 1 << i;
+                }
+            }
+            data[at++] = selected;
+
+            for (ScoringMethod method : player.scoringMethods) {
+                data[at++] = method == null || method.calculatedTotal.isEmpty()
+                        ? NOT_SCORED : method.calculatedTotal.get().value();
+            }
+
+            List<GridPosition> pattern = grid.activationPattern();
+            data[at++] = pattern.size();
+            for (GridPosition position : pattern) {
+                data[at++] = position == null ? NO_CARD : position.x;
+                data[at++] = position == null ? NO_CARD : position.y;
+            }
+        }
+
+        for (Deck deck : Deck.values()) {
+            Pile pile = game.getPile(deck);
+            List<Card> display = pile.getDisplayCards();
+            data[at++] = display.size();
+            for (int i = 0; i < display.size(); i++) {
+                data[at++] = idOf(display.get(i));
+            }
+            data[at++] = pile.deckSize();
+            for (Iterator<Card> it = pile.deckCards(); it.hasNext(); ) {
+                data[at++] = idOf(it.next());
+            }
+            List<Card> discarded = pile.getDiscardedCards();
+            data[at++] = discarded.size();
+            for (int i = 0; i < discarded.size(); i++) {
+                data[at++] = idOf(discarded.get(i));
+            }
+        }
+        return data;
+    }
+
+    public void restore(int[] data) {
+        game.state = GameState.values()[data[0]];
+        game.onTurn = data[1];
+        game.startingPlayer = data[2];
+        game.turnNumber = data[3];
+        SelectReward reward = game.getSelectReward();
+        if (reward != null) {
+            reward.restore(data[4], cardOf(data[5]), data[6]);
+        }
+        int at = HEADER;
+
+        for (Card card : cards) {
+            at = card.read(data, at);
+        }
+
+        for (Player player : game.players) {
+            Grid grid = player.grid;
+            for (int cell = 0; cell < GridBits.CELLS; cell++) {
+                grid.restoreCard(cell, cardOf(data[at++]));
+            }
+            at = grid.bits().read(data, at);
+
+            int selected = data[at++];
+            for (int i = 0; i < player.activationPatterns.length; i++) {
+                ActivationPattern pattern = player.activationPatterns[i];
+                if (pattern != null) {
+                    pattern.restoreSelected((selected & (1 << i)) != 0);
+                }
+            }
+
+            for (ScoringMethod method : player.scoringMethods) {
+                int total = data[at++];
+                if (method != null) {
+                    restoreTotal(method, total);
+                }
+            }
+
+            int length = data[at++];
+            if (!samePattern(grid.activationPattern(), data, at, length)) {
+                List<GridPosition> pattern = new ArrayList<>(length);
+                for (int i = 0; i < length; i++) {
+                    int x = data[at + 2 * i];
+                    pattern.add(x == NO_CARD ? null : new GridPosition(x, data[at + 2 * i + 1]));
+                }
+                grid.restoreActivationPattern(pattern);
+            }
+            at += 2 * length;
+        }
+
+        for (Deck deck : Deck.values()) {
+            int displayCount = data[at++];
+            for (int i = 0; i < displayCount; i++) {
+                displayScratch[i] = cardOf(data[at++]);
+            }
+            int deckCount = data[at++];
+            for (int i = 0; i < deckCount; i++) {
+                deckScratch[i] = cardOf(data[at++]);
+            }
+            int discardCount = data[at++];
+            for (int i = 0; i < discardCount; i++) {
+                discardScratch[i] = cardOf(data[at++]);
+            }
+            game.getPile(deck).restore(displayScratch, displayCount, deckScratch, deckCount,
+                    discardScratch, discardCount);
+        }
+
+        game.getChangeTracker().requestResync();
+    }
+
+    private static void restoreTotal(ScoringMethod method, int total) {
+        if (total == NOT_SCORED) {
+            method.calculatedTotal = Optional.empty();
+        } else if (method.calculatedTotal.isEmpty() || method.calculatedTotal.get().value() != total) {
+            method.calculatedTotal = Optional.of(new Points(total));
+        }
+    }
+
+    private static boolean samePattern(List<GridPosition> pattern, int[] data, int at, int length) {
+        if (pattern.size() != length) return false;
+        for (int i = 0; i < length; i++) {
+            GridPosition position = pattern.get(i);
+            if (position == null) {
+                if (data[at + 2 * i] != NO_CARD) return false;
+                continue;
+            }
+            if (position.x != data[at + 2 * i] || position.y != data[at + 2 * i + 1]) return false;
+        }
+        return true;
+    }
+
+    private int idOf(Card card) {
+        if (card == null) return NO_CARD;
+        Integer id = cardIds.get(card);
+        if (id == null) {
+            throw new IllegalStateException("Card is not part of the snapshot");
+        }
+        return id;
+    }
+
+    private Card cardOf(int id) {
+        return id == NO_CARD ? null : cards[id];
+    }
+}
@@ -1,15 +1,29 @@
 package sk.uniba.fmph.dcs.terra_futura;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
 import java.util.*;
+import java.util.AbstractMap.SimpleEntry;
+
+public class Grid implements InterfaceActivateGrid {
+    // "(x,y)" keys of the state document, by cell
+    static final String[] CELL_NAMES = new String[GridBits.CELLS];
 
-public class Grid {
+    static {
+        for (int cell = 0; cell < GridBits.CELLS; cell++) {
+            CELL_NAMES[cell] = new GridPosition(cell / GridBits.SIZE, cell % GridBits.SIZE).toString();
+        }
+    }
 
     private final Card[][] grid;
+    private final GridBits bits = new GridBits();
     private List<GridPosition> activationPattern;
 
+    // state() is kept until the grid changes or one of its cards does
+    private int modCount = 0;
+    private String cachedState;
+    private int cachedAt;
+    private int cachedCount;
+    private final int[] cachedCards = new int[GridBits.CELLS];
+
     public Grid() {
         activationPattern = new ArrayList<>();
         grid = new Card[3][3];
@@ -21,21 +35,29 @@ public class Grid {
     }
 
     public boolean canPutCard(GridPosition coordinate) {
-        if (!isPossibleIndex(coordinate)) return false;
-
-        if (grid[coordinate.x][coordinate.y] != null) return false;
-
-        if (getCurrentRow(coordinate.y).size() >= 3) return false;
-        if (getCurrentColumn(coordinate.x).size() >= 3) return false;
-
-        return true;
+        return bits.canPlace(coordinate.x, coordinate.y);
     }
 
     public void putCard(GridPosition coordinate, Card card) {
         if (!isPossibleIndex(coordinate)) {
             throw new IllegalArgumentException("Out of bounds");
         }
+        int cell = GridBits.cell(coordinate);
         grid[coordinate.x][coordinate.y] = card;
+        modCount++;
+        if (card == null) {
+            bits.vacate(cell);
+            return;
+        }
+        // the placed card and every card in its row and column may be activated once this turn
+        bits.occupy(cell);
+        bits.clearBudgets();
+        bits.clearActivated();
+        bits.grantOnce(GridBits.crossMask(cell));
+    }
+
+    public GridBits bits() {
+        return bits;
     }
 
     public List<Card> getCurrentRow(int y) {
@@ -55,63 +77,154 @@ public class Grid {
     }
 
     private boolean isPossibleIndex(GridPosition pos) {
-        return pos.x >= 0 && pos.x < 3 && pos.y >= 0 && pos.y < 3;
+        return GridBits.isValid(pos);
     }
 
     public void setActivationPattern(List<GridPosition> pattern) {
         this.activationPattern = (pattern == null) ?
                 Collections.emptyList() : new ArrayList<>(pattern);
+        modCount++;
+        int mask = 0;
+        for (GridPosition gp : this.activationPattern) {
+            if (GridBits.isValid(gp)) {
+                mask |= GridBits.bit(gp.x, gp.y);
+            }
+        }
+        bits.setPattern(mask);
+
+        // final activations: a cell listed k times in the pattern may be activated k times
+        bits.clearBudgets();
+        bits.clearActivated();
+        for (GridPosition gp : this.activationPattern) {
+            if (GridBits.isValid(gp)) {
+                int cell = GridBits.cell(gp);
+                bits.setBudget(cell, bits.budget(cell) + 1);
+            }
+        }
+    }
+
+    @Override
+    public void setActivationPattern(Collection<SimpleEntry<Integer, Integer>> pattern) {
+        List<GridPosition> positions = new ArrayList<>();
+        if (pattern != null) {
+            for (SimpleEntry<Integer, Integer> entry : pattern) {
+                positions.add(new GridPosition(entry.getKey(), entry.getValue()));
+            }
+        }
+        setActivationPattern(positions);
     }
 
     public boolean canBeActivated(GridPosition coordinate) {
-        throw new UnsupportedOperationException("Not implemented");
+        if (!isPossibleIndex(coordinate)) return false;
+        return bits.canActivate(GridBits.cell(coordinate));
     }
 
     public void setActivated(GridPosition coordinate) {
-        throw new UnsupportedOperationException("Not implemented");
+        if (!canBeActivated(coordinate)) {
+            throw new IllegalStateException("Card cannot be activated");
+        }
+        bits.consume(GridBits.cell(coordinate));
     }
 
     public void endTurn() {
-        throw new UnsupportedOperationException("Not implemented");
+        bits.clearBudgets();
+        bits.clearActivated();
     }
 
-    public String state() {
-        JSONObject cardsObject = new JSONObject();
-
-        for (int x = 0; x < 3; x++) {
-            for (int y = 0; y < 3; y++) {
-                GridPosition coordinate = new GridPosition(x, y);
-                Card card = grid[x][y];
-
-                cardsObject.put(
-                        coordinate.toString(),
-                        card == null ? JSONObject.NULL : card.state()
-                );
-            }
+    private String validCache() {
+        if (cachedState == null || cachedAt != modCount || cachedCount != cardsCount()) {
+            return null;
+        }
+        for (int cell = 0; cell < GridBits.CELLS; cell++) {
+            Card card = cardAt(cell);
+            if (card != null && card.modCount() != cachedCards[cell]) return null;
         }
+        return cachedState;
+    }
 
-        JSONArray patternArray = new JSONArray();
-        for (GridPosition gp : activationPattern) {
-            patternArray.put(gp == null ? JSONObject.NULL : gp.toString());
+    public void writeState(JsonWriter out) {
+        String cached = validCache();
+        if (cached != null) {
+            StateCache.hit(StateCache.Kind.GRID);
+            out.rawValue(cached);
+            return;
+        }
+        StateCache.miss(StateCache.Kind.GRID);
+        cachedState = out.cachedValue(null, this::render);
+        cachedAt = modCount;
+        cachedCount = cardsCount();
+        for (int cell = 0; cell < GridBits.CELLS; cell++) {
+            Card card = cardAt(cell);
+            cachedCards[cell] = card == null ? 0 : card.modCount();
         }
+    }
 
-        JSONObject result = new JSONObject();
-        result.put("cards", cardsObject);
-        result.put("card_count", cardsCount());
-        result.put("activation_pattern", patternArray);
+    private void render(JsonWriter out) {
+        out.beginObject().name("cards").beginObject();
+        for (int cell = 0; cell < GridBits.CELLS; cell++) {
+            out.name(CELL_NAMES[cell]);
+            Card card = cardAt(cell);
+            if (card == null) {
+                out.nullValue();
+            } else {
+                card.writeState(out);
+            }
+        }
+        out.endObject().name("card_count").value(cardsCount());
+
+        out.name("activation_pattern").beginArray();
+        for (int i = 0; i < activationPattern.size(); i++) {
+            GridPosition gp = activationPattern.get(i);
+            if (gp == null) {
+                out.nullValue();
+            } else {
+                out.value(GridBits.isValid(gp) ? CELL_NAMES[GridBits.cell(gp)] : gp.toString());
+            }
+        }
+        out.endArray().endObject();
+    }
 
-        return result.toString();
+    public String state() {
+        String cached = validCache();
+        if (cached != null) {
+            StateCache.hit(StateCache.Kind.GRID);
+            return cached;
+        }
+        JsonWriter.render(this::writeState);
+        return cachedState;
     }
 
-    private int cardsCount() {
-        int count = 0;
+    Card cardAt(int cell) {
+        return grid[cell / GridBits.SIZE][cell % GridBits.SIZE];
+    }
 
-        for (int x = 0; x < 3; x++) {
-            for (int y = 0; y < 3; y++) {
-                if (grid[x][y] != null) count++;
+    // where the card lies in this grid, or null when it is not placed here
+    GridPosition positionOf(Card card) {
+        for (int cell = 0; cell < GridBits.CELLS; cell++) {
+            if (card != null && cardAt(cell) == card) {
+                return new GridPosition(cell / GridBits.SIZE, cell % GridBits.SIZE);
             }
         }
-        return count;
+        return null;
+    }
+
+    // puts a card back without touching the bit masks; used when restoring a snapshot
+    void restoreCard(int cell, Card card) {
+        grid[cell / GridBits.SIZE][cell % GridBits.SIZE] = card;
+        modCount++;
+    }
+
+    List<GridPosition> activationPattern() {
+        return activationPattern;
+    }
+
+    void restoreActivationPattern(List<GridPosition> pattern) {
+        activationPattern = pattern;
+        modCount++;
+    }
+
+    int cardsCount() {
+        return bits.cardCount();
     }
 }
 
@@ -0,0 +1,189 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+// Bitboard view of a 3x3 grid. Cell (x, y) is bit x * 3 + y, so every set of cells
+// (occupied, activated, activation pattern) fits into the low 9 bits of an int and
+// placement / counting questions are a mask and a bitCount, without allocation.
+public final class GridBits {
+    public static final int SIZE = 3;
+    public static final int CELLS = SIZE * SIZE;
+    public static final int ALL = (1 << CELLS) - 1;
+    public static final int MAX_BUDGET = 15;  // activations per cell fit into 4 bits
+
+    private static final int BUDGET_BITS = 4;
+    private static final long BUDGET_MASK = (1L << BUDGET_BITS) - 1;
+
+    private static final int[] ROW_MASKS = new int[SIZE];      // cells with the given y
+    private static final int[] COLUMN_MASKS = new int[SIZE];   // cells with the given x
+
+    static {
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                ROW_MASKS[y] |= bit(x, y);
+                COLUMN_MASKS[x] |= bit(x, y);
+            }
+        }
+    }
+
+    private int occupied = 0;
+    private int activated = 0;
+    private int pattern = 0;
+    private long budgets = 0;   // remaining activations, 4 bits per cell
+    private int budgeted = 0;   // cells whose budget is non-zero
+
+    public static boolean isValid(int x, int y) {
+        return x >= 0 && x < SIZE && y >= 0 && y < SIZE;
+    }
+
+    public static boolean isValid(GridPosition position) {
+        return position != null && isValid(position.x, position.y);
+    }
+
+    public static int cell(int x, int y) {
+        return x * SIZE + y;
+    }
+
+    public static int cell(GridPosition position) {
+        return cell(position.x, position.y);
+    }
+
+    public static int bit(int x, int y) {
+        return 1 << cell(x, y);
+    }
+
+    public static int rowMask(int y) {
+        return ROW_MASKS[y];
+    }
+
+    public static int columnMask(int x) {
+        return COLUMN_MASKS[x];
+    }
+
+    // the row and the column passing through the cell, the cell included
+    public static int crossMask(int cell) {
+        return ROW_MASKS[cell % SIZE] | COLUMN_MASKS[cell / SIZE];
+    }
+
+    public int occupied() {
+        return occupied;
+    }
+
+    public int activated() {
+        return activated;
+    }
+
+    public int pattern() {
+        return pattern;
+    }
+
+    public boolean isOccupied(int cell) {
+        return (occupied & (1 << cell)) != 0;
+    }
+
+    public void occupy(int cell) {
+        occupied |= 1 << cell;
+    }
+
+    public void vacate(int cell) {
+        occupied &= ~(1 << cell);
+        activated &= ~(1 << cell);
+        setBudget(cell, 0);
+    }
+
+    public int cardCount() {
+        return Integer.bitCount(occupied);
+    }
+
+    public int rowCount(int y) {
+        return Integer.bitCount(occupied & ROW_MASKS[y]);
+    }
+
+    public int columnCount(int x) {
+        return Integer.bitCount(occupied & COLUMN_MASKS[x]);
+    }
+
+    public boolean canPlace(int x, int y) {
+        if (!isValid(x, y)) return false;
+        int cell = cell(x, y);
+        return !isOccupied(cell) && rowCount(y) < SIZE && columnCount(x) < SIZE;
+    }
+
+    public boolean isActivated(int cell) {
+        return (activated & (1 << cell)) != 0;
+    }
+
+    public void setActivated(int cell) {
+        activated |= 1 << cell;
+    }
+
+    public void clearActivated() {
+        activated = 0;
+    }
+
+    public void setPattern(int mask) {
+        pattern = mask & ALL;
+    }
+
+    public int budget(int cell) {
+        return (int) ((budgets >>> (cell * BUDGET_BITS)) & BUDGET_MASK);
+    }
+
+    public void setBudget(int cell, int count) {
+        int clamped = Math.max(0, Math.min(count, MAX_BUDGET));
+        int shift = cell * BUDGET_BITS;
+        budgets = (budgets & ~(BUDGET_MASK << shift)) | ((long) clamped << shift);
+        if (clamped == 0) {
+            budgeted &= ~(1 << cell);
+        } else {
+            budgeted |= 1 << cell;
+        }
+    }
+
+    // every cell in the mask may be activated once more
+    public void grantOnce(int mask) {
+        for (int rest = mask & ALL; rest != 0; rest &= rest - 1) {
+            int cell = Integer.numberOfTrailingZeros(rest);
+            setBudget(cell, budget(cell) + 1);
+        }
+    }
+
+    // uses up one activation of the cell and marks it activated
+    public void consume(int cell) {
+        setBudget(cell, budget(cell) - 1);
+        activated |= 1 << cell;
+    }
+
+    public void clearBudgets() {
+        budgets = 0;
+        budgeted = 0;
+    }
+
+    static final int STATE_INTS = 6;
+
+    int write(int[] to, int at) {
+        to[at] = occupied;
+        to[at + 1] = activated;
+        to[at + 2] = pattern;
+        to[at + 3] = (int) budgets;
+        to[at + 4] = (int) (budgets >>> 32);
+        to[at + 5] = budgeted;
+        return at + STATE_INTS;
+    }
+
+    int read(int[] from, int at) {
+        occupied = from[at];
+        activated = from[at + 1];
+        pattern = from[at + 2];
+        budgets = (from[at + 3] & 0xFFFFFFFFL) | ((long) from[at + 4] << 32);
+        budgeted = from[at + 5];
+        return at + STATE_INTS;
+    }
+
+    // placed cards that still have an activation left
+    public int activatable() {
+        return occupied & budgeted;
+    }
+
+    public boolean canActivate(int cell) {
+        return (activatable() & (1 << cell)) != 0;
+    }
+}
@@ -8,5 +8,10 @@ public class GridPosition {
         this.x = x;
         this.y = y;
     }
+
+    @Override
+    public String toString() {
+        return "(" + x + "," + y + ")";
+    }
 }
 
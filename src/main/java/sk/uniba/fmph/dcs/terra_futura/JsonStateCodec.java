@@ -0,0 +1,55 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+// The same documents as the state() methods, streamed through the components'
+// writeState into the caller's buffer. The game is written in the layout of a
+// StateChangeTracker snapshot.
+public final class JsonStateCodec implements StateCodec {
+    private JsonWriter json;
+
+    private JsonWriter writer(StateBuffer out) {
+        if (json == null || json.buffer() != out) {
+            json = new JsonWriter(out);
+        }
+        return json.reset();
+    }
+
+    @Override
+    public void writeCard(Card card, StateBuffer out) {
+        JsonWriter w = writer(out);
+        if (card == null) {
+            w.nullValue();
+        } else {
+            card.writeState(w);
+        }
+    }
+
+    @Override
+    public void writeGrid(Grid grid, StateBuffer out) {
+        grid.writeState(writer(out));
+    }
+
+    @Override
+    public void writePile(Pile pile, StateBuffer out) {
+        pile.writeState(writer(out));
+    }
+
+    @Override
+    public void writePattern(ActivationPattern pattern, StateBuffer out) {
+        pattern.writeState(writer(out));
+    }
+
+    @Override
+    public void writeScoring(ScoringMethod method, StateBuffer out) {
+        JsonWriter w = writer(out);
+        if (method == null) {
+            w.nullValue();
+        } else {
+            method.writeState(w);
+        }
+    }
+
+    @Override
+    public void writeGame(Game game, StateBuffer out) {
+        StateChangeTracker.writeTable(writer(out), game);
+    }
+}
@@ -0,0 +1,200 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+// Writes JSON straight into a StateBuffer, so nested state is emitted in one pass
+// without building JSONObject trees or parsing nested strings back. Commas are tracked
+// per nesting level; the caller is responsible for pairing begin/end calls.
+public final class JsonWriter {
+    private static final int MAX_DEPTH = 64;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // one scratch writer per thread for render(); a nested render gets its own
+    private static final ThreadLocal<JsonWriter> SCRATCH =
+            ThreadLocal.withInitial(() -> new JsonWriter(new StateBuffer(512)));
+
+    private final StateBuffer out;
+    private final boolean[] hasItems = new boolean[MAX_DEPTH];
+    private int depth = 0;
+    private boolean afterName = false;
+    private boolean rendering = false;
+
+    public JsonWriter(StateBuffer out) {
+        this.out = out;
+    }
+
+    // runs `body` against an empty writer and returns what it wrote
+    public static String render(Consumer<JsonWriter> body) {
+        JsonWriter writer = SCRATCH.get();
+        if (writer.rendering) {
+            writer = new JsonWriter(new StateBuffer(256));
+        }
+        writer.rendering = true;
+        try {
+            writer.out.clear();
+            body.accept(writer.reset());
+            return writer.out.toString();
+        } finally {
+            writer.rendering = false;
+        }
+    }
+
+    public StateBuffer buffer() {
+        return out;
+    }
+
+    // forgets any unfinished nesting, e.g. after a write failed half way
+    public JsonWriter reset() {
+        depth = 0;
+        afterName = false;
+        return this;
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasItems[depth - 1]) out.put(',');
+            hasItems[depth - 1] = true;
+        }
+    }
+
+    private JsonWriter open(char bracket) {
+        beforeValue();
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nested too deeply");
+        }
+        out.put(bracket);
+        hasItems[depth++] = false;
+        return this;
+    }
+
+    private JsonWriter close(char bracket) {
+        if (depth == 0) {
+            throw new IllegalStateException("Nothing to close");
+        }
+        depth--;
+        out.put(bracket);
+        return this;
+    }
+
+    public JsonWriter beginObject() {
+        return open('{');
+    }
+
+    public JsonWriter endObject() {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() {
+        return open('[');
+    }
+
+    public JsonWriter endArray() {
+        return close(']');
+    }
+
+    public JsonWriter name(String name) {
+        beforeValue();
+        string(name);
+        out.put(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        if (value == null) return nullValue();
+        beforeValue();
+        string(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        beforeValue();
+        if (value == Long.MIN_VALUE) {
+            out.putText("-9223372036854775808");
+            return this;
+        }
+        if (value < 0) {
+            out.put('-');
+            value = -value;
+        }
+        digits(value);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        beforeValue();
+        out.putText(value ? "true" : "false");
+        return this;
+    }
+
+    // a value that is already JSON text, e.g. from a component that only has state()
+    public JsonWriter rawValue(String json) {
+        beforeValue();
+        out.putText(json);
+        return this;
+    }
+
+    // writes `cached` when there is one, otherwise writes the value with `body` and
+    // returns its text so the caller can keep it for next time
+    public String cachedValue(String cached, Consumer<JsonWriter> body) {
+        if (cached != null) {
+            rawValue(cached);
+            return cached;
+        }
+        beforeValue();
+        afterName = true;  // the separator is written, the value must not add another
+        int start = out.size();
+        body.accept(this);
+        return out.toString(start, out.size());
+    }
+
+    public JsonWriter nullValue() {
+        beforeValue();
+        out.putText("null");
+        return this;
+    }
+
+    // resource names as an array, in list order
+    static void writeResources(JsonWriter out, List<Resource> resources) {
+        out.beginArray();
+        for (int i = 0; i < resources.size(); i++) {
+            out.value(resources.get(i).name());
+        }
+        out.endArray();
+    }
+
+    private void digits(long value) {
+        if (value >= 10) {
+            digits(value / 10);
+        }
+        out.put('0' + (int) (value % 10));
+    }
+
+    private void string(String value) {
+        out.put('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+            out.putText(value.subSequence(start, i));
+            out.put('\\');
+            switch (c) {
+                case '"': out.put('"'); break;
+                case '\\': out.put('\\'); break;
+                case '\n': out.put('n'); break;
+                case '\r': out.put('r'); break;
+                case '\t': out.put('t'); break;
+                default:
+                    out.put('u').put('0').put('0').put(HEX[c >> 4]).put(HEX[c & 0xF]);
+            }
+            start = i + 1;
+        }
+        out.putText(start == 0 ? value : value.subSequence(start, value.length()));
+        out.put('"');
+    }
+}
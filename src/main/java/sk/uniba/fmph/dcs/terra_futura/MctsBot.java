@@ -0,0 +1,439 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
+
+// Monte Carlo tree search player. Every worker searches its own copy of the position
+// (a replica of a SimulatedGame, or the game itself when there is one worker), keeps a
+// private tree below the root and shares the root statistics with the other workers
+// through atomic counters, so the choice of the first move sees all playouts without
+// locking. Rewards are 1 for a win, split between tied winners. The search plays every
+// move the MoveGenerator offers, activations included; a move the game rejects is
+// dropped from its node, and an exception from the game ends the search.
+public class MctsBot implements BotPolicy, AutoCloseable {
+    public static final double EXPLORATION = 1.4;
+    static final int MAX_PLAYOUT_MOVES = 1000;
+    private static final long MICROS = 1_000_000L;
+
+    private final int threads;
+    private final long budgetNanos;
+    private final int maxPlayouts;
+    private final ForkJoinPool pool;
+
+    private final LongAdder playouts = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+
+    // searches until the time budget or `maxPlayouts` per move is used up, whichever comes first
+    public MctsBot(int threads, Duration moveBudget, int maxPlayouts) {
+        if (threads < 1 || maxPlayouts < 1) {
+            throw new IllegalArgumentException("At least one thread and one playout are needed");
+        }
+        this.threads = threads;
+        this.budgetNanos = moveBudget.toNanos();
+        this.maxPlayouts = maxPlayouts;
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    }
+
+    public MctsBot(Duration moveBudget) {
+        this(Runtime.getRuntime().availableProcessors(), moveBudget, Integer.MAX_VALUE);
+    }
+
+    public long playouts() {
+        return playouts.sum();
+    }
+
+    public double playoutsPerSecond() {
+        long nanos = searchNanos.sum();
+        return nanos == 0 ? 0.0 : playouts.sum() * 1e9 / nanos;
+    }
+
+    // searches on the game itself and puts it back afterwards; observers and the journal
+    // are switched off meanwhile, so they only see the chosen move
+    @Override
+    public void move(Game game, int playerId, RandomGenerator random) {
+        search(game, null, playerId, random);
+    }
+
+    @Override
+    public void move(SimulatedGame game, int playerId, RandomGenerator random) {
+        search(game.game, game, playerId, random);
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    // legal moves of whoever acts next, in generator order
+    static int legalMoves(Game game, MoveGenerator generator, MoveBuffer moves) {
+        if (game.state == GameState.Finish) {
+            moves.clear();
+            return 0;
+        }
+        return generator.generate(game, game.players[actingSeat(game)].id, moves);
+    }
+
+    // the seat on turn, or the assisting player's seat while a reward is chosen
+    static int actingSeat(Game game) {
+        if (game.state != GameState.SelectReward) {
+            return game.onTurn;
+        }
+        int playerId = game.getSelectReward().playerId();
+        for (int seat = 0; seat < game.players.length; seat++) {
+            if (game.players[seat].id == playerId) return seat;
+        }
+        return game.onTurn;
+    }
+
+    static int score(Player player) {
+        int score = 0;
+        for (ScoringMethod method : player.scoringMethods) {
+            if (method != null && method.calculatedTotal.isPresent()) {
+                score += method.calculatedTotal.get().value();
+            }
+        }
+        return score;
+    }
+
+    private void search(Game game, SimulatedGame simulated, int playerId, RandomGenerator random) {
+        if (game.players[actingSeat(game)].id != playerId) {
+            throw new IllegalStateException("Wrong player");
+        }
+        long start = System.nanoTime();
+        MoveGenerator generator = new MoveGenerator();
+        MoveBuffer rootMoves = new MoveBuffer();
+        if (legalMoves(game, generator, rootMoves) == 0) {
+            throw new IllegalStateException("No move to search");
+        }
+
+        Root root = new Root(actingSeat(game), rootMoves.size(), start + budgetNanos, maxPlayouts);
+        if (rootMoves.size() > 1) {
+            if (pool == null || simulated == null || !simulated.canReplicate()) {
+                searchInPlace(game, root, random);
+            } else {
+                searchReplicas(simulated, root, random);
+            }
+        }
+
+        playouts.add(root.playouts.sum());
+        searchNanos.add(System.nanoTime() - start);
+        for (int move = root.best(); !generator.apply(game, playerId, rootMoves, move); move = root.best()) {
+            root.reject(move);
+        }
+    }
+
+    private void searchInPlace(Game game, Root root, RandomGenerator random) {
+        UndoJournal journal = game.getJournal();
+        boolean publishing = game.isPublishing();
+        game.setJournal(null);
+        game.setPublishing(false);
+        GameSnapshot snapshot = new GameSnapshot(game);
+        int[] position = snapshot.capture();
+        try {
+            new Worker(game, snapshot, position, root, new SplittableRandom(random.nextLong())).call();
+        } finally {
+            snapshot.restore(position);
+            game.setJournal(journal);
+            game.setPublishing(publishing);
+        }
+    }
+
+    private void searchReplicas(SimulatedGame simulated, Root root, RandomGenerator random) {
+        int[] position = simulated.snapshot().capture();
+        List<Callable<Void>> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            SimulatedGame replica = simulated.replicate();
+            workers.add(new Worker(replica.game, replica.snapshot(), position, root,
+                    new SplittableRandom(random.nextLong())));
+        }
+        for (Future<Void> result : pool.invokeAll(workers)) {
+            try {
+                result.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Search interrupted", ex);
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Search failed", ex.getCause());
+            }
+        }
+    }
+
+    // statistics of the first move, shared by all workers
+    private static final class Root {
+        final int seat;
+        final AtomicLongArray visits;
+        final AtomicLongArray rewards;   // in millionths
+        final AtomicIntegerArray rejected;
+        final AtomicLong claimed = new AtomicLong();
+        final LongAdder playouts = new LongAdder();
+        final long deadline;
+        final int maxPlayouts;
+
+        Root(int seat, int moves, long deadline, int maxPlayouts) {
+            this.seat = seat;
+            this.visits = new AtomicLongArray(moves);
+            this.rewards = new AtomicLongArray(moves);
+            this.rejected = new AtomicIntegerArray(moves);
+            this.deadline = deadline;
+            this.maxPlayouts = maxPlayouts;
+        }
+
+        boolean claim() {
+            return claimed.getAndIncrement() < maxPlayouts && System.nanoTime() < deadline;
+        }
+
+        void record(int move, double reward) {
+            rewards.addAndGet(move, (long) (reward * MICROS));
+            visits.incrementAndGet(move);
+            playouts.increment();
+        }
+
+        // the game refused the move; it is never selected again
+        void reject(int move) {
+            rejected.set(move, 1);
+        }
+
+        // -1 once every move has been rejected
+        int select(RandomGenerator random) {
+            int moves = visits.length();
+            long total = 0;
+            int first = random.nextInt(moves);
+            for (int i = 0; i < moves; i++) {
+                int move = (first + i) % moves;
+                if (rejected.get(move) != 0) continue;
+                long n = visits.get(move);
+                if (n == 0) return move;
+                total += n;
+            }
+            int best = -1;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            double log = Math.log(total);
+            for (int move = 0; move < moves; move++) {
+                if (rejected.get(move) != 0) continue;
+                long n = visits.get(move);
+                double value = rewards.get(move) / (double) MICROS / n + EXPLORATION * Math.sqrt(log / n);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = move;
+                }
+            }
+            return best;
+        }
+
+        // the most visited move that was not rejected
+        int best() {
+            int best = -1;
+            for (int move = 0; move < visits.length(); move++) {
+                if (rejected.get(move) == 0 && (best < 0 || visits.get(move) > visits.get(best))) best = move;
+            }
+            if (best < 0) {
+                throw new IllegalStateException("Every move was rejected");
+            }
+            return best;
+        }
+    }
+
+    private static final class Node {
+        final int chooser;   // seat that moved into this node
+        final int seat;      // seat to move here, -1 when the game is over
+        final MoveBuffer moves = new MoveBuffer(16);
+        final Node[] children;
+        int count;           // moves not rejected: expanded ones first, then the rest
+        int expanded = 0;
+        int visits = 0;
+        double reward = 0.0;
+
+        Node(int chooser, Game game, MoveGenerator generator) {
+            this.chooser = chooser;
+            int count = legalMoves(game, generator, moves);
+            this.seat = count == 0 ? -1 : actingSeat(game);
+            this.children = new Node[count];
+            this.count = count;
+        }
+    }
+
+    private static final class Worker implements Callable<Void> {
+        private final Game game;
+        private final GameSnapshot snapshot;
+        private final int[] position;
+        private final Root root;
+        private final RandomGenerator random;
+        private final MoveGenerator generator = new MoveGenerator();
+        private final MoveBuffer playoutMoves = new MoveBuffer();
+        private final Node[] rootChildren;
+        private final List<Node> path = new ArrayList<>();
+        private final double[] rewards;
+
+        Worker(Game game, GameSnapshot snapshot, int[] position, Root root, RandomGenerator random) {
+            this.game = game;
+            this.snapshot = snapshot;
+            this.position = position;
+            this.root = root;
+            this.random = random;
+            this.rootChildren = new Node[root.visits.length()];
+            this.rewards = new double[game.players.length];
+        }
+
+        @Override
+        public Void call() {
+            MoveBuffer rootMoves = new MoveBuffer();
+            while (root.claim()) {
+                snapshot.restore(position);
+                if (rootMoves.size() == 0) {
+                    legalMoves(game, generator, rootMoves);
+                }
+                int first = root.select(random);
+                if (first < 0) break;
+                if (!play(rootMoves, first)) {
+                    root.reject(first);
+                    continue;
+                }
+                if (rootChildren[first] == null) {
+                    rootChildren[first] = new Node(root.seat, game, generator);
+                }
+
+                path.clear();
+                Node node = rootChildren[first];
+                path.add(node);
+                if (!descend(node)) continue;
+                rollout();
+
+                for (Node visited : path) {
+                    visited.visits++;
+                    visited.reward += rewards[visited.chooser];
+                }
+                root.record(first, rewards[root.seat]);
+            }
+            return null;
+        }
+
+        // selection and expansion of one new node; false when the game rejected a move,
+        // which is then pruned from its node
+        private boolean descend(Node node) {
+            while (node.seat >= 0 && node.count > 0) {
+                int index;
+                if (node.expanded < node.count) {
+                    index = node.expanded + random.nextInt(node.count - node.expanded);
+                    swap(node, node.expanded, index);
+                    index = node.expanded;
+                    if (!play(node.moves, index)) {
+                        prune(node, index);
+                        return false;
+                    }
+                    node.expanded++;
+                    Node child = new Node(node.seat, game, generator);
+                    node.children[index] = child;
+                    path.add(child);
+                    return true;
+                }
+                index = select(node);
+                if (!play(node.moves, index)) {
+                    prune(node, index);
+                    return false;
+                }
+                node = node.children[index];
+                path.add(node);
+            }
+            return true;
+        }
+
+        // drops a move, keeping the expanded children in front of the unexpanded moves
+        private static void prune(Node node, int index) {
+            if (index < node.expanded) {
+                node.expanded--;
+                swap(node, index, node.expanded);
+                index = node.expanded;
+            }
+            node.count--;
+            swap(node, index, node.count);
+            node.children[node.count] = null;
+        }
+
+        private static void swap(Node node, int a, int b) {
+            if (a == b) return;
+            MoveBuffer moves = node.moves;
+            MoveType type = moves.type(a);
+            int first = moves.first(a);
+            int second = moves.second(a);
+            int third = moves.third(a);
+            moves.set(a, moves.type(b), moves.first(b), moves.second(b), moves.third(b));
+            moves.set(b, type, first, second, third);
+            Node child = node.children[a];
+            node.children[a] = node.children[b];
+            node.children[b] = child;
+        }
+
+        private static int select(Node node) {
+            int best = 0;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            double log = Math.log(node.visits + 1);
+            for (int i = 0; i < node.expanded; i++) {
+                Node child = node.children[i];
+                double value = child.visits == 0 ? Double.POSITIVE_INFINITY
+                        : child.reward / child.visits + EXPLORATION * Math.sqrt(log / child.visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        // random moves to the end of the game, then fills `rewards`
+        private void rollout() {
+            for (int moves = 0; game.state != GameState.Finish; moves++) {
+                if (moves == MAX_PLAYOUT_MOVES || !playRandom()) {
+                    Arrays.fill(rewards, 1.0 / rewards.length);
+                    return;
+                }
+            }
+
+            int best = Integer.MIN_VALUE;
+            int winners = 0;
+            for (Player player : game.players) {
+                int score = score(player);
+                if (score > best) {
+                    best = score;
+                    winners = 1;
+                } else if (score == best) {
+                    winners++;
+                }
+            }
+            for (int seat = 0; seat < rewards.length; seat++) {
+                rewards[seat] = score(game.players[seat]) == best ? 1.0 / winners : 0.0;
+            }
+        }
+
+        // plays a random legal move, trying the others when the game rejects one; false
+        // when none is left
+        private boolean playRandom() {
+            for (int left = legalMoves(game, generator, playoutMoves); left > 0; left--) {
+                int index = random.nextInt(left);
+                if (play(playoutMoves, index)) return true;
+                int last = left - 1;
+                playoutMoves.set(index, playoutMoves.type(last), playoutMoves.first(last),
+                        playoutMoves.second(last), playoutMoves.third(last));
+            }
+            return false;
+        }
+
+        // only a false result means the game refused the move; exceptions propagate
+        private boolean play(MoveBuffer moves, int index) {
+            return generator.apply(game, game.players[actingSeat(game)].id, moves, index);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.Arrays;
+
+// Growable list of moves kept in parallel primitive arrays, meant to be cleared and
+// refilled for every position instead of allocating move objects.
+public final class MoveBuffer {
+    private MoveType[] types;
+    private int[] first;
+    private int[] second;
+    private int[] third;
+    private int size = 0;
+
+    public MoveBuffer() {
+        this(64);
+    }
+
+    public MoveBuffer(int capacity) {
+        types = new MoveType[capacity];
+        first = new int[capacity];
+        second = new int[capacity];
+        third = new int[capacity];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(MoveType type, int a, int b, int c) {
+        if (size == types.length) {
+            int capacity = Math.max(8, size * 2);
+            types = Arrays.copyOf(types, capacity);
+            first = Arrays.copyOf(first, capacity);
+            second = Arrays.copyOf(second, capacity);
+            third = Arrays.copyOf(third, capacity);
+        }
+        types[size] = type;
+        first[size] = a;
+        second[size] = b;
+        third[size] = c;
+        size++;
+    }
+
+    public void set(int index, MoveType type, int a, int b, int c) {
+        checkIndex(index);
+        types[index] = type;
+        first[index] = a;
+        second[index] = b;
+        third[index] = c;
+    }
+
+    public MoveType type(int index) {
+        checkIndex(index);
+        return types[index];
+    }
+
+    public int first(int index) {
+        checkIndex(index);
+        return first[index];
+    }
+
+    public int second(int index) {
+        checkIndex(index);
+        return second[index];
+    }
+
+    public int third(int index) {
+        checkIndex(index);
+        return third[index];
+    }
+
+    public int count(MoveType type) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (types[i] == type) count++;
+        }
+        return count;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Move " + index + " of " + size);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package sk.uniba.fmph.dcs.terra_futura;
 
 import java.util.Optional;
-import org.json.JSONObject;
 
 public class MoveCard {
     private final Pile pile;
@@ -52,16 +51,15 @@ public class MoveCard {
         return true;
     }
 
-    public String state() {
-        JSONObject result = new JSONObject();
-
-        JSONObject pileState = new JSONObject(pile.state());
-        JSONObject gridState = new JSONObject(grid.state());
-
-        result.put("pile", pileState);
-        result.put("grid", gridState);
+    public void writeState(JsonWriter out) {
+        out.beginObject().name("pile");
+        pile.writeState(out);
+        out.name("grid");
+        grid.writeState(out);
+        out.endObject();
+    }
 
-        return result.toString();
+    public String state() {
+        return JsonWriter.render(this::writeState);
     }
 }
-
@@ -0,0 +1,196 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+// Lists the moves the player may make in the current position, without probing the
+// game and without exceptions. Activations use one canonical assignment per effect
+// option: inputs are taken from the lowest cells that hold them, outputs and pollution
+// go onto the activated card. Not thread safe; use one generator per thread.
+public class MoveGenerator {
+
+    private final int[] taken = new int[GridBits.CELLS * ResourceCounts.SIZE];  // scratch per cell x resource
+
+    public int generate(Game game, int playerId, MoveBuffer moves) {
+        moves.clear();
+        Player player = game.players[game.onTurn];
+        // the reward after an assisted activation is chosen by the assisting player
+        int acting = game.state == GameState.SelectReward ? game.getSelectReward().playerId() : player.id;
+        if (acting != playerId) {
+            return 0;
+        }
+
+        switch (game.state) {
+            case TakeCardNoCardDiscarded:
+                addDiscards(game, moves);
+                addTakes(game, player.grid, moves);
+                break;
+            case TakeCardCardDiscarded:
+                addTakes(game, player.grid, moves);
+                break;
+            case ActivateCard:
+                addActivations(player.grid, moves);
+                moves.add(MoveType.TurnFinished, 0, 0, 0);
+                break;
+            case SelectReward:
+                addRewards(game, moves);
+                break;
+            case SelectActivationPattern:
+                for (int i = 0; i < player.activationPatterns.length; i++) {
+                    ActivationPattern pattern = player.activationPatterns[i];
+                    if (pattern != null && !pattern.isSelected()) {
+                        moves.add(MoveType.SelectActivationPattern, i, 0, 0);
+                    }
+                }
+                break;
+            case SelectScoringMethod:
+                for (int i = 0; i < player.scoringMethods.length; i++) {
+                    if (player.scoringMethods[i] != null) {
+                        moves.add(MoveType.SelectScoring, i, 0, 0);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+        return moves.size();
+    }
+
+    private static void addDiscards(Game game, MoveBuffer moves) {
+        for (Deck deck : Deck.values()) {
+            if (!game.getPile(deck).getDisplayCards().isEmpty()) {
+                moves.add(MoveType.DiscardLastCard, deck.getIndex(), 0, 0);
+            }
+        }
+    }
+
+    private static void addTakes(Game game, Grid grid, MoveBuffer moves) {
+        GridBits bits = grid.bits();
+        for (Deck deck : Deck.values()) {
+            int visible = game.getPile(deck).getDisplayCards().size();
+            for (int index = 0; index < visible; index++) {
+                for (int cell = 0; cell < GridBits.CELLS; cell++) {
+                    if (bits.canPlace(cell / GridBits.SIZE, cell % GridBits.SIZE)) {
+                        moves.add(MoveType.TakeCard, deck.getIndex(), index, cell);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addActivations(Grid grid, MoveBuffer moves) {
+        int activatable = grid.bits().activatable();
+        for (int rest = activatable; rest != 0; rest &= rest - 1) {
+            int cell = Integer.numberOfTrailingZeros(rest);
+            Card card = grid.cardAt(cell);
+            addOptions(grid, card, card.getUpperEffect(), cell, 0, moves);
+            addOptions(grid, card, card.getLowerEffect(), cell, 1, moves);
+        }
+    }
+
+    private void addOptions(Grid grid, Card card, Effect effect, int cell, int side, MoveBuffer moves) {
+        if (effect == null) return;
+        List<EffectOption> options = effect.options();
+        for (int i = 0; i < options.size(); i++) {
+            EffectOption option = options.get(i);
+            if (card.canAddResources(option.output()) && card.canAddPollution(option.pollution())
+                    && assignInputs(grid, option, null)) {
+                moves.add(MoveType.ActivateCard, cell, side, i);
+            }
+        }
+    }
+
+    private static void addRewards(Game game, MoveBuffer moves) {
+        SelectReward reward = game.getSelectReward();
+        for (Resource resource : ResourceCounts.RESOURCES) {
+            if (reward.canSelectReward(resource)) {
+                moves.add(MoveType.SelectReward, resource.ordinal(), 0, 0);
+            }
+        }
+    }
+
+    // Picks source cells for the option's inputs; fills `inputs` when it is not null.
+    private boolean assignInputs(Grid grid, EffectOption option, List<Pair<Resource, GridPosition>> inputs) {
+        Arrays.fill(taken, 0);
+        int remainingAny = option.isExact() ? 0 : option.anyInputs();
+        for (Resource resource : ResourceCounts.RESOURCES) {
+            int needed = option.isExact() ? ResourceSignature.count(option.input(), resource) : 0;
+            for (int cell = 0; cell < GridBits.CELLS && (needed > 0 || remainingAny > 0); cell++) {
+                Card source = grid.cardAt(cell);
+                if (source == null) continue;
+                int slot = cell * ResourceCounts.SIZE + resource.ordinal();
+                while ((needed > 0 || remainingAny > 0)
+                        && source.getResourceCount(resource) > taken[slot]) {
+                    taken[slot]++;
+                    if (needed > 0) {
+                        needed--;
+                    } else {
+                        remainingAny--;
+                    }
+                    if (inputs != null) {
+                        inputs.add(Pair.of(resource, position(cell)));
+                    }
+                }
+            }
+            if (needed > 0) {
+                return false;
+            }
+        }
+        return remainingAny == 0;
+    }
+
+    // Executes move `index` on `target`, reading the position from `game`.
+    public boolean apply(Game game, TerraFuturaInterface target, int playerId, MoveBuffer moves, int index) {
+        int a = moves.first(index);
+        int b = moves.second(index);
+        int c = moves.third(index);
+        switch (moves.type(index)) {
+            case TakeCard:
+                CardSource source = new CardSource();
+                source.deck = Deck.values()[a];
+                source.index = b;
+                return target.takeCard(playerId, source, position(c));
+            case DiscardLastCard:
+                return target.discardLastCardFromDeck(playerId, Deck.values()[a]);
+            case ActivateCard:
+                Grid grid = game.players[game.onTurn].grid;
+                Card card = grid.cardAt(a);
+                Effect effect = b == 0 ? card.getUpperEffect() : card.getLowerEffect();
+                EffectOption option = effect.options().get(c);
+                List<Pair<Resource, GridPosition>> inputs = new ArrayList<>();
+                assignInputs(grid, option, inputs);
+                List<Pair<Resource, GridPosition>> outputs = new ArrayList<>();
+                for (Resource resource : ResourceSignature.toList(option.output())) {
+                    outputs.add(Pair.of(resource, position(a)));
+                }
+                List<GridPosition> pollution = new ArrayList<>();
+                for (int i = 0; i < option.pollution(); i++) {
+                    pollution.add(position(a));
+                }
+                return target.activateCard(playerId, position(a), inputs, outputs, pollution,
+                        Optional.empty(), Optional.empty());
+            case SelectReward:
+                return target.selectReward(playerId, ResourceCounts.RESOURCES[a]);
+            case TurnFinished:
+                return target.turnFinished(playerId);
+            case SelectActivationPattern:
+                return target.selectActivationPattern(playerId, a);
+            case SelectScoring:
+                return target.selectScoring(playerId, a);
+            default:
+                return false;
+        }
+    }
+
+    public boolean apply(Game game, int playerId, MoveBuffer moves, int index) {
+        return apply(game, game, playerId, moves, index);
+    }
+
+    // positions are only built for the move that is applied
+    private static GridPosition position(int cell) {
+        return new GridPosition(cell / GridBits.SIZE, cell % GridBits.SIZE);
+    }
+
+}
@@ -0,0 +1,11 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+public enum MoveType {
+    TakeCard,           // deck, display index, cell
+    DiscardLastCard,    // deck
+    ActivateCard,       // cell, effect side (0 upper, 1 lower), option index
+    SelectReward,       // resource ordinal
+    TurnFinished,
+    SelectActivationPattern,  // pattern index
+    SelectScoring       // scoring method index
+}
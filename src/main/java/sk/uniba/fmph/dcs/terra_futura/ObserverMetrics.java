@@ -0,0 +1,59 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+public final class ObserverMetrics {
+    private final int queueDepth;
+    private final long delivered;
+    private final long dropped;
+    private final long coalesced;
+    private final long failed;
+    private final long resyncs;
+    private final long averageLatencyNanos;
+    private final long maxLatencyNanos;
+
+    public ObserverMetrics(final int queueDepth, final long delivered, final long dropped, final long coalesced,
+                           final long failed, final long resyncs, final long averageLatencyNanos,
+                           final long maxLatencyNanos) {
+        this.queueDepth = queueDepth;
+        this.delivered = delivered;
+        this.dropped = dropped;
+        this.coalesced = coalesced;
+        this.failed = failed;
+        this.resyncs = resyncs;
+        this.averageLatencyNanos = averageLatencyNanos;
+        this.maxLatencyNanos = maxLatencyNanos;
+    }
+
+    public int queueDepth() {
+        return queueDepth;
+    }
+
+    public long delivered() {
+        return delivered;
+    }
+
+    public long dropped() {
+        return dropped;
+    }
+
+    public long coalesced() {
+        return coalesced;
+    }
+
+    public long failed() {
+        return failed;
+    }
+
+    // times a lost patch put the observer out of sync until the next snapshot
+    public long resyncs() {
+        return resyncs;
+    }
+
+    // enqueue to end of delivery
+    public long averageLatencyNanos() {
+        return averageLatencyNanos;
+    }
+
+    public long maxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+}
@@ -1,54 +1,337 @@
 package sk.uniba.fmph.dcs.terra_futura;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
 import java.util.*;
 
 public class Pile {
 
-    private final List<Card> display = new ArrayList<>();
-    private final Deque<Card> deck = new ArrayDeque<>();
+    // every card the pile was dealt, by id; the deck only stores ids into it
+    private final Card[] cards;
+    // deck order; deck[deckTop] is drawn next and the drawn part is never rewritten,
+    // so putting cards back only moves deckTop
+    private final int[] deck;
+    private int deckTop = 0;
+
+    // the display is a ring: index 0 is the card that has been face up longest and
+    // refills go to the end. Takes shift the shorter side, so no operation touches more
+    // than half the display, and nothing is allocated after construction.
+    private final Card[] ring;
+    private int head = 0;
+    private int count = 0;
+    private final List<Card> display = new AbstractList<>() {
+        @Override
+        public Card get(int index) {
+            Objects.checkIndex(index, count);
+            return ring[slot(index)];
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    };
+    // after a card leaves the display it is refilled from the deck up to this size
+    private final int displaySize;
+
+    // cards removed with removeLastCard, oldest first
+    private final Card[] discarded;
+    private int discardedCount = 0;
+    private final List<Card> discardedView = new AbstractList<>() {
+        @Override
+        public Card get(int index) {
+            Objects.checkIndex(index, discardedCount);
+            return discarded[index];
+        }
+
+        @Override
+        public int size() {
+            return discardedCount;
+        }
+    };
+
+    // state() is kept until the pile changes or one of the visible cards does
+    private int modCount = 0;
+    private String cachedState;
+    private int cachedAt;
+    private int[] cachedCards = new int[8];
 
     public Pile(ArrayList<Card> cardsForDisplay, ArrayList<Card> cardsForDeck) {
-        display.addAll(cardsForDisplay);
-        deck.addAll(cardsForDeck);
+        this(join(cardsForDisplay, cardsForDeck), identity(cardsForDisplay.size(), cardsForDeck.size()),
+                cardsForDisplay.size(), cardsForDisplay.size());
+    }
+
+    // `order` lists card ids: the first `visible` are dealt face up, the rest form the deck
+    Pile(Card[] cards, int[] order, int visible, int displaySize) {
+        if (visible < 0 || visible > order.length) {
+            throw new IllegalArgumentException("Invalid number of visible cards");
+        }
+        this.cards = cards;
+        this.displaySize = displaySize;
+        this.ring = new Card[Math.max(1, Math.max(visible, displaySize))];
+        for (int i = 0; i < visible; i++) {
+            ring[count++] = cards[order[i]];
+        }
+        this.deck = Arrays.copyOfRange(order, visible, order.length);
+        this.discarded = new Card[cards.length];
+    }
+
+    private static Card[] join(List<Card> first, List<Card> second) {
+        Card[] result = new Card[first.size() + second.size()];
+        for (int i = 0; i < first.size(); i++) {
+            result[i] = first.get(i);
+        }
+        for (int i = 0; i < second.size(); i++) {
+            result[first.size() + i] = second.get(i);
+        }
+        return result;
+    }
+
+    private static int[] identity(int visible, int hidden) {
+        int[] order = new int[visible + hidden];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    private int slot(int index) {
+        int slot = head + index;
+        return slot < ring.length ? slot : slot - ring.length;
+    }
+
+    public List<Card> getDisplayCards() {
+        return display;
     }
 
     public Optional<Card> getCard(int index) {
-        if (index < 0 || index >= display.size()) return Optional.empty();
-        return Optional.of(display.get(index));
+        if (index < 0 || index >= count) return Optional.empty();
+        return Optional.of(ring[slot(index)]);
     }
 
+    // the cards behind the taken one move down and the deck refills the last slot
     public void takeCard(int index) {
-        display.remove(index);
+        Objects.checkIndex(index, count);
+        removeAt(index);
+        refill();
+        modCount++;
+    }
+
+    // discards the card that has been on display longest (index 0) and refills from the deck
+    public void removeLastCard() {
+        if (count == 0) {
+            throw new IllegalStateException("Display is empty");
+        }
+        discarded[discardedCount++] = ring[head];
+        removeAt(0);
+        refill();
+        modCount++;
+    }
+
+    private void removeAt(int index) {
+        if (index < count / 2) {
+            for (int i = index; i > 0; i--) {
+                ring[slot(i)] = ring[slot(i - 1)];
+            }
+            ring[head] = null;
+            head = slot(1);
+        } else {
+            for (int i = index; i < count - 1; i++) {
+                ring[slot(i)] = ring[slot(i + 1)];
+            }
+            ring[slot(count - 1)] = null;
+        }
+        count--;
+    }
+
+    private void insertAt(int index, Card card) {
+        if (count == ring.length) {
+            throw new IllegalStateException("Display is full");
+        }
+        if (index < count / 2) {
+            head = head == 0 ? ring.length - 1 : head - 1;
+            for (int i = 0; i < index; i++) {
+                ring[slot(i)] = ring[slot(i + 1)];
+            }
+        } else {
+            for (int i = count; i > index; i--) {
+                ring[slot(i)] = ring[slot(i - 1)];
+            }
+        }
+        ring[slot(index)] = card;
+        count++;
     }
 
+    private void refill() {
+        while (count < displaySize && deckTop < deck.length) {
+            ring[slot(count++)] = cards[deck[deckTop++]];
+        }
+    }
+
+    // puts the cards drawn since the deck had `deckCount` cards back on it
+    private void unrefill(int deckCount) {
+        while (deckSize() < deckCount) {
+            ring[slot(--count)] = null;
+            deckTop--;
+        }
+    }
+
+    // undoes takeCard: the refill goes back on the deck and the taken card to its slot
+    void returnCard(int index, Card card, int deckCount) {
+        unrefill(deckCount);
+        insertAt(index, card);
+        modCount++;
+    }
+
+    // undoes removeLastCard
+    void returnDiscarded(int deckCount) {
+        if (discardedCount == 0) {
+            throw new IllegalStateException("Nothing was discarded");
+        }
+        unrefill(deckCount);
+        Card card = discarded[--discardedCount];
+        discarded[discardedCount] = null;
+        insertAt(0, card);
+        modCount++;
+    }
+
+    // number of cards left in the deck, face down; the name is kept for callers
     public int discardPileSize() {
-        return deck.size();
+        return deckSize();
     }
 
     public Card takeFromDeck() {
-        return deck.pop();
+        if (deckTop == deck.length) {
+            throw new NoSuchElementException("Deck is empty");
+        }
+        modCount++;
+        return cards[deck[deckTop++]];
     }
 
+    int deckSize() {
+        return deck.length - deckTop;
+    }
 
-    public void removeLastCard() {
-        throw new UnsupportedOperationException("Not implemented");
+    // cards in the order they were given to the pile, wherever they are now
+    int dealtCount() {
+        return cards.length;
     }
 
-    public String state() {
-        JSONObject result = new JSONObject();
+    Card dealt(int id) {
+        return cards[id];
+    }
+
+    // cards discarded from the display so far, oldest first
+    public List<Card> getDiscardedCards() {
+        return discardedView;
+    }
+
+    public int discardedCount() {
+        return discardedCount;
+    }
+
+    Iterator<Card> deckCards() {
+        return new Iterator<>() {
+            private int at = deckTop;
+
+            @Override
+            public boolean hasNext() {
+                return at < deck.length;
+            }
+
+            @Override
+            public Card next() {
+                if (at == deck.length) throw new NoSuchElementException();
+                return cards[deck[at++]];
+            }
+        };
+    }
+
+    // refills the pile from a snapshot; a deck that is a suffix of the dealt order, which
+    // is every deck this pile can reach by drawing, only moves deckTop
+    void restore(Card[] displayCards, int displayCount, Card[] deckCards, int deckCount,
+                 Card[] discardedCards, int discardCount) {
+        if (displayCount > ring.length || deckCount > deck.length || discardCount > discarded.length) {
+            throw new IllegalArgumentException("Pile is larger than the dealt pile");
+        }
+        Arrays.fill(ring, null);
+        head = 0;
+        count = displayCount;
+        System.arraycopy(displayCards, 0, ring, 0, displayCount);
+
+        int top = deck.length - deckCount;
+        for (int i = 0; i < deckCount; i++) {
+            if (cards[deck[top + i]] != deckCards[i]) {
+                deck[top + i] = idOf(deckCards[i]);
+            }
+        }
+        deckTop = top;
+
+        if (discardCount < discardedCount) {
+            Arrays.fill(discarded, discardCount, discardedCount, null);
+        }
+        System.arraycopy(discardedCards, 0, discarded, 0, discardCount);
+        discardedCount = discardCount;
+        modCount++;
+    }
+
+    private int idOf(Card card) {
+        for (int id = 0; id < cards.length; id++) {
+            if (cards[id] == card) return id;
+        }
+        throw new IllegalArgumentException("Card was not dealt to this pile");
+    }
+
+    private String validCache() {
+        if (cachedState == null || cachedAt != modCount) return null;
+        for (int i = 0; i < display.size(); i++) {
+            Card card = display.get(i);
+            if (card != null && card.modCount() != cachedCards[i]) return null;
+        }
+        return cachedState;
+    }
+
+    public void writeState(JsonWriter out) {
+        String cached = validCache();
+        if (cached != null) {
+            StateCache.hit(StateCache.Kind.PILE);
+            out.rawValue(cached);
+            return;
+        }
+        StateCache.miss(StateCache.Kind.PILE);
+        cachedState = out.cachedValue(null, this::render);
+        cachedAt = modCount;
+        if (cachedCards.length < display.size()) {
+            cachedCards = new int[display.size()];
+        }
+        for (int i = 0; i < display.size(); i++) {
+            Card card = display.get(i);
+            cachedCards[i] = card == null ? 0 : card.modCount();
+        }
+    }
 
-        result.put("visible_count", display.size());
-        result.put("hidden_count", deck.size());
+    private void render(JsonWriter out) {
+        out.beginObject()
+                .name("visible_count").value(display.size())
+                .name("hidden_count").value(deckSize())
+                .name("visible_cards").beginArray();
+        for (int i = 0; i < display.size(); i++) {
+            Card card = display.get(i);
+            if (card == null) {
+                out.nullValue();
+            } else {
+                card.writeState(out);
+            }
+        }
+        out.endArray().endObject();
+    }
 
-        JSONArray visibleCardsArray = new JSONArray();
-        for (Card card : display) {
-            visibleCardsArray.put(card == null ? JSONObject.NULL : card.state());
+    public String state() {
+        String cached = validCache();
+        if (cached != null) {
+            StateCache.hit(StateCache.Kind.PILE);
+            return cached;
         }
-        result.put("visible_cards", visibleCardsArray);
-        return result.toString();
+        JsonWriter.render(this::writeState);
+        return cachedState;
     }
 }
 
@@ -0,0 +1,65 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+// Deals shuffled piles from a list of card templates. The shuffle permutes an int[] of
+// card ids, so no collections are built per game, and it draws from the generator it
+// is given: split one stream per deck off the game's seed and the deal is reproducible.
+public final class PileFactory {
+    // cards face up next to each deck
+    public static final int DISPLAY_SIZE = 4;
+
+    private final List<Supplier<Card>> templates;
+    private final int displaySize;
+
+    public PileFactory(List<Supplier<Card>> templates) {
+        this(templates, DISPLAY_SIZE);
+    }
+
+    public PileFactory(List<Supplier<Card>> templates, int displaySize) {
+        if (displaySize < 0) {
+            throw new IllegalArgumentException("Display size must not be negative");
+        }
+        this.templates = List.copyOf(templates);
+        this.displaySize = displaySize;
+    }
+
+    public static PileFactory of(CardCatalogue catalogue, Deck deck) {
+        List<CardDefinition> definitions = catalogue.deck(deck);
+        List<Supplier<Card>> templates = new ArrayList<>(definitions.size());
+        for (CardDefinition definition : definitions) {
+            templates.add(definition::newCard);
+        }
+        return new PileFactory(templates);
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    // card i of the pile (Pile.dealt(i)) is made from template i, whatever the shuffle
+    public Pile deal(SplittableRandom random) {
+        int size = templates.size();
+        Card[] cards = new Card[size];
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            cards[i] = templates.get(i).get();
+            order[i] = i;
+        }
+        shuffle(order, random);
+        return new Pile(cards, order, Math.min(displaySize, size), displaySize);
+    }
+
+    // Fisher-Yates
+    static void shuffle(int[] order, SplittableRandom random) {
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+    }
+}
@@ -1,84 +1,52 @@
 package sk.uniba.fmph.dcs.terra_futura;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
 import java.util.List;
 
-
+// Validates and applies an activation of the player's own card. Inputs, outputs and
+// pollution are grouped per grid cell into an ActivationPlan; the activated card's upper
+// or lower effect must accept the totals over all cells, and every touched cell must
+// hold a card with its inputs and room for its outputs and pollution.
+// validate is side-effect free and returns a new plan for previews and speculative
+// checks; commit applies a plan as long as its cards have not changed since.
+// activateCard reuses one plan, so it allocates nothing. Not thread safe apart from
+// validate; one instance per game.
 public class ProcessAction {
-    private final InterfaceGameResources resources;
-    private final InterfaceActivateGrid activateGrid;
-    private final List<Action> fullActionSequence;   // Sequence required for the action
-    private final ProcessActionAssistance assistance; // Assistance for multi-step cases
+    private final ActivationPlan scratch = new ActivationPlan();
 
-    private final ActivationPattern activationPattern; // For ACTIVATE actions
-    private boolean completed;                      
-
-    public ProcessAction(
-            InterfaceGameResources resources,
-            InterfaceActivateGrid activateGrid,
-            ActivationPattern activationPattern,
-            List<Action> requiredSequence
-    ) {
-        this.resources = resources;
-        this.activateGrid = activateGrid;
-        this.activationPattern = activationPattern;
-        this.fullActionSequence = requiredSequence;
-        this.assistance = new ProcessActionAssistance(requiredSequence, resources);
-        this.completed = false;
+    public ProcessAction() {
     }
 
-    public boolean perform(Action action) {
-        if (completed) {
-            return false; 
-        }
-
-        boolean accepted = assistance.perform(action);
-
-        if (!accepted) {
-            return false; // Wrong step or lacking resources
-        }
-
-        applySideEffects(action);
-
-        if (assistance.isCompleted()) {
-            completed = true;
-        }
-
-        return true;
+    public ActivationPlan validate(Card card,
+                                   Grid grid,
+                                   List<Pair<Resource, GridPosition>> inputs,
+                                   List<Pair<Resource, GridPosition>> outputs,
+                                   List<GridPosition> pollution) {
+        return new ActivationPlan().build(card, grid, inputs, outputs, pollution);
     }
 
-    private void applySideEffects(Action a) {
-        switch (a) {
-            case ACTIVATE:
-                activationPattern.select();
-                break;
-            case BUILD:
-                break;
-            case TRADE:
-                break;
-            case PRODUCE:
-                break;
-            default:
-                break;
-        }
+    public void commit(ActivationPlan plan) {
+        plan.commit();
     }
 
-    public boolean isCompleted() {
-        return completed;
+    public boolean activateCard(Card card,
+                                Grid grid,
+                                List<Pair<Resource, GridPosition>> inputs,
+                                List<Pair<Resource, GridPosition>> outputs,
+                                List<GridPosition> pollution) {
+        if (!prepare(card, grid, inputs, outputs, pollution).isValid()) {
+            return false;
+        }
+        scratch.commit();
+        return true;
     }
 
-    public String state() {
-        JSONObject obj = new JSONObject();
-        obj.put("completed", completed);
-        obj.put("assistance", new JSONObject(assistance.state()));
-        JSONArray seq = new JSONArray();
-        for (Action a : fullActionSequence) {
-            seq.put(a.toString());
-        }
-        obj.put("requiredSequence", seq);
-        obj.put("activationPattern", new JSONObject(activationPattern.state()));
-        return obj.toString();
+    // validates into the reused plan, so a caller can journal before committing it; the
+    // plan is only good until the next call
+    ActivationPlan prepare(Card card,
+                           Grid grid,
+                           List<Pair<Resource, GridPosition>> inputs,
+                           List<Pair<Resource, GridPosition>> outputs,
+                           List<GridPosition> pollution) {
+        return scratch.build(card, grid, inputs, outputs, pollution);
     }
 }
@@ -0,0 +1,72 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.random.RandomGenerator;
+
+// Uniformly random legal card placement; skips activations and picks patterns and
+// scoring at random. Serves as the baseline opponent for simulations.
+public class RandomBotPolicy implements BotPolicy {
+
+    @Override
+    public void move(Game game, int playerId, RandomGenerator random) {
+        switch (game.state) {
+            case TakeCardNoCardDiscarded:
+            case TakeCardCardDiscarded:
+                takeRandomCard(game, playerId, random);
+                break;
+            case ActivateCard:
+                game.turnFinished(playerId);
+                break;
+            case SelectReward:
+                selectRandomReward(game, random);
+                break;
+            case SelectActivationPattern:
+                game.selectActivationPattern(playerId, random.nextInt(2));
+                break;
+            case SelectScoringMethod:
+                game.selectScoring(playerId, random.nextInt(2));
+                break;
+            default:
+                throw new IllegalStateException("Game is over");
+        }
+    }
+
+    private void selectRandomReward(Game game, RandomGenerator random) {
+        SelectReward reward = game.getSelectReward();
+        List<Resource> options = reward.selelction;
+        game.selectReward(reward.playerId(), options.get(random.nextInt(options.size())));
+    }
+
+    private void takeRandomCard(Game game, int playerId, RandomGenerator random) {
+        Grid grid = game.players[game.onTurn].grid;
+        int free = GridBits.ALL & ~grid.bits().occupied();
+        if (free == 0) {
+            throw new IllegalStateException("Grid is full");
+        }
+
+        Deck[] decks = Deck.values();
+        int firstDeck = random.nextInt(decks.length);
+        for (int d = 0; d < decks.length; d++) {
+            Deck deck = decks[(firstDeck + d) % decks.length];
+            int visible = game.getPile(deck).getDisplayCards().size();
+            if (visible == 0) continue;
+
+            CardSource source = new CardSource();
+            source.deck = deck;
+            source.index = random.nextInt(visible);
+            int cell = nthSetBit(free, random.nextInt(Integer.bitCount(free)));
+            if (game.takeCard(playerId, source, new GridPosition(cell / GridBits.SIZE, cell % GridBits.SIZE))) {
+                return;
+            }
+        }
+        throw new IllegalStateException("No card can be taken");
+    }
+
+    private static int nthSetBit(int mask, int n) {
+        for (int i = 0; i < n; i++) {
+            mask &= mask - 1;
+        }
+        return Integer.numberOfTrailingZeros(mask);
+    }
+}
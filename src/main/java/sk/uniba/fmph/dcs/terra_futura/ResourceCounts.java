@@ -0,0 +1,191 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Multiset of resources stored as one int per Resource ordinal. All operations work
+// in place on the primitive array, so nothing is boxed or allocated per call.
+public final class ResourceCounts {
+    static final Resource[] RESOURCES = Resource.values();
+    public static final int SIZE = RESOURCES.length;
+
+    private final int[] counts = new int[SIZE];
+    private int total = 0;
+
+    public ResourceCounts() {
+    }
+
+    public static ResourceCounts of(List<Resource> resources) {
+        ResourceCounts result = new ResourceCounts();
+        result.addAll(resources);
+        return result;
+    }
+
+    public int get(Resource resource) {
+        return counts[resource.ordinal()];
+    }
+
+    public int total() {
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        total = 0;
+    }
+
+    // copies the counts into a flat state array and returns the next free offset
+    int write(int[] to, int at) {
+        System.arraycopy(counts, 0, to, at, SIZE);
+        return at + SIZE;
+    }
+
+    int read(int[] from, int at) {
+        total = 0;
+        for (int i = 0; i < SIZE; i++) {
+            counts[i] = from[at + i];
+            total += counts[i];
+        }
+        return at + SIZE;
+    }
+
+    public void set(ResourceCounts other) {
+        System.arraycopy(other.counts, 0, counts, 0, SIZE);
+        total = other.total;
+    }
+
+    public void add(Resource resource) {
+        add(resource, 1);
+    }
+
+    public void add(Resource resource, int count) {
+        counts[resource.ordinal()] += count;
+        total += count;
+    }
+
+    public void addAll(List<Resource> resources) {
+        if (resources == null) return;
+        for (int i = 0; i < resources.size(); i++) {
+            add(resources.get(i));
+        }
+    }
+
+    public void addAll(ResourceCounts other) {
+        for (int i = 0; i < SIZE; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    public void subtract(Resource resource) {
+        subtract(resource, 1);
+    }
+
+    public void subtract(Resource resource, int count) {
+        if (counts[resource.ordinal()] < count) {
+            throw new IllegalStateException("Not enough " + resource);
+        }
+        counts[resource.ordinal()] -= count;
+        total -= count;
+    }
+
+    public void subtractAll(List<Resource> resources) {
+        if (!containsAll(resources)) {
+            throw new IllegalStateException("Not enough resources");
+        }
+        for (int i = 0; i < resources.size(); i++) {
+            Resource resource = resources.get(i);
+            counts[resource.ordinal()]--;
+            total--;
+        }
+    }
+
+    public void subtractAll(ResourceCounts other) {
+        if (!contains(other)) {
+            throw new IllegalStateException("Not enough resources");
+        }
+        for (int i = 0; i < SIZE; i++) {
+            counts[i] -= other.counts[i];
+        }
+        total -= other.total;
+    }
+
+    public boolean contains(ResourceCounts other) {
+        for (int i = 0; i < SIZE; i++) {
+            if (counts[i] < other.counts[i]) return false;
+        }
+        return true;
+    }
+
+    // Counts the list into a packed long, as ResourceSignature.of does, and compares as
+    // it goes; only reads these counts, and a null element simply makes it false.
+    public boolean containsAll(List<Resource> resources) {
+        if (resources == null) return true;
+        long needed = 0;
+        for (int i = 0; i < resources.size(); i++) {
+            Resource resource = resources.get(i);
+            if (resource == null) return false;
+            int shift = resource.ordinal() * ResourceSignature.BITS;
+            long count = (needed >>> shift) & ResourceSignature.BYTE;
+            if (count >= counts[resource.ordinal()]) return false;
+            if (count == ResourceSignature.BYTE) {
+                // more of one resource than a byte holds; count the list exactly instead
+                return containsAllExactly(resources);
+            }
+            needed += 1L << shift;
+        }
+        return true;
+    }
+
+    private boolean containsAllExactly(List<Resource> resources) {
+        for (int index = 0; index < SIZE; index++) {
+            int needed = 0;
+            for (int i = 0; i < resources.size(); i++) {
+                Resource resource = resources.get(i);
+                if (resource == null) return false;
+                if (resource.ordinal() == index) needed++;
+            }
+            if (needed > counts[index]) return false;
+        }
+        return true;
+    }
+
+    // how many times `needed` fits into these counts; zero when `needed` is empty
+    public int combinations(ResourceCounts needed) {
+        if (needed.isEmpty()) return 0;
+        int result = Integer.MAX_VALUE;
+        for (int i = 0; i < SIZE; i++) {
+            if (needed.counts[i] > 0) {
+                result = Math.min(result, counts[i] / needed.counts[i]);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ResourceCounts)) return false;
+        return Arrays.equals(counts, ((ResourceCounts) o).counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(counts);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < SIZE; i++) {
+            if (counts[i] == 0) continue;
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(RESOURCES[i].name()).append('=').append(counts[i]);
+        }
+        return sb.append('}').toString();
+    }
+}
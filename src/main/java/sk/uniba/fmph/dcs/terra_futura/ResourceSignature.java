@@ -0,0 +1,78 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Packs a resource multiset into a long, 8 bits per Resource ordinal. Two lists have
+// the same signature exactly when they hold the same resources in any order.
+public final class ResourceSignature {
+    static final int BITS = 8;
+    static final long BYTE = (1L << BITS) - 1;
+    // returned when some resource occurs more than 255 times; never a valid signature
+    public static final long OVERFLOW = -1L;
+
+    static {
+        if (ResourceCounts.SIZE * BITS > Long.SIZE) {
+            throw new ExceptionInInitializerError("Too many resources for a packed signature");
+        }
+    }
+
+    private ResourceSignature() {
+    }
+
+    public static long of(List<Resource> resources) {
+        if (resources == null) return 0;
+        long signature = 0;
+        for (int i = 0; i < resources.size(); i++) {
+            int shift = resources.get(i).ordinal() * BITS;
+            if (((signature >>> shift) & BYTE) == BYTE) {
+                return OVERFLOW;
+            }
+            signature += 1L << shift;
+        }
+        return signature;
+    }
+
+    public static long of(ResourceCounts counts) {
+        long signature = 0;
+        for (Resource resource : ResourceCounts.RESOURCES) {
+            int count = counts.get(resource);
+            if (count > BYTE) {
+                return OVERFLOW;
+            }
+            signature |= (long) count << (resource.ordinal() * BITS);
+        }
+        return signature;
+    }
+
+    // signature of an effect definition, which must be representable
+    static long compile(List<Resource> resources) {
+        long signature = of(resources);
+        if (signature == OVERFLOW) {
+            throw new IllegalArgumentException("Effect uses a resource more than " + BYTE + " times");
+        }
+        return signature;
+    }
+
+    public static int count(long signature, Resource resource) {
+        return (int) ((signature >>> (resource.ordinal() * BITS)) & BYTE);
+    }
+
+    public static int size(long signature) {
+        int size = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += BITS) {
+            size += (int) ((signature >>> shift) & BYTE);
+        }
+        return size;
+    }
+
+    public static List<Resource> toList(long signature) {
+        List<Resource> resources = new ArrayList<>();
+        for (Resource resource : ResourceCounts.RESOURCES) {
+            for (int i = count(signature, resource); i > 0; i--) {
+                resources.add(resource);
+            }
+        }
+        return resources;
+    }
+}
@@ -1,22 +1,26 @@
 package sk.uniba.fmph.dcs.terra_futura;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Supplier;
 
 public final class ScoringMethod {
-    public List<Resource> resources;
+    public final List<Resource> resources;  // unmodifiable; `needed` is derived from it once
 
     public Points pointsPerCombination;
     public Optional<Points> calculatedTotal;
 
     // provides current resource counts from the game
     private final Supplier<Map<Resource, Integer>> resourceProvider;
+    // how many of each resource is needed for one combo
+    private final ResourceCounts needed;
+
+    // state() is kept while the public fields still hold the values it was built from;
+    // they are only ever replaced, never changed in place
+    private String cachedState;
+    private Points cachedPoints;
+    private Optional<Points> cachedTotal;
 
     public ScoringMethod(final List<Resource> resources,
                          final Points pointsPerCombination,
@@ -26,6 +30,7 @@ public final class ScoringMethod {
         }
 
         this.resources = List.copyOf(resources);
+        this.needed = ResourceCounts.of(this.resources);
         this.pointsPerCombination = pointsPerCombination;
         this.resourceProvider = resourceProvider;
         this.calculatedTotal = Optional.empty();
@@ -35,30 +40,19 @@ public final class ScoringMethod {
     public void selectThisMethodAndCalculate() {
         final Map<Resource, Integer> provided = resourceProvider.get();
 
-        final EnumMap<Resource, Integer> available =
-                new EnumMap<>(Resource.class);
-        if (provided != null) {
-            available.putAll(provided);
-        }
-
-        // how many of each resource is needed for one combo
-        final EnumMap<Resource, Integer> needed =
-                new EnumMap<>(Resource.class);
-        for (Resource r : resources) {
-            needed.merge(r, 1, Integer::sum);
-        }
-
         int combinations = 0;
 
         if (!needed.isEmpty()) {
             combinations = Integer.MAX_VALUE;
 
-            for (Map.Entry<Resource, Integer> e : needed.entrySet()) {
-                final Resource r = e.getKey();
-                final int need = e.getValue();
-                final int have = available.getOrDefault(r, 0);
-                final int fromThis = have / need;
-                combinations = Math.min(combinations, fromThis);
+            for (Resource r : ResourceCounts.RESOURCES) {
+                final int need = needed.get(r);
+                if (need == 0) {
+                    continue;
+                }
+                final Integer provides = provided == null ? null : provided.get(r);
+                final int have = provides == null ? 0 : provides;
+                combinations = Math.min(combinations, have / need);
             }
         }
 
@@ -68,21 +62,43 @@ public final class ScoringMethod {
         this.calculatedTotal = Optional.of(total);
     }
 
-    // JSON view for UI / debugging
-    public String state() {
-        final JSONObject json = new JSONObject();
+    private String validCache() {
+        if (cachedState == null || cachedPoints != pointsPerCombination || cachedTotal != calculatedTotal) {
+            return null;
+        }
+        return cachedState;
+    }
 
-        final JSONArray patternArr = new JSONArray();
-        for (Resource r : resources) {
-            patternArr.put(r.name());
+    // JSON view for UI / debugging
+    public void writeState(JsonWriter out) {
+        String cached = validCache();
+        if (cached != null) {
+            StateCache.hit(StateCache.Kind.SCORING);
+            out.rawValue(cached);
+            return;
         }
-        json.put("resources", patternArr);
+        StateCache.miss(StateCache.Kind.SCORING);
+        cachedState = out.cachedValue(null, this::render);
+        cachedPoints = pointsPerCombination;
+        cachedTotal = calculatedTotal;
+    }
 
-        json.put("pointsPerCombination", pointsPerCombination.value());
-        json.put("selected", calculatedTotal.isPresent());
-        json.put("total",
-                calculatedTotal.map(Points::value).orElse(0));
+    private void render(JsonWriter out) {
+        out.beginObject().name("resources");
+        JsonWriter.writeResources(out, resources);
+        out.name("pointsPerCombination").value(pointsPerCombination.value());
+        out.name("selected").value(calculatedTotal.isPresent());
+        out.name("total").value(calculatedTotal.isPresent() ? calculatedTotal.get().value() : 0);
+        out.endObject();
+    }
 
-        return json.toString();
+    public String state() {
+        String cached = validCache();
+        if (cached != null) {
+            StateCache.hit(StateCache.Kind.SCORING);
+            return cached;
+        }
+        JsonWriter.render(this::writeState);
+        return cachedState;
     }
 }
@@ -1,27 +1,106 @@
 package sk.uniba.fmph.dcs.terra_futura;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+// The reward owed to the assisting player after an assisted activation. The options are
+// indexed once in setReward as a bitset over Resource ordinals, so canSelectReward is a
+// single mask test; the chosen resource goes onto the assisting player's card.
 public class SelectReward {
 
-    public Optional<Integer> player;         // Optional[int]
-    public List<Resource> selelction;        // да, в UML там опечатка selelction
+    public Optional<Integer> player = Optional.empty();         // Optional[int]
+    public List<Resource> selelction = List.of();        // да, в UML там опечатка selelction
+
+    private Card card;
+    private int options = 0;
 
     public void setReward(int player, Card card, Resource[] reward) {
-        throw new UnsupportedOperationException("Not implemented");
+        if (card == null || reward == null) {
+            throw new IllegalArgumentException("Reward needs a card and resources");
+        }
+        // only what the card can still hold is offered
+        int mask = 0;
+        for (Resource resource : reward) {
+            if (card.canAddResources(1L << (resource.ordinal() * ResourceSignature.BITS))) {
+                mask |= bit(resource);
+            }
+        }
+        set(player, card, mask);
     }
 
     public boolean canSelectReward(Resource resource) {
-        throw new UnsupportedOperationException("Not implemented");
+        return resource != null && (options & bit(resource)) != 0;
     }
 
     public void selectReward(Resource resource) {
-        throw new UnsupportedOperationException("Not implemented");
+        if (!canSelectReward(resource)) {
+            throw new IllegalStateException("Reward cannot be selected");
+        }
+        card.putResources(List.of(resource));
+        set(-1, null, 0);
+    }
+
+    boolean isPending() {
+        return options != 0;
+    }
+
+    // seat id of the player choosing the reward, or -1 when no reward is pending
+    int playerId() {
+        return player.orElse(-1);
+    }
+
+    Card card() {
+        return card;
+    }
+
+    int options() {
+        return options;
+    }
+
+    // puts back a pending reward from a journal or snapshot; an empty mask clears it
+    void restore(int player, Card card, int options) {
+        if (player != playerId() || card != this.card || options != this.options) {
+            set(player, card, options);
+        }
+    }
+
+    private void set(int player, Card card, int options) {
+        if (options == 0) {
+            this.player = Optional.empty();
+            this.selelction = List.of();
+            this.card = null;
+            this.options = 0;
+            return;
+        }
+        List<Resource> selection = new ArrayList<>(Integer.bitCount(options));
+        for (int rest = options; rest != 0; rest &= rest - 1) {
+            selection.add(ResourceCounts.RESOURCES[Integer.numberOfTrailingZeros(rest)]);
+        }
+        this.player = Optional.of(player);
+        this.selelction = Collections.unmodifiableList(selection);
+        this.card = card;
+        this.options = options;
+    }
+
+    private static int bit(Resource resource) {
+        return 1 << resource.ordinal();
+    }
+
+    public void writeState(JsonWriter out) {
+        out.beginObject().name("player");
+        if (player.isPresent()) {
+            out.value(player.get());
+        } else {
+            out.nullValue();
+        }
+        out.name("selection");
+        JsonWriter.writeResources(out, selelction);
+        out.endObject();
     }
 
     public String state() {
-        throw new UnsupportedOperationException("Not implemented");
+        return JsonWriter.render(this::writeState);
     }
 }
-
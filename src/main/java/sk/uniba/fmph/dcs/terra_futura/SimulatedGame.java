@@ -0,0 +1,52 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// A game built for simulation together with the catalogue index of every card dealt into it.
+public class SimulatedGame {
+    public final Game game;
+    private final Map<Card, Integer> cardIds;
+
+    private final Supplier<SimulatedGame> setUp;
+
+    public SimulatedGame(Game game, Map<Card, Integer> cardIds) {
+        this(game, cardIds, null);
+    }
+
+    // `setUp` deals the same game again from scratch; null when the game cannot be replicated
+    public SimulatedGame(Game game, Map<Card, Integer> cardIds, Supplier<SimulatedGame> setUp) {
+        this.game = game;
+        this.cardIds = new IdentityHashMap<>(cardIds);
+        this.setUp = setUp;
+    }
+
+    public boolean canReplicate() {
+        return setUp != null;
+    }
+
+    // a separate game with the same cards, players and scoring, in its initial state; bring
+    // it to the current position by restoring a snapshot() capture into its snapshot()
+    public SimulatedGame replicate() {
+        if (setUp == null) {
+            throw new IllegalStateException("Game cannot be replicated");
+        }
+        return setUp.get();
+    }
+
+    // snapshot that orders cards by catalogue id, so captures fit every replica of the game
+    public GameSnapshot snapshot() {
+        Card[] cards = new Card[cardIds.size()];
+        for (Map.Entry<Card, Integer> entry : cardIds.entrySet()) {
+            cards[entry.getValue()] = entry.getKey();
+        }
+        return new GameSnapshot(game, Arrays.asList(cards));
+    }
+
+    public int cardId(Card card) {
+        Integer id = cardIds.get(card);
+        return id == null ? -1 : id;
+    }
+}
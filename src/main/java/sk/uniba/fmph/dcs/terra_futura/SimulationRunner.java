@@ -0,0 +1,152 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Plays many games headlessly. Game ranges are split into fork/join tasks, so idle
+// workers steal work; each leaf fills one local SimulationStats and merges it once.
+// Game i is always seeded from (seed, i), so a run is reproducible at any parallelism.
+public class SimulationRunner {
+    static final int GAMES_PER_TASK = 256;
+    static final int DEFAULT_MAX_MOVES = 1000;
+
+    private final GameFactory factory;
+    private final BotPolicy[] policies;  // by seat, reused for the whole run
+    private final int maxMovesPerGame;
+
+    public SimulationRunner(GameFactory factory, BotPolicy... policies) {
+        this(factory, DEFAULT_MAX_MOVES, policies);
+    }
+
+    public SimulationRunner(GameFactory factory, int maxMovesPerGame, BotPolicy... policies) {
+        if (policies.length == 0) {
+            throw new IllegalArgumentException("At least one policy is needed");
+        }
+        this.factory = factory;
+        this.policies = policies.clone();
+        this.maxMovesPerGame = maxMovesPerGame;
+    }
+
+    // Runs `games` games and returns the totals. After every `reportEvery` finished games
+    // the running totals are appended to `output` as one JSON line; the final totals are
+    // always written last. `output` may be null.
+    public SimulationStats run(long games, long seed, int parallelism, Writer output, long reportEvery) {
+        Aggregate aggregate = new Aggregate(factory.catalogueSize(), output, reportEvery);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new Chunk(0, games, seed, aggregate));
+        } finally {
+            pool.shutdown();
+        }
+        aggregate.finish();
+        return aggregate.total;
+    }
+
+    public SimulationStats run(long games, long seed) {
+        return run(games, seed, Runtime.getRuntime().availableProcessors(), null, Long.MAX_VALUE);
+    }
+
+    void playOne(long index, long seed, SimulationStats stats) {
+        SplittableRandom random = new SplittableRandom(seed ^ (index * 0x9E3779B97F4A7C15L));
+        SimulatedGame simulated = factory.newGame(random);
+        Game game = simulated.game;
+
+        int moves = 0;
+        try {
+            while (game.state != GameState.Finish) {
+                if (moves++ >= maxMovesPerGame) {
+                    stats.recordAborted();
+                    return;
+                }
+                int seat = game.onTurn;
+                Grid grid = game.players[seat].grid;
+                int before = grid.bits().occupied();
+
+                policies[seat % policies.length].move(simulated, game.players[seat].id, random);
+
+                int placed = grid.bits().occupied() & ~before;
+                if (placed != 0) {
+                    int cell = Integer.numberOfTrailingZeros(placed);
+                    grid.getCard(new GridPosition(cell / GridBits.SIZE, cell % GridBits.SIZE))
+                            .ifPresent(card -> stats.recordPick(simulated.cardId(card)));
+                }
+            }
+        } catch (RuntimeException ex) {
+            // an engine or policy bug, not a long game; reported on its own with the game
+            // index, which reproduces it from the same seed
+            stats.recordFailed(index, ex);
+            return;
+        }
+        stats.recordGame(game, moves);
+    }
+
+    @SuppressWarnings("serial")  // fork/join tasks are never serialized
+    private final class Chunk extends RecursiveAction {
+        private final long from;
+        private final long to;
+        private final long seed;
+        private final Aggregate aggregate;
+
+        Chunk(long from, long to, long seed, Aggregate aggregate) {
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+            this.aggregate = aggregate;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                SimulationStats local = new SimulationStats(factory.catalogueSize());
+                for (long i = from; i < to; i++) {
+                    playOne(i, seed, local);
+                }
+                aggregate.add(local);
+                return;
+            }
+            long middle = from + (to - from) / 2;
+            invokeAll(new Chunk(from, middle, seed, aggregate), new Chunk(middle, to, seed, aggregate));
+        }
+    }
+
+    private static final class Aggregate {
+        final SimulationStats total;
+        private final Writer output;
+        private final long reportEvery;
+        private long reported = 0;
+
+        Aggregate(int catalogueSize, Writer output, long reportEvery) {
+            this.total = new SimulationStats(catalogueSize);
+            this.output = output;
+            this.reportEvery = reportEvery;
+        }
+
+        synchronized void add(SimulationStats local) {
+            total.merge(local);
+            long finished = total.games() + total.aborted() + total.failed();
+            if (finished - reported >= reportEvery) {
+                reported = finished;
+                write();
+            }
+        }
+
+        synchronized void finish() {
+            write();
+        }
+
+        private void write() {
+            if (output == null) return;
+            try {
+                output.write(total.toJson().toString());
+                output.write('\n');
+                output.flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
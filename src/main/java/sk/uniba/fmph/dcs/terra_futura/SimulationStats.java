@@ -0,0 +1,189 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// Aggregated results of simulated games. Not thread safe: every worker fills its own
+// instance and the results are merged.
+public class SimulationStats {
+    static final int MAX_TRACKED_SCORE = 100;  // higher scores share the last histogram bucket
+
+    private long games = 0;
+    private long aborted = 0;
+    private long failed = 0;
+    private long firstFailedGame = -1;
+    private String firstFailure;
+    private long totalMoves = 0;
+    private long totalTurns = 0;
+    private long totalPicks = 0;
+    private final long[] cardPicks;
+    private final Map<String, ScoreDistribution> scores = new TreeMap<>();
+
+    static final class ScoreDistribution {
+        long count = 0;
+        long sum = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        final long[] histogram = new long[MAX_TRACKED_SCORE + 1];
+
+        void add(int score) {
+            count++;
+            sum += score;
+            min = Math.min(min, score);
+            max = Math.max(max, score);
+            histogram[Math.max(0, Math.min(score, MAX_TRACKED_SCORE))]++;
+        }
+
+        void merge(ScoreDistribution other) {
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += other.histogram[i];
+            }
+        }
+
+        JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("count", count);
+            json.put("mean", count == 0 ? 0.0 : (double) sum / count);
+            json.put("min", count == 0 ? 0 : min);
+            json.put("max", count == 0 ? 0 : max);
+            JSONObject buckets = new JSONObject();
+            for (int i = 0; i < histogram.length; i++) {
+                if (histogram[i] > 0) {
+                    buckets.put(Integer.toString(i), histogram[i]);
+                }
+            }
+            json.put("histogram", buckets);
+            return json;
+        }
+    }
+
+    public SimulationStats(int catalogueSize) {
+        this.cardPicks = new long[catalogueSize];
+    }
+
+    public void recordPick(int cardId) {
+        totalPicks++;
+        if (cardId >= 0 && cardId < cardPicks.length) {
+            cardPicks[cardId]++;
+        }
+    }
+
+    // the game hit the move limit
+    public void recordAborted() {
+        aborted++;
+    }
+
+    // the engine or a policy threw; the lowest failing game index is kept to reproduce it
+    public void recordFailed(long gameIndex, RuntimeException failure) {
+        failed++;
+        if (firstFailedGame < 0 || gameIndex < firstFailedGame) {
+            firstFailedGame = gameIndex;
+            firstFailure = failure.toString();
+        }
+    }
+
+    public void recordGame(Game game, int moves) {
+        games++;
+        totalMoves += moves;
+        totalTurns += game.turnNumber;
+        for (Player player : game.players) {
+            for (ScoringMethod method : player.scoringMethods) {
+                if (method != null && method.calculatedTotal.isPresent()) {
+                    scores.computeIfAbsent(key(method), k -> new ScoreDistribution())
+                            .add(method.calculatedTotal.get().value());
+                }
+            }
+        }
+    }
+
+    private static String key(ScoringMethod method) {
+        StringBuilder sb = new StringBuilder();
+        for (Resource resource : method.resources) {
+            if (sb.length() > 0) sb.append('+');
+            sb.append(resource.name());
+        }
+        return sb.append(" x").append(method.pointsPerCombination.value()).toString();
+    }
+
+    public void merge(SimulationStats other) {
+        games += other.games;
+        aborted += other.aborted;
+        failed += other.failed;
+        if (other.firstFailedGame >= 0 && (firstFailedGame < 0 || other.firstFailedGame < firstFailedGame)) {
+            firstFailedGame = other.firstFailedGame;
+            firstFailure = other.firstFailure;
+        }
+        totalMoves += other.totalMoves;
+        totalTurns += other.totalTurns;
+        totalPicks += other.totalPicks;
+        for (int i = 0; i < cardPicks.length && i < other.cardPicks.length; i++) {
+            cardPicks[i] += other.cardPicks[i];
+        }
+        for (Map.Entry<String, ScoreDistribution> entry : other.scores.entrySet()) {
+            scores.computeIfAbsent(entry.getKey(), k -> new ScoreDistribution()).merge(entry.getValue());
+        }
+    }
+
+    public long games() {
+        return games;
+    }
+
+    public long aborted() {
+        return aborted;
+    }
+
+    public long failed() {
+        return failed;
+    }
+
+    // index of the first game that threw, or -1
+    public long firstFailedGame() {
+        return firstFailedGame;
+    }
+
+    public long cardPicks(int cardId) {
+        return cardPicks[cardId];
+    }
+
+    public double averageMoves() {
+        return games == 0 ? 0.0 : (double) totalMoves / games;
+    }
+
+    public double averageTurns() {
+        return games == 0 ? 0.0 : (double) totalTurns / games;
+    }
+
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("games", games);
+        json.put("aborted", aborted);
+        json.put("failed", failed);
+        if (firstFailedGame >= 0) {
+            json.put("first_failure", new JSONObject()
+                    .put("game", firstFailedGame)
+                    .put("error", firstFailure));
+        }
+        json.put("average_moves", averageMoves());
+        json.put("average_turns", averageTurns());
+
+        JSONArray picks = new JSONArray();
+        for (long count : cardPicks) {
+            picks.put(totalPicks == 0 ? 0.0 : (double) count / totalPicks);
+        }
+        json.put("card_pick_rates", picks);
+
+        JSONObject scoring = new JSONObject();
+        for (Map.Entry<String, ScoreDistribution> entry : scores.entrySet()) {
+            scoring.put(entry.getKey(), entry.getValue().toJson());
+        }
+        json.put("scores", scoring);
+        return json;
+    }
+}
@@ -0,0 +1,115 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Growable byte output that codecs write into. Meant to be kept and cleared between
+// messages, so after warm-up encoding does not allocate.
+public final class StateBuffer {
+    private byte[] bytes;
+    private int size = 0;
+
+    public StateBuffer() {
+        this(1024);
+    }
+
+    public StateBuffer(int capacity) {
+        bytes = new byte[Math.max(16, capacity)];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+
+    public StateBuffer put(int b) {
+        ensure(1);
+        bytes[size++] = (byte) b;
+        return this;
+    }
+
+    public StateBuffer put(byte[] source, int offset, int length) {
+        ensure(length);
+        System.arraycopy(source, offset, bytes, size, length);
+        size += length;
+        return this;
+    }
+
+    public StateBuffer putInt(int value) {
+        ensure(4);
+        bytes[size++] = (byte) (value >>> 24);
+        bytes[size++] = (byte) (value >>> 16);
+        bytes[size++] = (byte) (value >>> 8);
+        bytes[size++] = (byte) value;
+        return this;
+    }
+
+    // unsigned LEB128: 7 bits per byte, high bit set on all but the last byte
+    public StateBuffer putVarInt(int value) {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+        return this;
+    }
+
+    // zig-zag, so small negative numbers stay short too
+    public StateBuffer putSignedVarInt(int value) {
+        return putVarInt((value << 1) ^ (value >> 31));
+    }
+
+    // characters below 128 as single bytes, the rest as UTF-8
+    public StateBuffer putText(CharSequence text) {
+        int length = text.length();
+        ensure(length);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes[size++] = (byte) c;
+            } else {
+                byte[] encoded = text.subSequence(i, i + 1).toString().getBytes(StandardCharsets.UTF_8);
+                if (Character.isHighSurrogate(c) && i + 1 < length) {
+                    encoded = text.subSequence(i, i + 2).toString().getBytes(StandardCharsets.UTF_8);
+                    i++;
+                }
+                put(encoded, 0, encoded.length);
+                ensure(length - i);
+            }
+        }
+        return this;
+    }
+
+    // read-only view of the written bytes
+    public ByteBuffer contents() {
+        return ByteBuffer.wrap(bytes, 0, size).slice().asReadOnlyBuffer();
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, size, StandardCharsets.UTF_8);
+    }
+
+    // the text written between two sizes
+    public String toString(int from, int to) {
+        if (from < 0 || from > to || to > size) {
+            throw new IndexOutOfBoundsException("Range " + from + ".." + to + " of " + size);
+        }
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,58 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Hit and miss counters of the state strings that Card, Grid, Pile and ScoringMethod
+// keep until they change. Shared by all games in the process, for monitoring.
+public final class StateCache {
+    public enum Kind {
+        CARD,
+        GRID,
+        PILE,
+        SCORING
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+    private static final LongAdder[] HITS = new LongAdder[KINDS.length];
+    private static final LongAdder[] MISSES = new LongAdder[KINDS.length];
+
+    static {
+        for (int i = 0; i < KINDS.length; i++) {
+            HITS[i] = new LongAdder();
+            MISSES[i] = new LongAdder();
+        }
+    }
+
+    private StateCache() {
+    }
+
+    static void hit(Kind kind) {
+        HITS[kind.ordinal()].increment();
+    }
+
+    static void miss(Kind kind) {
+        MISSES[kind.ordinal()].increment();
+    }
+
+    public static long hits(Kind kind) {
+        return HITS[kind.ordinal()].sum();
+    }
+
+    public static long misses(Kind kind) {
+        return MISSES[kind.ordinal()].sum();
+    }
+
+    // share of lookups served from the cache; 0 before the first lookup
+    public static double hitRatio(Kind kind) {
+        long hits = hits(kind);
+        long total = hits + misses(kind);
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public static void resetStats() {
+        for (int i = 0; i < KINDS.length; i++) {
+            HITS[i].reset();
+            MISSES[i].reset();
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Records which parts of a game a command touched and turns them into a versioned
+// JSON patch (RFC 6902 style "replace"/"remove" ops) instead of a full snapshot.
+// Every resyncInterval versions, and whenever requested, a full snapshot is sent instead.
+// Component state is streamed with writeState, so nothing is rendered and parsed back.
+public class StateChangeTracker {
+    public static final int DEFAULT_RESYNC_INTERVAL = 50;
+
+    private final int resyncInterval;
+    private long version = 0;
+    private long lastSnapshotVersion = 0;
+    private boolean flushedPatch = false;
+    private boolean resyncRequested = true;  // observers start from a snapshot
+
+    private boolean gameFieldsChanged = false;
+    private final Map<Integer, Integer> dirtyCells = new HashMap<>();  // player id -> 9-bit cell mask
+    private final Set<Integer> dirtyGrids = new HashSet<>();
+    private final Set<Integer> dirtyScoring = new HashSet<>();
+    private final long[] dirtySlots = new long[Deck.values().length];
+    private final int[] publishedDisplaySize = new int[Deck.values().length];
+
+    // notifications are streamed into one reused buffer
+    private final StateBuffer out = new StateBuffer(4096);
+    private final JsonWriter json = new JsonWriter(out);
+
+    public StateChangeTracker() {
+        this(DEFAULT_RESYNC_INTERVAL);
+    }
+
+    public StateChangeTracker(int resyncInterval) {
+        if (resyncInterval <= 0) {
+            throw new IllegalArgumentException("Resync interval must be positive");
+        }
+        this.resyncInterval = resyncInterval;
+    }
+
+    public void markGameFields() {
+        gameFieldsChanged = true;
+    }
+
+    public void markCell(int playerId, GridPosition position) {
+        if (position == null || position.x < 0 || position.x >= 3 || position.y < 0 || position.y >= 3) {
+            return;
+        }
+        dirtyCells.merge(playerId, 1 << (position.x * 3 + position.y), (a, b) -> a | b);
+    }
+
+    public void markCells(int playerId, List<GridPosition> positions) {
+        if (positions == null) return;
+        for (GridPosition position : positions) {
+            markCell(playerId, position);
+        }
+    }
+
+    // the activation pattern or other grid-wide data changed
+    public void markGrid(int playerId) {
+        dirtyGrids.add(playerId);
+    }
+
+    public void markScoring(int playerId) {
+        dirtyScoring.add(playerId);
+    }
+
+    // display slots shift down after a card is taken, so everything from index on changed
+    public void markPileSlotsFrom(Deck deck, int index) {
+        if (index < 0) index = 0;
+        if (index >= Long.SIZE) return;
+        dirtySlots[deck.getIndex()] |= -1L << index;
+    }
+
+    public void requestResync() {
+        resyncRequested = true;
+    }
+
+    public boolean hasChanges() {
+        if (resyncRequested || gameFieldsChanged) return true;
+        if (!dirtyCells.isEmpty() || !dirtyGrids.isEmpty() || !dirtyScoring.isEmpty()) return true;
+        for (long slots : dirtySlots) {
+            if (slots != 0) return true;
+        }
+        return false;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    // Builds the next notification and clears the recorded changes.
+    public String flush(Game game) {
+        version++;
+        out.clear();
+        json.reset();
+        flushedPatch = !resyncRequested && version - lastSnapshotVersion < resyncInterval;
+        if (flushedPatch) {
+            patch(game);
+        } else {
+            snapshot(game);
+            lastSnapshotVersion = version;
+            resyncRequested = false;
+        }
+        clear(game);
+        return out.toString();
+    }
+
+    // whether the last flush returned a patch, which only applies on top of the version before
+    public boolean flushedPatch() {
+        return flushedPatch;
+    }
+
+    // A snapshot of the current version for an observer that lost a patch of it; the
+    // version and the recorded changes stay as they are, so later patches still apply.
+    public String resync(Game game) {
+        out.clear();
+        json.reset();
+        snapshot(game);
+        return out.toString();
+    }
+
+    private void clear(Game game) {
+        gameFieldsChanged = false;
+        dirtyCells.clear();
+        dirtyGrids.clear();
+        dirtyScoring.clear();
+        for (Deck deck : Deck.values()) {
+            dirtySlots[deck.getIndex()] = 0;
+            publishedDisplaySize[deck.getIndex()] = game.getPile(deck).getDisplayCards().size();
+        }
+    }
+
+    private void snapshot(Game game) {
+        json.beginObject().name("type").value("snapshot").name("version").value(version);
+        json.name("state");
+        writeTable(json, game);
+        json.endObject();
+    }
+
+    // the "state" part of a snapshot: game fields, every player's grid and scoring, piles
+    static void writeTable(JsonWriter json, Game game) {
+        json.beginObject().name("game");
+        gameFields(json, game);
+        json.name("players").beginObject();
+        for (Player player : game.players) {
+            json.name(Integer.toString(player.id)).beginObject().name("grid");
+            player.grid.writeState(json);
+            json.name("scoring");
+            scoringState(json, player);
+            json.endObject();
+        }
+        json.endObject().name("piles").beginObject();
+        for (Deck deck : Deck.values()) {
+            json.name(deck.name());
+            game.getPile(deck).writeState(json);
+        }
+        json.endObject().endObject();
+    }
+
+    private void patch(Game game) {
+        json.beginObject().name("type").value("patch").name("version").value(version)
+                .name("base").value(version - 1).name("ops").beginArray();
+        if (gameFieldsChanged) {
+            replace("/game");
+            gameFields(json, game);
+            json.endObject();
+        }
+        for (Player player : game.players) {
+            String prefix = "/players/" + player.id;
+            if (dirtyGrids.contains(player.id)) {
+                replace(prefix + "/grid");
+                player.grid.writeState(json);
+                json.endObject();
+            } else {
+                int mask = dirtyCells.getOrDefault(player.id, 0);
+                if (mask != 0) {
+                    for (int cell = 0; cell < 9; cell++) {
+                        if ((mask & (1 << cell)) == 0) continue;
+                        replace(prefix + "/grid/cards/" + Grid.CELL_NAMES[cell]);
+                        card(player.grid.cardAt(cell));
+                        json.endObject();
+                    }
+                    replace(prefix + "/grid/card_count", player.grid.cardsCount());
+                }
+            }
+            if (dirtyScoring.contains(player.id)) {
+                replace(prefix + "/scoring");
+                scoringState(json, player);
+                json.endObject();
+            }
+        }
+        for (Deck deck : Deck.values()) {
+            long slots = dirtySlots[deck.getIndex()];
+            if (slots == 0) continue;
+            Pile pile = game.getPile(deck);
+            List<Card> display = pile.getDisplayCards();
+            String prefix = "/piles/" + deck.name();
+            for (int i = 0; i < display.size() && i < Long.SIZE; i++) {
+                if ((slots & (1L << i)) == 0) continue;
+                replace(prefix + "/visible_cards/" + i);
+                card(display.get(i));
+                json.endObject();
+            }
+            // slots past the new end disappeared; remove from the back so indices stay valid
+            for (int i = publishedDisplaySize[deck.getIndex()] - 1; i >= display.size(); i--) {
+                json.beginObject().name("op").value("remove")
+                        .name("path").value(prefix + "/visible_cards/" + i).endObject();
+            }
+            replace(prefix + "/visible_count", display.size());
+            replace(prefix + "/hidden_count", pile.discardPileSize());
+        }
+        json.endArray().endObject();
+    }
+
+    // opens a replace op up to its value; the caller writes the value and closes the op
+    private void replace(String path) {
+        json.beginObject().name("op").value("replace").name("path").value(path).name("value");
+    }
+
+    private void replace(String path, int value) {
+        replace(path);
+        json.value(value).endObject();
+    }
+
+    private void card(Card card) {
+        if (card == null) {
+            json.nullValue();
+        } else {
+            card.writeState(json);
+        }
+    }
+
+    private static void gameFields(JsonWriter json, Game game) {
+        json.beginObject()
+                .name("state").value(game.state.name())
+                .name("onTurn").value(game.players[game.onTurn].id)
+                .name("turnNumber").value(game.turnNumber);
+        SelectReward reward = game.getSelectReward();
+        if (game.state == GameState.SelectReward && reward != null) {
+            json.name("reward");
+            reward.writeState(json);
+        }
+        json.endObject();
+    }
+
+    private static void scoringState(JsonWriter json, Player player) {
+        json.beginArray();
+        for (ScoringMethod method : player.scoringMethods) {
+            if (method == null) {
+                json.nullValue();
+            } else {
+                method.writeState(json);
+            }
+        }
+        json.endArray();
+    }
+}
@@ -0,0 +1,25 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+// Writes the state of game components into a reusable StateBuffer. Implementations
+// keep their scratch state per instance, so a codec is used from one thread at a time.
+public interface StateCodec {
+    void writeCard(Card card, StateBuffer out);
+
+    void writeGrid(Grid grid, StateBuffer out);
+
+    void writePile(Pile pile, StateBuffer out);
+
+    void writePattern(ActivationPattern pattern, StateBuffer out);
+
+    void writeScoring(ScoringMethod method, StateBuffer out);
+
+    // the whole table: game fields, every player's grid and scoring, both piles
+    void writeGame(Game game, StateBuffer out);
+
+    // clears the buffer and writes the game, ready to be sent
+    default StateBuffer encode(Game game, StateBuffer out) {
+        out.clear();
+        writeGame(game, out);
+        return out;
+    }
+}
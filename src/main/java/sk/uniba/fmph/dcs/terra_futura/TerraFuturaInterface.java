@@ -9,7 +9,7 @@ public interface TerraFuturaInterface {
 
     boolean discardLastCardFromDeck(int playerId, Deck deck);
 
-    void activateCard(
+    boolean activateCard(
             int playerId,
             GridPosition card,
             List<Pair<Resource, GridPosition>> inputs,
@@ -20,7 +20,7 @@ public interface TerraFuturaInterface {
     );
 
 
-    void selectReward(int playerId, Resource resource);
+    boolean selectReward(int playerId, Resource resource);
 
     boolean turnFinished(int playerId);
 
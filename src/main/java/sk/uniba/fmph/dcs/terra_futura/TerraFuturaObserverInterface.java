@@ -3,5 +3,13 @@ package sk.uniba.fmph.dcs.terra_futura;
 public interface TerraFuturaObserverInterface {
 
     void notify(String gameState);
+
+    // an update shared by every observer plus this observer's personal part (null for
+    // spectators). The shared string is the same instance for everyone and is never
+    // copied; the personal part only restates the update from this player's seat, so
+    // observers that do not override this just get the shared string.
+    default void notifyView(String sharedState, String personalState) {
+        notify(sharedState);
+    }
 }
 
@@ -7,28 +7,33 @@ public class TransformationFixed implements Effect{
     private final List<Resource> to;
     private final int pollution;
 
-
+    // compiled once; matching ignores the order of resources
+    private final long fromSignature;
+    private final long toSignature;
+    private final List<EffectOption> options;
 
     public TransformationFixed(List<Resource> from, List<Resource> to, int pollution) {
         this.from = from;
         this.to = to;
         this.pollution = pollution;
+        this.fromSignature = ResourceSignature.compile(from);
+        this.toSignature = ResourceSignature.compile(to);
+        this.options = List.of(EffectOption.exact(fromSignature, toSignature, pollution));
     }
 
     @Override
     public boolean check(List<Resource> input, List<Resource> output, int pollution) {
+        return check(ResourceSignature.of(input), ResourceSignature.of(output), pollution);
+    }
 
-        if (!input.equals(from) ) {
-            return false;
-        }
-        if (!output.equals(to) ) {
-            return false;
-        }
-        if (this.pollution != pollution) {
-            return false;
-        }
-
-        return true;
+    @Override
+    public boolean check(long input, long output, int pollution) {
+        return input == fromSignature && output == toSignature && this.pollution == pollution;
+    }
+
+    @Override
+    public List<EffectOption> options() {
+        return options;
     }
 
     @Override
@@ -36,13 +41,18 @@ public class TransformationFixed implements Effect{
         return false;
     }
 
+    @Override
+    public void writeState(JsonWriter out) {
+        out.beginObject().name("type").value("TransformationFixed");
+        out.name("from");
+        JsonWriter.writeResources(out, from);
+        out.name("to");
+        JsonWriter.writeResources(out, to);
+        out.name("pollution").value(pollution).endObject();
+    }
+
     @Override
     public String state() {
-        return "{ " +
-                "\"type\": \"TransformationFixed\", " +
-                "\"from\": " + from.toString() + ", " +
-                "\"to\": " + to.toString() + ", " +
-                "\"pollution\": " + pollution +
-                " }";
+        return JsonWriter.render(this::writeState);
     }
 }
@@ -0,0 +1,274 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+// Make/unmake log for game commands. Before an object is changed, its previous state
+// is appended to reusable primitive stacks (plus one object stack for the references
+// needed to put things back), so a search can revert a move exactly with undoTo(mark)
+// instead of copying the game. Nothing is allocated once the stacks have grown.
+// Not thread safe; one journal per game.
+public final class UndoJournal {
+    private static final byte GAME = 0;
+    private static final byte CARD = 1;
+    private static final byte GRID_CELL = 2;
+    private static final byte GRID_BITS = 3;
+    private static final byte GRID_PATTERN = 4;
+    private static final byte PILE_TAKE = 5;
+    private static final byte PILE = 6;
+    private static final byte PATTERN = 7;
+    private static final byte SCORING = 8;
+    private static final byte PILE_DISCARD = 9;
+    private static final byte REWARD = 10;
+
+    // one record per entry: kind, where its ints start, where its references start
+    private byte[] kinds = new byte[64];
+    private int[] intStarts = new int[64];
+    private int[] refStarts = new int[64];
+    private int entries = 0;
+
+    private int[] ints = new int[512];
+    private int intCount = 0;
+    private Object[] refs = new Object[256];
+    private int refCount = 0;
+
+    private Card[] displayScratch = new Card[16];
+    private Card[] deckScratch = new Card[16];
+    private Card[] discardScratch = new Card[16];
+
+    // position to come back to with undoTo
+    public int mark() {
+        return entries;
+    }
+
+    public int size() {
+        return entries;
+    }
+
+    public boolean isEmpty() {
+        return entries == 0;
+    }
+
+    // reverts every change recorded after the mark, newest first
+    public void undoTo(int mark) {
+        checkMark(mark);
+        for (int i = entries - 1; i >= mark; i--) {
+            undo(kinds[i], intStarts[i], refStarts[i]);
+        }
+        shrinkTo(mark);
+    }
+
+    // keeps the changes made after the mark and forgets how to revert them
+    public void discardTo(int mark) {
+        checkMark(mark);
+        shrinkTo(mark);
+    }
+
+    public void clear() {
+        shrinkTo(0);
+    }
+
+    private void checkMark(int mark) {
+        if (mark < 0 || mark > entries) {
+            throw new IllegalArgumentException("Invalid mark " + mark);
+        }
+    }
+
+    private void shrinkTo(int mark) {
+        if (mark == entries) return;
+        Arrays.fill(refs, refStarts[mark], refCount, null);  // do not keep cards alive
+        refCount = refStarts[mark];
+        intCount = intStarts[mark];
+        entries = mark;
+    }
+
+    public void game(Game game) {
+        begin(GAME, 4, 1);
+        refs[refCount++] = game;
+        ints[intCount++] = game.state.ordinal();
+        ints[intCount++] = game.onTurn;
+        ints[intCount++] = game.startingPlayer;
+        ints[intCount++] = game.turnNumber;
+    }
+
+    // resources and pollution of the card
+    public void card(Card card) {
+        if (card == null) return;
+        begin(CARD, ResourceCounts.SIZE + 1, 1);
+        refs[refCount++] = card;
+        intCount = card.write(ints, intCount);
+    }
+
+    // the card in the cell together with the grid masks
+    public void gridCell(Grid grid, int cell) {
+        begin(GRID_CELL, 1 + GridBits.STATE_INTS, 2);
+        refs[refCount++] = grid;
+        refs[refCount++] = grid.cardAt(cell);
+        ints[intCount++] = cell;
+        intCount = grid.bits().write(ints, intCount);
+    }
+
+    // activation budgets, activated cells and pattern mask
+    public void gridBits(Grid grid) {
+        begin(GRID_BITS, GridBits.STATE_INTS, 1);
+        refs[refCount++] = grid;
+        intCount = grid.bits().write(ints, intCount);
+    }
+
+    // the activation pattern list; the grid replaces it rather than changing it
+    public void gridPattern(Grid grid) {
+        begin(GRID_PATTERN, 0, 2);
+        refs[refCount++] = grid;
+        refs[refCount++] = grid.activationPattern();
+    }
+
+    // a card taken from the display at the index, and the deck size before the refill
+    public void pileTake(Pile pile, int index, Card card) {
+        begin(PILE_TAKE, 2, 2);
+        refs[refCount++] = pile;
+        refs[refCount++] = card;
+        ints[intCount++] = index;
+        ints[intCount++] = pile.deckSize();
+    }
+
+    // the card discarded from the display, and the deck size before the refill
+    public void pileDiscard(Pile pile) {
+        begin(PILE_DISCARD, 1, 1);
+        refs[refCount++] = pile;
+        ints[intCount++] = pile.deckSize();
+    }
+
+    // the whole pile, for changes that may refill or reorder it
+    public void pile(Pile pile) {
+        List<Card> display = pile.getDisplayCards();
+        List<Card> discarded = pile.getDiscardedCards();
+        int deckSize = pile.deckSize();
+        begin(PILE, 3, 1 + display.size() + deckSize + discarded.size());
+        refs[refCount++] = pile;
+        ints[intCount++] = display.size();
+        ints[intCount++] = deckSize;
+        ints[intCount++] = discarded.size();
+        for (int i = 0; i < display.size(); i++) {
+            refs[refCount++] = display.get(i);
+        }
+        for (Iterator<Card> it = pile.deckCards(); it.hasNext(); ) {
+            refs[refCount++] = it.next();
+        }
+        for (int i = 0; i < discarded.size(); i++) {
+            refs[refCount++] = discarded.get(i);
+        }
+    }
+
+    public void pattern(ActivationPattern pattern) {
+        begin(PATTERN, 1, 1);
+        refs[refCount++] = pattern;
+        ints[intCount++] = pattern.isSelected() ? 1 : 0;
+    }
+
+    public void scoring(ScoringMethod method) {
+        begin(SCORING, 0, 2);
+        refs[refCount++] = method;
+        refs[refCount++] = method.calculatedTotal;
+    }
+
+    // the pending assistance reward: who chooses, onto which card, and the options
+    public void reward(SelectReward reward) {
+        begin(REWARD, 2, 2);
+        refs[refCount++] = reward;
+        refs[refCount++] = reward.card();
+        ints[intCount++] = reward.playerId();
+        ints[intCount++] = reward.options();
+    }
+
+    private void begin(byte kind, int intsNeeded, int refsNeeded) {
+        if (entries == kinds.length) {
+            int capacity = entries * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            intStarts = Arrays.copyOf(intStarts, capacity);
+            refStarts = Arrays.copyOf(refStarts, capacity);
+        }
+        if (intCount + intsNeeded > ints.length) {
+            ints = Arrays.copyOf(ints, Math.max(ints.length * 2, intCount + intsNeeded));
+        }
+        if (refCount + refsNeeded > refs.length) {
+            refs = Arrays.copyOf(refs, Math.max(refs.length * 2, refCount + refsNeeded));
+        }
+        kinds[entries] = kind;
+        intStarts[entries] = intCount;
+        refStarts[entries] = refCount;
+        entries++;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void undo(byte kind, int at, int ref) {
+        switch (kind) {
+            case GAME: {
+                Game game = (Game) refs[ref];
+                game.state = GameState.values()[ints[at]];
+                game.onTurn = ints[at + 1];
+                game.startingPlayer = ints[at + 2];
+                game.turnNumber = ints[at + 3];
+                game.getChangeTracker().requestResync();
+                break;
+            }
+            case CARD:
+                ((Card) refs[ref]).read(ints, at);
+                break;
+            case GRID_CELL: {
+                Grid grid = (Grid) refs[ref];
+                grid.restoreCard(ints[at], (Card) refs[ref + 1]);
+                grid.bits().read(ints, at + 1);
+                break;
+            }
+            case GRID_BITS:
+                ((Grid) refs[ref]).bits().read(ints, at);
+                break;
+            case GRID_PATTERN:
+                ((Grid) refs[ref]).restoreActivationPattern((List<GridPosition>) refs[ref + 1]);
+                break;
+            case PILE_TAKE:
+                ((Pile) refs[ref]).returnCard(ints[at], (Card) refs[ref + 1], ints[at + 1]);
+                break;
+            case PILE_DISCARD:
+                ((Pile) refs[ref]).returnDiscarded(ints[at]);
+                break;
+            case PILE: {
+                int displayCount = ints[at];
+                int deckCount = ints[at + 1];
+                int discardCount = ints[at + 2];
+                if (displayScratch.length < displayCount) displayScratch = new Card[displayCount];
+                if (deckScratch.length < deckCount) deckScratch = new Card[deckCount];
+                if (discardScratch.length < discardCount) discardScratch = new Card[discardCount];
+                int from = ref + 1;
+                for (int i = 0; i < displayCount; i++) {
+                    displayScratch[i] = (Card) refs[from++];
+                }
+                for (int i = 0; i < deckCount; i++) {
+                    deckScratch[i] = (Card) refs[from++];
+                }
+                for (int i = 0; i < discardCount; i++) {
+                    discardScratch[i] = (Card) refs[from++];
+                }
+                ((Pile) refs[ref]).restore(displayScratch, displayCount, deckScratch, deckCount,
+                        discardScratch, discardCount);
+                Arrays.fill(displayScratch, 0, displayCount, null);
+                Arrays.fill(deckScratch, 0, deckCount, null);
+                Arrays.fill(discardScratch, 0, discardCount, null);
+                break;
+            }
+            case PATTERN:
+                ((ActivationPattern) refs[ref]).restoreSelected(ints[at] != 0);
+                break;
+            case SCORING:
+                ((ScoringMethod) refs[ref]).calculatedTotal = (Optional<Points>) refs[ref + 1];
+                break;
+            case REWARD:
+                ((SelectReward) refs[ref]).restore(ints[at], (Card) refs[ref + 1], ints[at + 1]);
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal entry " + kind);
+        }
+    }
+}
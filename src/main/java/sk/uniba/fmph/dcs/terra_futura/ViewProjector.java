@@ -0,0 +1,48 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+// Splits what observers receive into one public part, built once per change, and a
+// small personal part per player, delivered side by side through notifyView. The public
+// part is the StateChangeTracker output: it carries grids, scoring and the visible pile
+// cards, while a pile's deck is only ever published as hidden_count. No player holds
+// hidden information beyond that yet, so the personal part filters nothing: it says who
+// is looking and whether it is their turn. It is cached per seat, so a change costs
+// O(state + players) however many players and spectators are listening.
+public final class ViewProjector {
+    private Player[] players = new Player[0];
+    // [seat][1 if on turn]
+    private String[][] personal = new String[0][2];
+    private int onTurn = -1;
+
+    // reads the seats and whose turn it is; call once per change before personal()
+    public void update(Game game) {
+        if (players != game.players) {
+            players = game.players;
+            personal = new String[players.length][2];
+        }
+        onTurn = game.onTurn;
+    }
+
+    // the personal part for an observer, or null when the id is not a player (a spectator)
+    public String personal(int viewerId) {
+        for (int seat = 0; seat < players.length; seat++) {
+            if (players[seat].id == viewerId) {
+                int turn = seat == onTurn ? 1 : 0;
+                String view = personal[seat][turn];
+                if (view == null) {
+                    view = render(viewerId, seat, turn == 1);
+                    personal[seat][turn] = view;
+                }
+                return view;
+            }
+        }
+        return null;
+    }
+
+    private static String render(int viewerId, int seat, boolean onTurn) {
+        return JsonWriter.render(out -> out.beginObject()
+                .name("viewer").value(viewerId)
+                .name("seat").value(seat)
+                .name("yourTurn").value(onTurn)
+                .endObject());
+    }
+}
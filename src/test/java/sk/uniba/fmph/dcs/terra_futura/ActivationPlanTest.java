@@ -0,0 +1,128 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ActivationPlanTest {
+
+    private static final GridPosition CARD = new GridPosition(1, 1);
+    private static final GridPosition SOURCE = new GridPosition(0, 1);
+
+    private final ProcessAction processAction = new ProcessAction();
+    private Grid grid;
+    private Card card;
+    private Card source;
+
+    @Before
+    public void setUp() {
+        card = new Card(1, new TransformationFixed(List.of(Resource.Red), List.of(Resource.Gear), 0),
+                new TransformationFixed(List.of(Resource.Red, Resource.Bulb), List.of(Resource.Car), 1));
+        card.putResources(List.of(Resource.Red));
+        source = new Card(0);
+        source.putResources(List.of(Resource.Bulb));
+        grid = new Grid();
+        grid.putCard(CARD, card);
+        grid.putCard(SOURCE, source);
+    }
+
+    private ActivationPlan lowerEffect() {
+        return processAction.validate(card, grid,
+                List.of(Pair.of(Resource.Red, CARD), Pair.of(Resource.Bulb, SOURCE)),
+                List.of(Pair.of(Resource.Car, CARD)), List.of(CARD));
+    }
+
+    @Test
+    public void testValidateHasNoSideEffects() {
+        ActivationPlan plan = lowerEffect();
+
+        assertTrue(plan.isValid());
+        assertTrue(plan.isCurrent());
+        assertEquals(GridBits.bit(1, 1) | GridBits.bit(0, 1), plan.touchedCells());
+        assertEquals(1, plan.inputCount(GridBits.cell(SOURCE), Resource.Bulb));
+        assertEquals(1, plan.outputCount(GridBits.cell(CARD), Resource.Car));
+        assertEquals(1, plan.pollution(GridBits.cell(CARD)));
+        assertEquals(1, card.getResourceCount(Resource.Red));
+        assertEquals(1, source.getResourceCount(Resource.Bulb));
+        assertEquals(0, card.pollutionUsed());
+    }
+
+    @Test
+    public void testCommitAppliesPlan() {
+        processAction.commit(lowerEffect());
+
+        assertEquals(0, card.getResourceCount(Resource.Red));
+        assertEquals(1, card.getResourceCount(Resource.Car));
+        assertEquals(1, card.pollutionUsed());
+        assertEquals(0, source.getResourceCount(Resource.Bulb));
+    }
+
+    @Test
+    public void testInvalidPlan() {
+        ActivationPlan plan = processAction.validate(card, grid,
+                List.of(Pair.of(Resource.Red, CARD)), List.of(Pair.of(Resource.Car, CARD)), List.of());
+
+        assertFalse(plan.isValid());
+        assertFalse(plan.isCurrent());
+        assertThrows(() -> processAction.commit(plan));
+    }
+
+    @Test
+    public void testStalePlanIsNotCommitted() {
+        ActivationPlan first = lowerEffect();
+        ActivationPlan second = lowerEffect();
+        processAction.commit(first);
+
+        assertFalse(second.isCurrent());
+        assertThrows(() -> processAction.commit(second));
+        assertThrows(() -> processAction.commit(first));
+        assertEquals(1, card.getResourceCount(Resource.Car));
+    }
+
+    @Test
+    public void testPlanNoticesReplacedCard() {
+        ActivationPlan plan = lowerEffect();
+        Card other = new Card(0);
+        other.putResources(List.of(Resource.Bulb));
+        grid.putCard(SOURCE, other);
+
+        assertFalse(plan.isCurrent());
+    }
+
+    @Test
+    public void testPlanNoticesActivatedCardLeavingGrid() {
+        // the plan only touches the source, so the activated card's cell is checked on its own
+        source.putResources(List.of(Resource.Red));
+        ActivationPlan plan = processAction.validate(card, grid,
+                List.of(Pair.of(Resource.Red, SOURCE)), List.of(Pair.of(Resource.Gear, SOURCE)), List.of());
+        assertTrue(plan.isCurrent());
+
+        grid.putCard(CARD, new Card(0));
+
+        assertFalse(plan.isCurrent());
+        assertThrows(() -> processAction.commit(plan));
+        assertEquals(1, source.getResourceCount(Resource.Red));
+    }
+
+    @Test
+    public void testActivateCardUsesEitherEffect() {
+        assertTrue(processAction.activateCard(card, grid,
+                List.of(Pair.of(Resource.Red, CARD)), List.of(Pair.of(Resource.Gear, SOURCE)), List.of()));
+
+        assertEquals(1, source.getResourceCount(Resource.Gear));
+        assertFalse(processAction.activateCard(card, grid,
+                List.of(Pair.of(Resource.Red, CARD)), List.of(Pair.of(Resource.Gear, SOURCE)), List.of()));
+    }
+
+    private static void assertThrows(Runnable action) {
+        try {
+            action.run();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AssistedActivationTest {
+
+    private static class AssistanceEffect implements Effect {
+        public boolean check(List<Resource> input, List<Resource> output, int pollution) { return false; }
+        public boolean hasAssistance() { return true; }
+        public String state() { return "{\"type\":\"Assistance\"}"; }
+    }
+
+    private static final GridPosition CARD = new GridPosition(0, 0);
+    private static final GridPosition SOURCE = new GridPosition(2, 1);
+
+    private final ProcessActionAssistance assistance = new ProcessActionAssistance();
+    private Grid grid;
+    private Card card;
+    private Card source;
+    private Card assisting;
+
+    @Before
+    public void setUp() {
+        card = new Card(2, new TransformationFixed(List.of(Resource.Green, Resource.Money),
+                List.of(Resource.Car), 1), null);
+        card.putResources(List.of(Resource.Green, Resource.Green));
+        source = new Card(0);
+        source.putResources(List.of(Resource.Money, Resource.Money));
+        grid = new Grid();
+        grid.putCard(CARD, card);
+        grid.putCard(SOURCE, source);
+        assisting = new Card(0, new AssistanceEffect(), null);
+    }
+
+    private boolean activate(List<Pair<Resource, GridPosition>> inputs,
+                             List<Pair<Resource, GridPosition>> outputs,
+                             List<GridPosition> pollution) {
+        return assistance.activateCard(card, grid, 2, assisting, inputs, outputs, pollution);
+    }
+
+    private static List<Pair<Resource, GridPosition>> paid() {
+        return List.of(Pair.of(Resource.Green, CARD), Pair.of(Resource.Money, SOURCE));
+    }
+
+    @Test
+    public void testCommitsPerCell() {
+        assertTrue(activate(paid(), List.of(Pair.of(Resource.Car, CARD)), List.of(CARD)));
+
+        assertEquals(1, card.getResourceCount(Resource.Green));
+        assertEquals(1, card.getResourceCount(Resource.Car));
+        assertEquals(1, card.pollutionUsed());
+        assertEquals(1, source.getResourceCount(Resource.Money));
+    }
+
+    @Test
+    public void testRejectionLeavesCardsUntouched() {
+        // the totals match the effect, but the source has no pollution spaces
+        assertFalse(activate(paid(), List.of(Pair.of(Resource.Car, CARD)), List.of(SOURCE)));
+
+        assertEquals(2, card.getResourceCount(Resource.Green));
+        assertEquals(0, card.getResourceCount(Resource.Car));
+        assertEquals(0, source.pollutionUsed());
+        assertEquals(2, source.getResourceCount(Resource.Money));
+    }
+
+    @Test
+    public void testTotalsMustMatchEffect() {
+        assertFalse(activate(List.of(Pair.of(Resource.Green, CARD)),
+                List.of(Pair.of(Resource.Car, CARD)), List.of(CARD)));
+        assertFalse(activate(List.of(Pair.of(Resource.Green, CARD), Pair.of(Resource.Money, SOURCE),
+                Pair.of(Resource.Money, SOURCE)), List.of(Pair.of(Resource.Car, CARD)), List.of(CARD)));
+        assertEquals(2, source.getResourceCount(Resource.Money));
+    }
+
+    @Test
+    public void testCountersResetBetweenCalls() {
+        assertFalse(activate(List.of(Pair.of(Resource.Green, CARD), Pair.of(Resource.Green, CARD)),
+                List.of(Pair.of(Resource.Car, CARD)), List.of(CARD)));
+        assertTrue(activate(paid(), List.of(Pair.of(Resource.Car, CARD)), List.of(CARD)));
+        assertTrue(activate(paid(), List.of(Pair.of(Resource.Car, CARD)), List.of(CARD)));
+
+        assertEquals(0, card.getResourceCount(Resource.Green));
+        assertEquals(2, card.getResourceCount(Resource.Car));
+        assertEquals(2, card.pollutionUsed());
+        assertEquals(0, source.getResourceCount(Resource.Money));
+    }
+
+    @Test
+    public void testRejectsPositionsOutsideGrid() {
+        assertFalse(activate(List.of(Pair.of(Resource.Green, new GridPosition(3, 0)),
+                Pair.of(Resource.Money, SOURCE)),
+                List.of(Pair.of(Resource.Car, CARD)), List.of(CARD)));
+        assertFalse(activate(paid(), List.of(Pair.of(Resource.Car, CARD)), List.of(new GridPosition(-1, 0))));
+        assertEquals(2, card.getResourceCount(Resource.Green));
+    }
+
+    @Test
+    public void testRejectsEmptyCellsAndForeignCards() {
+        assertFalse(activate(List.of(Pair.of(Resource.Green, new GridPosition(1, 1)),
+                Pair.of(Resource.Money, SOURCE)),
+                List.of(Pair.of(Resource.Car, CARD)), List.of(CARD)));
+        assertFalse(assistance.activateCard(new Card(), grid, 2, assisting,
+                List.of(), List.of(), List.of()));
+        assertFalse(assistance.activateCard(card, grid, 2, new Card(), paid(),
+                List.of(Pair.of(Resource.Car, CARD)), List.of(CARD)));
+    }
+
+    @Test
+    public void testPollutionNeedsFreeSpaces() {
+        card.addPollution(2);
+
+        assertFalse(activate(paid(), List.of(Pair.of(Resource.Car, CARD)), List.of(CARD)));
+        assertEquals(2, card.getResourceCount(Resource.Green));
+    }
+}
@@ -0,0 +1,287 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+class RecordingObserver implements TerraFuturaObserverInterface {
+    final List<String> received = new ArrayList<>();
+    final List<String> views = new ArrayList<>();
+
+    @Override
+    public void notify(String gameState) {
+        received.add(gameState);
+    }
+
+    @Override
+    public void notifyView(String sharedState, String personalState) {
+        received.add(sharedState);
+        views.add(personalState);
+    }
+}
+
+// runs the drain task only when asked to, so the queue can be filled first
+class ManualExecutor implements java.util.concurrent.Executor {
+    final List<Runnable> tasks = new ArrayList<>();
+
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+    }
+
+    void runAll() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+}
+
+public class AsyncObserverTest {
+
+    private RecordingObserver recording;
+    private ManualExecutor executor;
+
+    @Before
+    public void setUp() {
+        recording = new RecordingObserver();
+        executor = new ManualExecutor();
+    }
+
+    private AsyncObserver observer(int capacity, AsyncObserver.OverflowPolicy policy) {
+        AsyncObserver async = new AsyncObserver(recording, capacity, policy, executor);
+        async.notify("a");
+        async.notify("b");
+        async.notify("c");
+        return async;
+    }
+
+    @Test
+    public void testDeliversInOrder() {
+        AsyncObserver async = observer(10, AsyncObserver.OverflowPolicy.DROP_NEWEST);
+        assertEquals(3, async.queueDepth());
+        assertEquals(1, executor.tasks.size());
+
+        executor.runAll();
+
+        assertEquals(List.of("a", "b", "c"), recording.received);
+        ObserverMetrics metrics = async.metrics();
+        assertEquals(0, metrics.queueDepth());
+        assertEquals(3, metrics.delivered());
+        assertEquals(0, metrics.dropped());
+    }
+
+    @Test
+    public void testViewPartsStayApart() {
+        AsyncObserver async = new AsyncObserver(recording, 10, AsyncObserver.OverflowPolicy.DROP_OLDEST, executor);
+        String shared = "{\"type\":\"patch\"}";
+        async.notifyView(shared, "{\"viewer\":1}");
+        async.notifyView(shared, null);
+        assertTrue(recording.received.isEmpty());
+
+        executor.runAll();
+
+        assertSame(shared, recording.received.get(0));
+        assertSame(shared, recording.received.get(1));
+        assertEquals(List.of("{\"viewer\":1}"), recording.views);
+    }
+
+    @Test
+    public void testDropNewest() {
+        AsyncObserver async = observer(2, AsyncObserver.OverflowPolicy.DROP_NEWEST);
+        executor.runAll();
+
+        assertEquals(List.of("a", "b"), recording.received);
+        assertEquals(1, async.metrics().dropped());
+    }
+
+    @Test
+    public void testDropOldest() {
+        AsyncObserver async = observer(2, AsyncObserver.OverflowPolicy.DROP_OLDEST);
+        executor.runAll();
+
+        assertEquals(List.of("b", "c"), recording.received);
+        assertEquals(1, async.metrics().dropped());
+    }
+
+    @Test
+    public void testCoalesceKeepsLatest() {
+        AsyncObserver async = observer(10, AsyncObserver.OverflowPolicy.COALESCE);
+        executor.runAll();
+
+        assertEquals(List.of("c"), recording.received);
+        assertEquals(2, async.metrics().coalesced());
+        assertEquals(1, async.metrics().delivered());
+    }
+
+    @Test
+    public void testFailingObserverDoesNotStopDelivery() {
+        AsyncObserver async = new AsyncObserver(state -> {
+            if (state.equals("bad")) {
+                throw new IllegalStateException("client gone");
+            }
+            recording.notify(state);
+        }, 10, AsyncObserver.OverflowPolicy.DROP_NEWEST, executor);
+        async.notify("bad");
+        async.notify("good");
+        executor.runAll();
+
+        assertEquals(List.of("good"), recording.received);
+        assertEquals(1, async.metrics().failed());
+        assertEquals(1, async.metrics().delivered());
+    }
+
+    @Test
+    public void testErrorInObserverDoesNotStopDelivery() {
+        AsyncObserver async = new AsyncObserver(state -> {
+            if (state.equals("bad")) {
+                throw new AssertionError("client bug");
+            }
+            recording.notify(state);
+        }, 10, AsyncObserver.OverflowPolicy.DROP_NEWEST, executor);
+        async.notify("bad");
+        executor.runAll();
+        async.notify("good");
+        executor.runAll();
+
+        assertEquals(List.of("good"), recording.received);
+        assertEquals(1, async.metrics().failed());
+        assertEquals(0, async.queueDepth());
+    }
+
+    @Test
+    public void testRejectedDrainIsRetriedAfterResync() {
+        boolean[] reject = {true};
+        AsyncObserver async = new AsyncObserver(recording, 10, AsyncObserver.OverflowPolicy.DROP_NEWEST, task -> {
+            if (reject[0]) {
+                throw new java.util.concurrent.RejectedExecutionException("shut down");
+            }
+            executor.execute(task);
+        });
+        async.notifyView("p1", null, true);
+
+        assertTrue(async.needsResync());
+        assertEquals(1, async.metrics().dropped());
+        reject[0] = false;
+        async.notifyView("p2", null, true);
+        async.notifyView("s2", null, false);
+        executor.runAll();
+
+        assertEquals(List.of("s2"), recording.received);
+        assertFalse(async.needsResync());
+    }
+
+    @Test
+    public void testSlowObserverDoesNotBlockCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        TerraFuturaObserverInterface slow = state -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        };
+        FakeObserver fast = new FakeObserver();
+        GameObserver gameObserver = GameObserver.async(Map.of(1, slow, 2, fast), 4, AsyncObserver.OverflowPolicy.DROP_OLDEST);
+
+        gameObserver.broadcast("s1");
+        gameObserver.broadcast("s2");
+
+        assertEquals(2, done.getCount());  // broadcast returned while the slow client is still busy
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Map<Integer, ObserverMetrics> metrics = gameObserver.metrics();
+        assertEquals(2, metrics.size());
+        assertTrue(metrics.get(1).maxLatencyNanos() > 0);
+    }
+
+    @Test
+    public void testLaggingObserverStaysConsistent() {
+        for (AsyncObserver.OverflowPolicy policy : AsyncObserver.OverflowPolicy.values()) {
+            recording.received.clear();
+            AsyncObserver async = new AsyncObserver(recording, 2, policy, executor);
+            Player[] players = {
+                    new Player(1, new Grid(), null, null, null, null),
+                    new Player(2, new Grid(), null, null, null, null)
+            };
+            ArrayList<Card> cards = new ArrayList<>();
+            for (int i = 0; i < 10; i++) cards.add(new Card(i % 4));
+            Pile pile = new Pile(cards, new ArrayList<>());
+            Pile other = new Pile(new ArrayList<>(), new ArrayList<>());
+            Game game = new Game(players, pile, other, null, new GameObserver(Map.of(1, async)), null, null, null);
+
+            // the client falls behind by several updates
+            for (int turn = 0; turn < 3; turn++) {
+                for (Player player : players) {
+                    assertTrue(game.takeCard(player.id, source(0), new GridPosition(turn, 1)));
+                    assertTrue(game.turnFinished(player.id));
+                }
+            }
+            executor.runAll();
+
+            JSONObject client = new JSONObject();
+            for (String message : recording.received) {
+                apply(client, new JSONObject(message));
+            }
+            assertTrue(policy.name(), async.metrics().resyncs() > 0);
+            assertFalse(async.needsResync());
+            JSONObject state = client.getJSONObject("state");
+            for (Player player : players) {
+                assertEquals(policy.name(), new JSONObject(player.grid.state()).toString(),
+                        state.getJSONObject("players").getJSONObject(Integer.toString(player.id))
+                                .getJSONObject("grid").toString());
+            }
+            assertEquals(new JSONObject(pile.state()).toString(),
+                    state.getJSONObject("piles").getJSONObject("I").toString());
+        }
+    }
+
+    private static CardSource source(int index) {
+        CardSource source = new CardSource();
+        source.deck = Deck.I;
+        source.index = index;
+        return source;
+    }
+
+    // what a client does with each message: keep a snapshot, apply a patch to its base
+    private static void apply(JSONObject client, JSONObject message) {
+        if (message.getString("type").equals("snapshot")) {
+            client.put("state", message.getJSONObject("state"));
+        } else {
+            assertEquals(client.getLong("version"), message.getLong("base"));
+            JSONArray ops = message.getJSONArray("ops");
+            for (int i = 0; i < ops.length(); i++) {
+                JSONObject op = ops.getJSONObject(i);
+                String[] path = op.getString("path").substring(1).split("/");
+                Object parent = client.getJSONObject("state");
+                for (int j = 0; j < path.length - 1; j++) {
+                    parent = parent instanceof JSONArray array
+                            ? array.get(Integer.parseInt(path[j])) : ((JSONObject) parent).get(path[j]);
+                }
+                String last = path[path.length - 1];
+                if (parent instanceof JSONArray array) {
+                    if (op.getString("op").equals("remove")) {
+                        array.remove(Integer.parseInt(last));
+                    } else {
+                        array.put(Integer.parseInt(last), op.get("value"));
+                    }
+                } else if (op.getString("op").equals("remove")) {
+                    ((JSONObject) parent).remove(last);
+                } else {
+                    ((JSONObject) parent).put(last, op.get("value"));
+                }
+            }
+        }
+        client.put("version", message.getLong("version"));
+    }
+}
@@ -0,0 +1,77 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class CardCatalogueTest {
+
+    private CardCatalogue catalogue;
+
+    @Before
+    public void setUp() throws IOException {
+        catalogue = CardCatalogue.fromResource("/test-cards.json");
+    }
+
+    @Test
+    public void loadsEveryCopy() {
+        assertEquals(5, catalogue.deck(Deck.I).size());
+        assertEquals(2, catalogue.deck(Deck.II).size());
+        assertEquals(7, catalogue.size());
+        assertEquals(3, catalogue.definitionCount());
+    }
+
+    @Test
+    public void copiesShareDefinitionAndEqualEffectsAreInterned() {
+        List<CardDefinition> deckI = catalogue.deck(Deck.I);
+        assertSame(deckI.get(0), deckI.get(2));
+        assertNotSame(deckI.get(0), deckI.get(3));
+        assertSame(deckI.get(0).upperEffect(), deckI.get(3).upperEffect());
+        // TransformationFixed, ArbitraryBasic and the EffectOr made of them
+        assertEquals(3, catalogue.effectCount());
+    }
+
+    @Test
+    public void cardsKeepTheirOwnResources() {
+        CardDefinition definition = catalogue.deck(Deck.I).get(3);
+        Card first = definition.newCard();
+        Card second = definition.newCard();
+
+        first.putResources(List.of(Resource.Green));
+        first.addPollution(2);
+
+        assertEquals(0, second.getResourceCount(Resource.Green));
+        assertTrue(second.canAddPollution(2));
+        assertSame(definition, first.getDefinition());
+        assertFalse(first.checkLower(List.of(Resource.Red, Resource.Bulb), List.of(Resource.Money), 1));
+        assertTrue(second.checkLower(List.of(Resource.Red, Resource.Bulb), List.of(Resource.Money), 1));
+    }
+
+    @Test
+    public void factoryDealsFromCatalogue() {
+        List<CatalogueGameFactory.ScoringMethodTemplate> scoring = List.of(
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Green), new Points(1)),
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Car), new Points(2)));
+        CatalogueGameFactory factory = new CatalogueGameFactory(catalogue, scoring, 2);
+        Game game = factory.newGame(new SplittableRandom(1)).game;
+
+        assertEquals(7, factory.catalogueSize());
+        Card dealt = game.getPile(Deck.II).getDisplayCards().get(0);
+        assertSame(catalogue.deck(Deck.II).get(0), dealt.getDefinition());
+    }
+
+    @Test
+    public void rejectsUnknownEffects() {
+        try {
+            CardCatalogue.parse("{\"cards\":[{\"deck\":\"I\",\"pollution\":0,\"upper\":{\"type\":\"Magic\"}}]}");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+}
@@ -16,6 +16,49 @@ class CardTest {
         assertFalse(card.canGetResources(List.of(Resource.Green, Resource.Green, Resource.Green)));
     }
 
+    @Test
+    void testPutResourcesAddsToExisting() {
+        Card card = new Card();
+        card.putResources(List.of(Resource.Green, Resource.Red));
+        card.putResources(List.of(Resource.Green));
+
+        assertEquals(2, card.getResourceCount(Resource.Green));
+        assertEquals(1, card.getResourceCount(Resource.Red));
+    }
+
+    @Test
+    void testPutThenGetRestoresCard() {
+        Card card = new Card(1);
+        card.putResources(List.of(Resource.Bulb));
+        String before = card.state();
+
+        card.putResources(List.of(Resource.Car, Resource.Bulb));
+        card.getResources(List.of(Resource.Bulb, Resource.Car));
+
+        assertEquals(before, card.state());
+    }
+
+    @Test
+    void testPutResourcesRespectsCapacity() {
+        Card card = new Card();
+        List<Resource> full = new java.util.ArrayList<>();
+        for (int i = 0; i < Card.RESOURCE_CAPACITY; i++) full.add(Resource.Gear);
+        card.putResources(full);
+
+        assertFalse(card.canPutResources(List.of(Resource.Gear)));
+        assertTrue(card.canPutResources(List.of(Resource.Money)));
+        assertThrows(IllegalStateException.class, () -> card.putResources(List.of(Resource.Gear)));
+        assertEquals(Card.RESOURCE_CAPACITY, card.getResourceCount(Resource.Gear));
+    }
+
+    @Test
+    void testPollutionIsNotAResource() {
+        Card card = new Card(1);
+        assertFalse(card.canPutResources(List.of(Resource.Polution)));
+        assertFalse(card.canPutResources(java.util.Arrays.asList(Resource.Green, null)));
+        assertTrue(card.canPutResources(List.of()));
+    }
+
     @Test
     void testPutResourcesNullNotAllowed() {
         Card card = new Card();
@@ -1,5 +1,7 @@
 package sk.uniba.fmph.dcs.terra_futura;
 
+import org.json.JSONObject;
+
 import org.junit.jupiter.api.Test;
 import java.util.List;
 import static org.junit.jupiter.api.Assertions.*;
@@ -78,7 +80,7 @@ class EffectOrTest {
         EffectOr or = new EffectOr(first, second);
         String s = or.state();
 
-        assertTrue(s.contains("\"type\": \"EffectOr\""));
+        assertEquals("EffectOr", new JSONObject(s).getString("type"));
         assertTrue(s.contains(first.state()));
         assertTrue(s.contains(second.state()));
         assertTrue(s.contains("\"effects\""));
@@ -0,0 +1,327 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class EventLogTest {
+
+    private Path directory;
+    private CatalogueGameFactory factory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("event-log");
+        List<Supplier<Card>> deck = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            deck.add(() -> new Card(1));
+        }
+        factory = new CatalogueGameFactory(deck, deck, List.of(
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Green), new Points(1)),
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Car), new Points(2))), 2);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static class Recorder implements EventLog.EventHandler, TerraFuturaInterface {
+        final List<String> events = new ArrayList<>();
+        int gameId;
+
+        public void created(int gameId, long seed) { events.add("created " + gameId + " " + seed); }
+        public TerraFuturaInterface game(int gameId) { this.gameId = gameId; return this; }
+
+        public boolean takeCard(int playerId, CardSource source, GridPosition destination) {
+            events.add(gameId + " take " + playerId + " " + source.deck + " " + source.index + " " + destination);
+            return true;
+        }
+        public boolean discardLastCardFromDeck(int playerId, Deck deck) {
+            events.add(gameId + " discard " + playerId + " " + deck);
+            return true;
+        }
+        public boolean activateCard(int playerId, GridPosition card,
+                                    List<Pair<Resource, GridPosition>> inputs,
+                                    List<Pair<Resource, GridPosition>> outputs,
+                                    List<GridPosition> pollution,
+                                    Optional<Integer> otherPlayerId, Optional<GridPosition> otherCard) {
+            StringBuilder event = new StringBuilder(gameId + " activate " + playerId + " " + card);
+            for (Pair<Resource, GridPosition> p : inputs) event.append(" in ").append(p.first).append(p.second);
+            for (Pair<Resource, GridPosition> p : outputs) event.append(" out ").append(p.first).append(p.second);
+            event.append(" pollution ").append(pollution);
+            event.append(" ").append(otherPlayerId.orElse(-1)).append(" ").append(otherCard.orElse(null));
+            events.add(event.toString());
+            return true;
+        }
+        public boolean selectReward(int playerId, Resource resource) { events.add(gameId + " reward " + playerId + " " + resource); return true; }
+        public boolean turnFinished(int playerId) { events.add(gameId + " finished " + playerId); return true; }
+        public boolean selectActivationPattern(int playerId, int card) { events.add(gameId + " pattern " + playerId + " " + card); return true; }
+        public boolean selectScoring(int playerId, int card) { events.add(gameId + " scoring " + playerId + " " + card); return true; }
+    }
+
+    @Test
+    public void testRecordsRoundTrip() {
+        CardSource source = new CardSource();
+        source.deck = Deck.II;
+        source.index = 3;
+        try (EventLog log = new EventLog(directory)) {
+            log.created(7, -42L);
+            log.takeCard(7, 1, source, new GridPosition(2, 0));
+            log.activateCard(7, 1, new GridPosition(2, 0),
+                    List.of(Pair.of(Resource.Green, new GridPosition(1, 1))), List.of(Pair.of(Resource.Car, new GridPosition(2, 0))),
+                    List.of(new GridPosition(2, 0)), Optional.of(2), Optional.of(new GridPosition(0, 1)));
+            log.selectReward(7, 2, Resource.Money);
+            log.discardLastCardFromDeck(7, 1, Deck.I);
+            log.selectActivationPattern(7, 1, 1);
+            log.selectScoring(7, 1, 0);
+            log.turnFinished(7, 1).join();
+            assertEquals(8, log.records());
+        }
+
+        Recorder recorder = new Recorder();
+        assertEquals(8, EventLog.replay(directory, recorder));
+        assertEquals(List.of(
+                "created 7 -42",
+                "7 take 1 II 3 (2,0)",
+                "7 activate 1 (2,0) in Green(1,1) out Car(2,0) pollution [(2,0)] 2 (0,1)",
+                "7 reward 2 Money",
+                "7 discard 1 I",
+                "7 pattern 1 1",
+                "7 scoring 1 0",
+                "7 finished 1"), recorder.events);
+    }
+
+    @Test
+    public void testFailedForceFailsTheLog() {
+        try (EventLog log = new EventLog(directory, EventLog.DEFAULT_SEGMENT_SIZE, Duration.ZERO,
+                (target, from, length) -> {
+                    throw new UncheckedIOException(new IOException("disk gone"));
+                })) {
+            CompletableFuture<Void> first = log.turnFinished(1, 1);
+            try {
+                first.join();
+                fail();
+            } catch (CompletionException ex) {
+                assertTrue(ex.getCause() instanceof UncheckedIOException);
+            }
+            try {
+                log.turnFinished(1, 2);
+                fail();
+            } catch (IllegalStateException ex) {
+                assertTrue(ex.getCause() instanceof UncheckedIOException);
+            }
+        }
+    }
+
+    @Test
+    public void testTornRecordIsDroppedAndOverwritten() throws IOException {
+        try (EventLog log = new EventLog(directory)) {
+            for (int i = 0; i < 5; i++) {
+                log.turnFinished(1, i);
+            }
+        }
+        Path segment = directory.resolve("events-00000000.log");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            int recordSize = EventLog.RECORD_HEADER + 9;
+            channel.write(ByteBuffer.wrap(new byte[] {0x55}), 4 * recordSize + EventLog.RECORD_HEADER + 2);
+        }
+
+        try (EventLog log = new EventLog(directory)) {
+            log.turnFinished(1, 99).join();
+        }
+        Recorder recorder = new Recorder();
+        assertEquals(5, EventLog.replay(directory, recorder));
+        assertEquals("1 finished 3", recorder.events.get(3));
+        assertEquals("1 finished 99", recorder.events.get(4));
+    }
+
+    @Test
+    public void testRollsOverToNewSegments() throws IOException {
+        int segmentSize = 70_000;
+        int count = 12_000;
+        try (EventLog log = new EventLog(directory, segmentSize, Duration.ZERO)) {
+            CompletableFuture<Void> last = null;
+            for (int i = 0; i < count; i++) {
+                last = log.turnFinished(i % 10, i);
+            }
+            last.join();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(3, files.count());
+        }
+        Recorder recorder = new Recorder();
+        assertEquals(count, EventLog.replay(directory, recorder));
+        assertEquals("9 finished 11999", recorder.events.get(count - 1));
+    }
+
+    // plays the game through the server, choosing moves with the generator
+    private void playThroughServer(GameServer server, int gameId, SplittableRandom random) {
+        MoveGenerator generator = new MoveGenerator();
+        MoveBuffer moves = new MoveBuffer();
+        while (true) {
+            int[] move = server.submit(gameId, game -> {
+                if (game.state == GameState.Finish) return null;
+                int playerId = game.players[game.onTurn].id;
+                generator.generate(game, playerId, moves);
+                int index = random.nextInt(moves.size());
+                return new int[] {playerId, moves.type(index).ordinal(),
+                        moves.first(index), moves.second(index), moves.third(index)};
+            }).join();
+            if (move == null) return;
+            int playerId = move[0];
+            switch (MoveType.values()[move[1]]) {
+                case TakeCard:
+                    CardSource source = new CardSource();
+                    source.deck = Deck.values()[move[2]];
+                    source.index = move[3];
+                    assertTrue(server.takeCard(gameId, playerId, source,
+                            new GridPosition(move[4] / GridBits.SIZE, move[4] % GridBits.SIZE)).join());
+                    break;
+                case DiscardLastCard:
+                    assertTrue(server.discardLastCardFromDeck(gameId, playerId, Deck.values()[move[2]]).join());
+                    break;
+                case TurnFinished:
+                    assertTrue(server.turnFinished(gameId, playerId).join());
+                    break;
+                case SelectActivationPattern:
+                    assertTrue(server.selectActivationPattern(gameId, playerId, move[2]).join());
+                    break;
+                case SelectScoring:
+                    assertTrue(server.selectScoring(gameId, playerId, move[2]).join());
+                    break;
+                default:
+                    fail("Unexpected move " + MoveType.values()[move[1]]);
+            }
+        }
+    }
+
+    private Game deal(long seed) {
+        return factory.newGame(new SplittableRandom(seed)).game;
+    }
+
+    @Test
+    public void testRecoversGamesFromTheLog() {
+        SplittableRandom random = new SplittableRandom(8);
+        Game finished = deal(100);
+        Game running = deal(200);
+        try (EventLog log = new EventLog(directory);
+             GameServer server = new GameServer(Executors.newVirtualThreadPerTaskExecutor(), log)) {
+            server.host(1, 100, finished).join();
+            server.host(2, 200, running).join();
+            playThroughServer(server, 1, random);
+            for (int i = 0; i < 3; i++) {
+                server.turnFinished(2, 99).exceptionally(ex -> false).join();  // rejected, not logged
+            }
+            CardSource source = new CardSource();
+            source.deck = Deck.I;
+            source.index = 0;
+            assertTrue(server.takeCard(2, running.players[0].id, source, new GridPosition(1, 1)).join());
+        }
+        assertEquals(GameState.Finish, finished.state);
+
+        Map<Integer, Game> recovered = EventLog.recover(directory, this::deal);
+
+        assertEquals(2, recovered.size());
+        assertArrayEquals(new GameSnapshot(finished).capture(), new GameSnapshot(recovered.get(1)).capture());
+        assertArrayEquals(new GameSnapshot(running).capture(), new GameSnapshot(recovered.get(2)).capture());
+        assertEquals(GameState.ActivateCard, recovered.get(2).state);
+    }
+
+    @Test
+    public void testServerRecoversAndKeepsLogging() {
+        try (EventLog log = new EventLog(directory);
+             GameServer server = new GameServer(Executors.newVirtualThreadPerTaskExecutor(), log)) {
+            server.host(5, 55, deal(55)).join();
+            CardSource source = new CardSource();
+            source.deck = Deck.II;
+            source.index = 1;
+            server.takeCard(5, 1, source, new GridPosition(0, 0)).join();
+        }
+        try (EventLog log = new EventLog(directory);
+             GameServer server = new GameServer(Executors.newVirtualThreadPerTaskExecutor(), log)) {
+            assertEquals(1, server.recover(this::deal));
+            assertTrue(server.turnFinished(5, 1).join());
+            assertEquals(GameState.TakeCardNoCardDiscarded, (GameState) server.submit(5, game -> game.state).join());
+        }
+        Recorder recorder = new Recorder();
+        assertEquals(3, EventLog.replay(directory, recorder));
+        try (GameServer server = new GameServer()) {
+            server.recover(this::deal);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testRejectedActivationIsNotLogged() {
+        try (EventLog log = new EventLog(directory);
+             GameServer server = new GameServer(Executors.newVirtualThreadPerTaskExecutor(), log)) {
+            Game game = deal(66);
+            server.host(6, 66, game).join();
+            CardSource source = new CardSource();
+            source.deck = Deck.I;
+            source.index = 0;
+            assertTrue(server.takeCard(6, 1, source, new GridPosition(1, 1)).join());
+
+            // nothing lies at (0,0), so the game turns the activation down
+            assertFalse(server.activateCard(6, 1, new GridPosition(0, 0), List.of(), List.of(), List.of(),
+                    Optional.empty(), Optional.empty()).join());
+        }
+        assertEquals(2, EventLog.replay(directory, new Recorder()));
+    }
+
+    @Test
+    public void testDivergedReplayFailsRecovery() {
+        try (EventLog log = new EventLog(directory);
+             GameServer server = new GameServer(Executors.newVirtualThreadPerTaskExecutor(), log)) {
+            server.host(3, 33, deal(33)).join();
+            CardSource source = new CardSource();
+            source.deck = Deck.I;
+            source.index = 0;
+            assertTrue(server.takeCard(3, 1, source, new GridPosition(1, 1)).join());
+            assertTrue(server.turnFinished(3, 1).join());
+        }
+
+        // a set-up that deals no cards cannot replay the logged take
+        try {
+            EventLog.recover(directory, seed -> {
+                Player[] players = {
+                        new Player(1, new Grid(), null, null, null, null),
+                        new Player(2, new Grid(), null, null, null, null)
+                };
+                Pile empty = new Pile(new ArrayList<>(), new ArrayList<>());
+                return new Game(players, empty, empty, null, null, null, null, null);
+            });
+            fail("Expected recovery to fail");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage().contains("Game 3"));
+        }
+    }
+}
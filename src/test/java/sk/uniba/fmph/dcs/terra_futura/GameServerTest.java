@@ -0,0 +1,140 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class GameServerTest {
+
+    private GameServer server;
+
+    private static Game newGame() {
+        Player[] players = {
+                new Player(1, new Grid(), null, null, null, null),
+                new Player(2, new Grid(), null, null, null, null)
+        };
+        Pile pile = new Pile(new ArrayList<>(), new ArrayList<>());
+        return new Game(players, pile, pile, null, new GameObserver(Map.of()), null, null, null);
+    }
+
+    @Before
+    public void setUp() {
+        server = new GameServer();
+        server.host(1, newGame());
+        server.host(2, newGame());
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void testCommandsOfOneGameRunInOrder() throws Exception {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final int n = i;
+            results.add(server.submit(1, game -> {
+                order.add(n);
+                return n;
+            }));
+        }
+        for (CompletableFuture<Integer> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1000, order.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i), order.get(i));
+        }
+    }
+
+    @Test
+    public void testBlockedGameDoesNotStallOtherGames() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> blocked = server.submit(1, game -> {
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+
+        GameState other = server.submit(2, game -> game.state).get(5, TimeUnit.SECONDS);
+
+        assertEquals(GameState.TakeCardNoCardDiscarded, other);
+        assertFalse(blocked.isDone());
+        release.countDown();
+        assertTrue(blocked.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRejectedCommandCompletesExceptionally() throws Exception {
+        CompletableFuture<Boolean> result = server.turnFinished(1, 2);  // player 1 is on turn
+
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("Expected the command to be rejected");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+        // the mailbox keeps working after a failed command
+        assertEquals(GameState.TakeCardNoCardDiscarded, server.submit(1, game -> game.state).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testErrorDoesNotStallMailbox() throws Exception {
+        CompletableFuture<Object> result = server.submit(1, game -> {
+            throw new AssertionError("boom");
+        });
+
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("Expected the command to fail");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof AssertionError);
+        }
+        assertEquals(GameState.TakeCardNoCardDiscarded, server.submit(1, game -> game.state).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCommandsAfterCloseFail() throws Exception {
+        server.close();
+
+        CompletableFuture<GameState> result = server.submit(1, game -> game.state);
+        assertTrue(result.isCompletedExceptionally());
+        assertEquals(0, server.pendingCommands(1));
+    }
+
+    @Test
+    public void testUnknownGame() {
+        CompletableFuture<Boolean> result = server.turnFinished(42, 1);
+        assertTrue(result.isCompletedExceptionally());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGameIdCannotBeHostedTwice() {
+        server.host(1, newGame());
+    }
+
+    @Test
+    public void testRemove() {
+        assertEquals(2, server.gameCount());
+        assertTrue(server.remove(2));
+        assertFalse(server.isHosted(2));
+        assertFalse(server.remove(2));
+        assertEquals(1, server.gameCount());
+    }
+}
@@ -0,0 +1,119 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class GameSnapshotTest {
+
+    private Game game;
+    private final MoveGenerator generator = new MoveGenerator();
+    private final MoveBuffer moves = new MoveBuffer();
+    private final SplittableRandom random = new SplittableRandom(5);
+
+    @Before
+    public void setUp() {
+        List<Supplier<Card>> deck = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            deck.add(() -> new Card(2));
+        }
+        List<CatalogueGameFactory.ScoringMethodTemplate> scoring = List.of(
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Green), new Points(1)),
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Car), new Points(2)));
+        game = new CatalogueGameFactory(deck, deck, scoring, 2).newGame(new SplittableRandom(11)).game;
+    }
+
+    private String describe() {
+        StringBuilder result = new StringBuilder();
+        result.append(game.state).append(' ').append(game.onTurn).append(' ').append(game.turnNumber);
+        for (Player player : game.players) {
+            result.append('\n').append(player.grid.state());
+            for (ActivationPattern pattern : player.activationPatterns) {
+                result.append('\n').append(pattern.state());
+            }
+            for (ScoringMethod method : player.scoringMethods) {
+                result.append('\n').append(method.state());
+            }
+        }
+        for (Deck deck : Deck.values()) {
+            result.append('\n').append(game.getPile(deck).state());
+        }
+        return result.toString();
+    }
+
+    // plays random moves that the generator offers
+    private void play(int steps) {
+        for (int i = 0; i < steps && game.state != GameState.Finish; i++) {
+            int playerId = game.players[game.onTurn].id;
+            generator.generate(game, playerId, moves);
+            generator.apply(game, playerId, moves, random.nextInt(moves.size()));
+        }
+    }
+
+    @Test
+    public void testRestoreUndoesMoves() {
+        GameSnapshot snapshot = new GameSnapshot(game);
+        play(7);
+        Grid grid = game.players[0].grid;
+        Card card = grid.cardAt(Integer.numberOfTrailingZeros(grid.bits().occupied()));
+        card.putResources(List.of(Resource.Green, Resource.Green));
+        card.addPollution(1);
+
+        String before = describe();
+        int[] saved = snapshot.capture();
+        play(20);
+        assertNotEquals(before, describe());
+
+        snapshot.restore(saved);
+        assertEquals(before, describe());
+        assertEquals(2, card.getResourceCount(Resource.Green));
+        assertArrayEquals(saved, snapshot.capture());
+    }
+
+    @Test
+    public void testRestoresTheEndGame() {
+        GameSnapshot snapshot = new GameSnapshot(game);
+        int[] start = snapshot.capture();
+        String opening = describe();
+
+        play(1000);
+        assertEquals(GameState.Finish, game.state);
+        String finished = describe();
+        int[] end = snapshot.capture();
+
+        snapshot.restore(start);
+        assertEquals(opening, describe());
+        snapshot.restore(end);
+        assertEquals(finished, describe());
+    }
+
+    @Test
+    public void testBufferIsReused() {
+        GameSnapshot snapshot = new GameSnapshot(game);
+        int[] buffer = new int[snapshot.size() + 16];
+
+        assertSame(buffer, snapshot.capture(buffer));
+        assertNotSame(buffer, snapshot.capture(new int[1]));
+        assertEquals(GameState.TakeCardNoCardDiscarded.ordinal(), buffer[0]);
+    }
+
+    @Test
+    public void testSearchLoopOnTheRestoredGame() {
+        GameSnapshot snapshot = new GameSnapshot(game);
+        int[] root = snapshot.capture();
+        String expected = describe();
+        for (int i = 0; i < 50; i++) {
+            play(5 + i % 7);
+            snapshot.restore(root);
+        }
+        assertEquals(expected, describe());
+        play(1000);
+        assertEquals(GameState.Finish, game.state);
+    }
+}
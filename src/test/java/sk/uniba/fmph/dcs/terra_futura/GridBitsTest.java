@@ -0,0 +1,76 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GridBitsTest {
+
+    @Test
+    public void testRowAndColumnMasks() {
+        assertEquals(0b001001001, GridBits.rowMask(0));
+        assertEquals(0b100100100, GridBits.rowMask(2));
+        assertEquals(0b000000111, GridBits.columnMask(0));
+        assertEquals(0b111000000, GridBits.columnMask(2));
+        assertEquals(GridBits.rowMask(1) | GridBits.columnMask(1), GridBits.crossMask(GridBits.cell(1, 1)));
+    }
+
+    @Test
+    public void testPlacementAndCounts() {
+        GridBits bits = new GridBits();
+        assertTrue(bits.canPlace(1, 1));
+        bits.occupy(GridBits.cell(1, 1));
+        bits.occupy(GridBits.cell(0, 1));
+
+        assertFalse(bits.canPlace(1, 1));
+        assertFalse(bits.canPlace(3, 0));
+        assertFalse(bits.canPlace(0, -1));
+        assertEquals(2, bits.cardCount());
+        assertEquals(2, bits.rowCount(1));
+        assertEquals(1, bits.columnCount(0));
+        assertEquals(0, bits.rowCount(2));
+    }
+
+    @Test
+    public void testActivatableCells() {
+        GridBits bits = new GridBits();
+        bits.occupy(GridBits.cell(0, 0));
+        bits.occupy(GridBits.cell(2, 2));
+        bits.grantOnce(GridBits.bit(0, 0) | GridBits.bit(2, 2) | GridBits.bit(1, 1));
+
+        assertEquals(GridBits.bit(0, 0) | GridBits.bit(2, 2), bits.activatable());
+        bits.consume(GridBits.cell(0, 0));
+        assertTrue(bits.isActivated(GridBits.cell(0, 0)));
+        assertEquals(GridBits.bit(2, 2), bits.activatable());
+
+        bits.vacate(GridBits.cell(2, 2));
+        assertEquals(0, bits.activatable());
+        assertEquals(1, bits.cardCount());
+    }
+
+    @Test
+    public void testBudgetsArePackedPerCell() {
+        GridBits bits = new GridBits();
+        bits.setBudget(8, 3);
+        bits.setBudget(0, GridBits.MAX_BUDGET + 5);
+
+        assertEquals(3, bits.budget(8));
+        assertEquals(GridBits.MAX_BUDGET, bits.budget(0));
+        assertEquals(0, bits.budget(4));
+        bits.clearBudgets();
+        assertEquals(0, bits.budget(8));
+    }
+
+    @Test
+    public void testGridKeepsBitsInSync() {
+        Grid grid = new Grid();
+        grid.putCard(new GridPosition(0, 0), new Card());
+        grid.putCard(new GridPosition(2, 0), new Card());
+
+        assertEquals(GridBits.bit(0, 0) | GridBits.bit(2, 0), grid.bits().occupied());
+        assertFalse(grid.canPutCard(new GridPosition(2, 0)));
+        assertTrue(grid.canPutCard(new GridPosition(1, 0)));
+        assertEquals(2, grid.getCurrentRow(0).size());
+        assertEquals(2, grid.cardsCount());
+    }
+}
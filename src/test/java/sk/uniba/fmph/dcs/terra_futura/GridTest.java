@@ -0,0 +1,142 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GridTest {
+
+    private Grid grid;
+
+    @Before
+    public void setUp() {
+        grid = new Grid();
+    }
+
+    private void assertActivatable(int x, int y, boolean expected) {
+        assertEquals("(" + x + "," + y + ")", expected, grid.canBeActivated(new GridPosition(x, y)));
+    }
+
+    @Test
+    public void testNothingActivatableBeforePlacement() {
+        assertFalse(grid.canBeActivated(new GridPosition(0, 0)));
+        assertFalse(grid.canBeActivated(new GridPosition(5, 5)));
+        assertFalse(grid.canBeActivated(null));
+    }
+
+    @Test
+    public void testPlacedCardActivatesItsRowAndColumnOnce() {
+        grid.putCard(new GridPosition(0, 0), new Card());
+        grid.endTurn();
+        grid.putCard(new GridPosition(2, 2), new Card());
+        grid.endTurn();
+        grid.putCard(new GridPosition(0, 2), new Card());
+
+        assertActivatable(0, 2, true);
+        assertActivatable(0, 0, true);   // same column
+        assertActivatable(2, 2, true);   // same row
+        assertActivatable(1, 1, false);  // empty
+
+        grid.setActivated(new GridPosition(0, 0));
+        assertActivatable(0, 0, false);
+        assertActivatable(2, 2, true);
+        assertThrows(() -> grid.setActivated(new GridPosition(0, 0)));
+    }
+
+    @Test
+    public void testCardOutsideCrossCannotBeActivated() {
+        grid.putCard(new GridPosition(1, 1), new Card());
+        grid.endTurn();
+        grid.putCard(new GridPosition(0, 0), new Card());
+
+        assertActivatable(0, 0, true);
+        assertActivatable(1, 1, false);
+    }
+
+    @Test
+    public void testFullGameLifecycle() {
+        // nine turns, one card each, every card in the cross activated once
+        for (int turn = 0; turn < 9; turn++) {
+            GridPosition placed = new GridPosition(turn % 3, turn / 3);
+            assertTrue(grid.canPutCard(placed));
+            grid.putCard(placed, new Card());
+
+            int activations = 0;
+            for (int x = 0; x < 3; x++) {
+                for (int y = 0; y < 3; y++) {
+                    GridPosition pos = new GridPosition(x, y);
+                    boolean inCross = x == placed.x || y == placed.y;
+                    boolean occupied = grid.getCard(pos).isPresent();
+                    assertEquals(inCross && occupied, grid.canBeActivated(pos));
+                    if (grid.canBeActivated(pos)) {
+                        grid.setActivated(pos);
+                        activations++;
+                        assertFalse(grid.canBeActivated(pos));
+                    }
+                }
+            }
+            assertEquals(turn % 3 + turn / 3 + 1, activations);
+            grid.endTurn();
+            assertActivatable(placed.x, placed.y, false);
+        }
+        assertEquals(9, grid.cardsCount());
+
+        // final activations follow the selected pattern; a repeated cell activates twice
+        grid.setActivationPattern(List.of(
+                new SimpleEntry<>(0, 0), new SimpleEntry<>(0, 0), new SimpleEntry<>(2, 1)));
+        assertActivatable(1, 1, false);
+        grid.setActivated(new GridPosition(0, 0));
+        assertActivatable(0, 0, true);
+        grid.setActivated(new GridPosition(0, 0));
+        assertActivatable(0, 0, false);
+        grid.setActivated(new GridPosition(2, 1));
+        assertActivatable(2, 1, false);
+
+        grid.endTurn();
+        for (int cell = 0; cell < GridBits.CELLS; cell++) {
+            assertActivatable(cell / 3, cell % 3, false);
+        }
+    }
+
+    @Test
+    public void testPatternSelectedThroughActivationPattern() {
+        grid.putCard(new GridPosition(1, 2), new Card());
+        grid.endTurn();
+        ActivationPattern pattern = new ActivationPattern(grid, List.of(new SimpleEntry<>(1, 2)));
+
+        pattern.select();
+
+        assertActivatable(1, 2, true);
+        assertEquals(GridBits.bit(1, 2), grid.bits().pattern());
+    }
+
+    @Test
+    public void testStateNestsCardsAsObjects() {
+        Card card = new Card(3);
+        card.putResources(List.of(Resource.Gear));
+        grid.putCard(new GridPosition(1, 1), card);
+        grid.setActivationPattern(List.of(new GridPosition(1, 1)));
+
+        JSONObject state = new JSONObject(grid.state());
+
+        JSONObject cards = state.getJSONObject("cards");
+        assertTrue(cards.getJSONObject("(1,1)").similar(new JSONObject(card.state())));
+        assertTrue(cards.isNull("(0,0)"));
+        assertEquals(1, state.getInt("card_count"));
+        assertEquals("(1,1)", state.getJSONArray("activation_pattern").getString(0));
+    }
+
+    private static void assertThrows(Runnable action) {
+        try {
+            action.run();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class MctsBotTest {
+
+    private CatalogueGameFactory factory;
+
+    @Before
+    public void setUp() {
+        List<Supplier<Card>> deckI = new ArrayList<>();
+        List<Supplier<Card>> deckII = new ArrayList<>();
+        Resource[] kinds = {Resource.Green, Resource.Car, Resource.Gear, Resource.Money};
+        for (int i = 0; i < 12; i++) {
+            final Resource resource = kinds[i % kinds.length];
+            final int count = 1 + i % 3;
+            deckI.add(() -> cardWith(resource, count));
+            deckII.add(() -> cardWith(resource, 3 - count + 1));
+        }
+        List<CatalogueGameFactory.ScoringMethodTemplate> scoring = List.of(
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Green), new Points(2)),
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Car, Resource.Gear), new Points(5)),
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Money), new Points(3)));
+        factory = new CatalogueGameFactory(deckI, deckII, scoring, 2);
+    }
+
+    private static Card cardWith(Resource resource, int count) {
+        Card card = new Card(1);
+        List<Resource> resources = new ArrayList<>();
+        for (int i = 0; i < count; i++) resources.add(resource);
+        card.putResources(resources);
+        return card;
+    }
+
+    // plays one game, the bot in seat 0; returns the bot's score minus the opponent's
+    private int play(SimulatedGame simulated, BotPolicy bot, SplittableRandom random) {
+        Game game = simulated.game;
+        BotPolicy opponent = new RandomBotPolicy();
+        while (game.state != GameState.Finish) {
+            int seat = game.onTurn;
+            (seat == 0 ? bot : opponent).move(simulated, game.players[seat].id, random);
+        }
+        return MctsBot.score(game.players[0]) - MctsBot.score(game.players[1]);
+    }
+
+    @Test
+    public void testPlaysAFullGameInPlace() {
+        MctsBot bot = new MctsBot(1, Duration.ofSeconds(10), 64);
+        SplittableRandom random = new SplittableRandom(1);
+        Game game = factory.newGame(random).game;
+        UndoJournal journal = new UndoJournal();
+        game.setJournal(journal);
+
+        while (game.state != GameState.Finish) {
+            int seat = game.onTurn;
+            if (seat == 0) {
+                bot.move(game, game.players[seat].id, random);
+            } else {
+                new RandomBotPolicy().move(game, game.players[seat].id, random);
+            }
+        }
+
+        assertTrue(bot.playouts() > 0);
+        assertSame(journal, game.getJournal());
+    }
+
+    @Test
+    public void testSearchMovesOnlyOnce() {
+        MctsBot bot = new MctsBot(1, Duration.ofSeconds(10), 200);
+        SplittableRandom random = new SplittableRandom(2);
+        Game game = factory.newGame(random).game;
+        int playerId = game.players[game.onTurn].id;
+
+        bot.move(game, playerId, random);
+
+        assertEquals(GameState.ActivateCard, game.state);
+        assertEquals(1, game.players[0].grid.bits().cardCount());
+        assertEquals(200, bot.playouts());
+    }
+
+    @Test
+    public void testParallelSearchOnReplicas() {
+        try (MctsBot bot = new MctsBot(4, Duration.ofSeconds(10), 400)) {
+            SplittableRandom random = new SplittableRandom(3);
+            SimulatedGame simulated = factory.newGame(random);
+
+            play(simulated, bot, random);
+
+            assertEquals(GameState.Finish, simulated.game.state);
+            assertTrue(bot.playouts() > 0);
+            assertTrue(bot.playoutsPerSecond() > 0);
+        }
+    }
+
+    @Test
+    public void testBeatsRandomPlay() {
+        MctsBot bot = new MctsBot(1, Duration.ofSeconds(10), 200);
+        SplittableRandom random = new SplittableRandom(4);
+        int wins = 0;
+        int losses = 0;
+        for (int i = 0; i < 10; i++) {
+            int margin = play(factory.newGame(random), bot, random);
+            if (margin > 0) wins++;
+            if (margin < 0) losses++;
+        }
+        assertTrue(wins + " wins, " + losses + " losses", wins > losses);
+    }
+
+    @Test
+    public void testReplicaMatchesTheOriginal() {
+        SplittableRandom random = new SplittableRandom(5);
+        SimulatedGame simulated = factory.newGame(random);
+        for (int i = 0; i < 6; i++) {
+            new RandomBotPolicy().move(simulated, simulated.game.players[simulated.game.onTurn].id, random);
+        }
+
+        SimulatedGame replica = simulated.replicate();
+        int[] position = simulated.snapshot().capture();
+        replica.snapshot().restore(position);
+
+        assertArrayEquals(position, replica.snapshot().capture());
+        for (int seat = 0; seat < 2; seat++) {
+            assertEquals(simulated.game.players[seat].grid.state(), replica.game.players[seat].grid.state());
+        }
+    }
+
+    @Test
+    public void testObserversSeeOnlyTheChosenMove() {
+        FakeObserver observer = new FakeObserver();
+        Player[] players = {
+                new Player(1, new Grid(), null, null, null, null),
+                new Player(2, new Grid(), null, null, null, null)
+        };
+        ArrayList<Card> cards = new ArrayList<>();
+        for (int i = 0; i < 8; i++) cards.add(cardWith(Resource.Green, 1));
+        Pile pile = new Pile(cards, new ArrayList<>());
+        Game game = new Game(players, pile, new Pile(new ArrayList<>(), new ArrayList<>()), null,
+                new GameObserver(Map.of(2, observer)), null, null, null);
+
+        new MctsBot(1, Duration.ofSeconds(10), 100).move(game, 1, new SplittableRandom(6));
+
+        assertEquals(1, observer.notifyCount);
+        assertTrue(game.isPublishing());
+        JSONObject state = new JSONObject(observer.lastState).getJSONObject("state");
+        assertEquals(game.state.name(), state.getJSONObject("game").getString("state"));
+        assertEquals(new JSONObject(pile.state()).toString(), state.getJSONObject("piles").getJSONObject("I").toString());
+    }
+
+    @Test
+    public void testRejectedMovesArePruned() {
+        Player[] players = {
+                new Player(1, new Grid(), null, null, null, null),
+                new Player(2, new Grid(), null, null, null, null)
+        };
+        ArrayList<Card> deck = new ArrayList<>();
+        for (int i = 0; i < 20; i++) deck.add(cardWith(Resource.Green, 1));
+        // the generator offers discards, but this game refuses every one of them
+        Game game = new Game(players, new Pile(new ArrayList<>(List.of(cardWith(Resource.Green, 1))), deck),
+                new Pile(new ArrayList<>(), new ArrayList<>()), null, null, null, null, null) {
+            @Override
+            public boolean discardLastCardFromDeck(int playerId, Deck deck) {
+                return false;
+            }
+        };
+        MctsBot bot = new MctsBot(1, Duration.ofSeconds(10), 1000);
+
+        bot.move(game, 1, new SplittableRandom(8));
+
+        assertEquals(GameState.ActivateCard, game.state);
+        assertEquals(1, players[0].grid.bits().cardCount());
+        assertTrue(bot.playouts() > 0);
+    }
+
+    @Test
+    public void testSearchActivatesCards() {
+        // every card turns its two Green into Cars, and only Cars score
+        List<Supplier<Card>> deck = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            deck.add(() -> {
+                Card card = new Card(1, new TransformationFixed(List.of(Resource.Green),
+                        List.of(Resource.Car), 0), null);
+                card.putResources(List.of(Resource.Green, Resource.Green));
+                return card;
+            });
+        }
+        List<CatalogueGameFactory.ScoringMethodTemplate> scoring = List.of(
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Car), new Points(3)),
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Car, Resource.Car), new Points(7)));
+        SplittableRandom random = new SplittableRandom(7);
+        SimulatedGame simulated = new CatalogueGameFactory(deck, deck, scoring, 2).newGame(random);
+
+        play(simulated, new MctsBot(1, Duration.ofSeconds(10), 100), random);
+
+        int cars = 0;
+        for (int cell = 0; cell < GridBits.CELLS; cell++) {
+            Card card = simulated.game.players[0].grid.cardAt(cell);
+            if (card != null) cars += card.getResourceCount(Resource.Car);
+        }
+        assertTrue(cars > 0);
+    }
+}
@@ -24,7 +24,10 @@ public class MoveCardTest {
 
         assertTrue(result);
         assertTrue(grid.getCard(pos).isPresent());
-        assertEquals(3, pile.getDisplayCards().size());
+        // the deck refills the display
+        assertEquals(4, pile.getDisplayCards().size());
+        assertEquals(0, pile.discardPileSize());
+        assertSame(deck.get(0), pile.getDisplayCards().get(3));
     }
 
     @Test
@@ -0,0 +1,155 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class MoveGeneratorTest {
+
+    private static class RecordingInterface implements TerraFuturaInterface {
+        GridPosition card;
+        List<Pair<Resource, GridPosition>> inputs;
+        List<Pair<Resource, GridPosition>> outputs;
+        List<GridPosition> pollution;
+
+        public boolean takeCard(int playerId, CardSource source, GridPosition destination) { return false; }
+        public boolean discardLastCardFromDeck(int playerId, Deck deck) { return false; }
+        public boolean activateCard(int playerId, GridPosition card,
+                                    List<Pair<Resource, GridPosition>> inputs,
+                                    List<Pair<Resource, GridPosition>> outputs,
+                                    List<GridPosition> pollution,
+                                    Optional<Integer> otherPlayerId, Optional<GridPosition> otherCard) {
+            this.card = card;
+            this.inputs = inputs;
+            this.outputs = outputs;
+            this.pollution = pollution;
+            return true;
+        }
+        public boolean selectReward(int playerId, Resource resource) { return false; }
+        public boolean turnFinished(int playerId) { return false; }
+        public boolean selectActivationPattern(int playerId, int card) { return false; }
+        public boolean selectScoring(int playerId, int card) { return false; }
+    }
+
+    private Game game;
+    private final MoveGenerator generator = new MoveGenerator();
+    private final MoveBuffer moves = new MoveBuffer(4);
+
+    @Before
+    public void setUp() {
+        List<Supplier<Card>> deck = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            deck.add(() -> new Card(1,
+                    new TransformationFixed(List.of(), List.of(Resource.Green), 0),
+                    new TransformationFixed(List.of(Resource.Money), List.of(Resource.Car), 1)));
+        }
+        List<CatalogueGameFactory.ScoringMethodTemplate> scoring = List.of(
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Green), new Points(1)),
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Car), new Points(2)));
+        game = new CatalogueGameFactory(deck, deck, scoring, 2).newGame(new SplittableRandom(3)).game;
+    }
+
+    private int onTurn() {
+        return game.players[game.onTurn].id;
+    }
+
+    @Test
+    public void testOpeningMoves() {
+        int visible = game.getPile(Deck.I).getDisplayCards().size() + game.getPile(Deck.II).getDisplayCards().size();
+
+        generator.generate(game, onTurn(), moves);
+
+        assertEquals(visible * GridBits.CELLS, moves.count(MoveType.TakeCard));
+        assertEquals(2, moves.count(MoveType.DiscardLastCard));
+        assertEquals(visible * GridBits.CELLS + 2, moves.size());
+    }
+
+    @Test
+    public void testPlayerOffTurnHasNoMoves() {
+        int other = game.players[(game.onTurn + 1) % game.players.length].id;
+
+        assertEquals(0, generator.generate(game, other, moves));
+    }
+
+    @Test
+    public void testGeneratedTakesAreAccepted() {
+        int playerId = onTurn();
+        generator.generate(game, playerId, moves);
+        int take = moves.size() / 2;
+        assertEquals(MoveType.TakeCard, moves.type(take));
+
+        assertTrue(generator.apply(game, playerId, moves, take));
+        assertEquals(GameState.ActivateCard, game.state);
+        int count = generator.generate(game, playerId, moves);
+        assertEquals(count, moves.count(MoveType.ActivateCard) + moves.count(MoveType.TurnFinished));
+    }
+
+    @Test
+    public void testActivationsFollowResourcesOnTheGrid() {
+        int playerId = onTurn();
+        generator.generate(game, playerId, moves);
+        int take = moves.size() - 1;
+        int cell = moves.third(take);
+        assertTrue(generator.apply(game, playerId, moves, take));
+
+        generator.generate(game, playerId, moves);
+        assertEquals(1, moves.count(MoveType.TurnFinished));
+        assertEquals(1, moves.count(MoveType.ActivateCard));  // lower effect needs Money
+        assertEquals(cell, moves.first(0));
+        assertEquals(0, moves.second(0));
+
+        Card card = game.players[game.onTurn].grid.getCard(
+                new GridPosition(cell / GridBits.SIZE, cell % GridBits.SIZE)).orElseThrow();
+        card.putResources(List.of(Resource.Money));
+        generator.generate(game, playerId, moves);
+        assertEquals(2, moves.count(MoveType.ActivateCard));
+
+        RecordingInterface recorder = new RecordingInterface();
+        assertTrue(generator.apply(game, recorder, playerId, moves, 1));
+        GridPosition position = new GridPosition(cell / GridBits.SIZE, cell % GridBits.SIZE);
+        assertEquals(position.toString(), recorder.card.toString());
+        assertEquals(1, recorder.inputs.size());
+        assertEquals(Resource.Money, recorder.inputs.get(0).first);
+        assertEquals(position.toString(), recorder.inputs.get(0).second.toString());
+        assertEquals(Resource.Car, recorder.outputs.get(0).first);
+        assertEquals(1, recorder.pollution.size());
+        assertEquals(position.toString(), recorder.pollution.get(0).toString());
+    }
+
+    @Test
+    public void testFullCardOffersNoOutputs() {
+        int playerId = onTurn();
+        generator.generate(game, playerId, moves);
+        int take = moves.size() - 1;
+        int cell = moves.third(take);
+        assertTrue(generator.apply(game, playerId, moves, take));
+        Card card = game.players[game.onTurn].grid.cardAt(cell);
+        List<Resource> full = new ArrayList<>();
+        for (int i = 0; i < Card.RESOURCE_CAPACITY; i++) full.add(Resource.Green);
+        card.putResources(full);
+
+        // the upper effect would add a Green the card has no room for
+        generator.generate(game, playerId, moves);
+        assertEquals(0, moves.count(MoveType.ActivateCard));
+        assertEquals(1, moves.count(MoveType.TurnFinished));
+    }
+
+    @Test
+    public void testBufferGrows() {
+        MoveBuffer buffer = new MoveBuffer(1);
+        for (int i = 0; i < 100; i++) {
+            buffer.add(MoveType.SelectScoring, i, 0, 0);
+        }
+        assertEquals(100, buffer.size());
+        assertEquals(99, buffer.first(99));
+        buffer.clear();
+        assertEquals(0, buffer.size());
+    }
+}
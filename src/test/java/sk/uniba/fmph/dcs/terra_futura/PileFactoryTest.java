@@ -0,0 +1,106 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class PileFactoryTest {
+
+    private PileFactory factory;
+
+    @Before
+    public void setUp() {
+        List<Supplier<Card>> templates = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int pollution = i;
+            templates.add(() -> new Card(pollution));
+        }
+        factory = new PileFactory(templates);
+    }
+
+    // pollution spaces identify the template a card was made from
+    private static List<Integer> order(Pile pile) {
+        List<Integer> result = new ArrayList<>();
+        for (Card card : pile.getDisplayCards()) {
+            result.add(card.pollutionSpaces());
+        }
+        for (Iterator<Card> it = pile.deckCards(); it.hasNext(); ) {
+            result.add(it.next().pollutionSpaces());
+        }
+        return result;
+    }
+
+    @Test
+    public void sameSeedDealsSameOrder() {
+        Pile first = factory.deal(new SplittableRandom(42));
+        Pile second = factory.deal(new SplittableRandom(42));
+        Pile other = factory.deal(new SplittableRandom(43));
+
+        assertEquals(order(first), order(second));
+        assertNotEquals(order(first), order(other));
+        assertEquals(PileFactory.DISPLAY_SIZE, first.getDisplayCards().size());
+        assertEquals(10 - PileFactory.DISPLAY_SIZE, first.deckSize());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, first.dealt(i).pollutionSpaces());
+        }
+    }
+
+    @Test
+    public void takeRefillsFromDeck() {
+        Pile pile = factory.deal(new SplittableRandom(1));
+        List<Integer> before = order(pile);
+
+        pile.takeCard(1);
+
+        List<Integer> expected = new ArrayList<>(before);
+        expected.remove(1);
+        assertEquals(expected, order(pile));
+        assertEquals(PileFactory.DISPLAY_SIZE, pile.getDisplayCards().size());
+        assertEquals(5, pile.deckSize());
+    }
+
+    @Test
+    public void emptyDeckLeavesDisplayShort() {
+        List<Supplier<Card>> two = List.of(Card::new, Card::new);
+        Pile pile = new PileFactory(two).deal(new SplittableRandom(1));
+        pile.takeCard(0);
+        assertEquals(1, pile.getDisplayCards().size());
+        assertEquals(0, pile.deckSize());
+    }
+
+    @Test
+    public void undoOfTakePutsRefillBack() {
+        Pile pile = factory.deal(new SplittableRandom(7));
+        List<Integer> before = order(pile);
+        UndoJournal journal = new UndoJournal();
+        Card taken = pile.getDisplayCards().get(2);
+
+        journal.pileTake(pile, 2, taken);
+        pile.takeCard(2);
+        journal.undoTo(0);
+
+        assertEquals(before, order(pile));
+    }
+
+    @Test
+    public void restoreMovesDeckTop() {
+        Pile pile = factory.deal(new SplittableRandom(9));
+        Card[] display = pile.getDisplayCards().toArray(new Card[0]);
+        List<Card> deck = new ArrayList<>();
+        pile.deckCards().forEachRemaining(deck::add);
+        List<Integer> before = order(pile);
+
+        pile.takeCard(0);
+        pile.takeFromDeck();
+        pile.restore(display, display.length, deck.toArray(new Card[0]), deck.size(), new Card[0], 0);
+
+        assertEquals(before, order(pile));
+    }
+}
@@ -0,0 +1,103 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PileTest {
+
+    private Card[] cards;
+    private Pile pile;
+
+    @Before
+    public void setUp() {
+        cards = new Card[8];
+        ArrayList<Card> display = new ArrayList<>();
+        ArrayList<Card> deck = new ArrayList<>();
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = new Card(i);
+            (i < 4 ? display : deck).add(cards[i]);
+        }
+        pile = new Pile(display, deck);
+    }
+
+    private List<Card> display() {
+        return new ArrayList<>(pile.getDisplayCards());
+    }
+
+    @Test
+    public void removeLastCardDiscardsOldestAndRefills() {
+        pile.removeLastCard();
+
+        assertEquals(List.of(cards[1], cards[2], cards[3], cards[4]), display());
+        assertEquals(List.of(cards[0]), pile.getDiscardedCards());
+        assertEquals(3, pile.deckSize());
+    }
+
+    @Test
+    public void displayWrapsAroundRing() {
+        for (int i = 0; i < 3; i++) {
+            pile.removeLastCard();
+        }
+        pile.takeCard(2);
+
+        assertEquals(List.of(cards[3], cards[4], cards[6], cards[7]), display());
+        assertEquals(List.of(cards[0], cards[1], cards[2]), pile.getDiscardedCards());
+        assertEquals(0, pile.deckSize());
+    }
+
+    @Test
+    public void displayShrinksOnceDeckIsEmpty() {
+        for (int i = 0; i < 6; i++) {
+            pile.removeLastCard();
+        }
+
+        assertEquals(List.of(cards[6], cards[7]), display());
+        assertEquals(6, pile.discardedCount());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void removeFromEmptyDisplayFails() {
+        for (int i = 0; i < 9; i++) {
+            pile.removeLastCard();
+        }
+    }
+
+    @Test
+    public void journalRevertsDiscards() {
+        List<Card> before = display();
+        UndoJournal journal = new UndoJournal();
+        for (int i = 0; i < 5; i++) {
+            journal.pileDiscard(pile);
+            pile.removeLastCard();
+        }
+        journal.pileTake(pile, 1, pile.getDisplayCards().get(1));
+        pile.takeCard(1);
+
+        journal.undoTo(0);
+
+        assertEquals(before, display());
+        assertEquals(0, pile.discardedCount());
+        assertEquals(4, pile.deckSize());
+    }
+
+    @Test
+    public void wholePileEntryRestoresDiscards() {
+        pile.removeLastCard();
+        List<Card> before = display();
+        UndoJournal journal = new UndoJournal();
+        journal.pile(pile);
+        pile.removeLastCard();
+        pile.removeLastCard();
+
+        journal.undoTo(0);
+
+        assertEquals(before, display());
+        assertEquals(List.of(cards[0]), pile.getDiscardedCards());
+        assertEquals(3, pile.deckSize());
+    }
+}
@@ -0,0 +1,92 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ResourceCountsTest {
+
+    @Test
+    public void testAddAndSubtract() {
+        ResourceCounts counts = ResourceCounts.of(List.of(Resource.Green, Resource.Green, Resource.Car));
+        assertEquals(2, counts.get(Resource.Green));
+        assertEquals(1, counts.get(Resource.Car));
+        assertEquals(3, counts.total());
+
+        counts.subtract(Resource.Green);
+        counts.add(Resource.Money, 2);
+        assertEquals(1, counts.get(Resource.Green));
+        assertEquals(4, counts.total());
+        assertEquals("{Green=1, Car=1, Money=2}", counts.toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSubtractBelowZeroFails() {
+        new ResourceCounts().subtract(Resource.Red);
+    }
+
+    @Test
+    public void testContainsAllLeavesCountsUntouched() {
+        ResourceCounts counts = ResourceCounts.of(List.of(Resource.Red, Resource.Red, Resource.Gear));
+
+        assertTrue(counts.containsAll(List.of(Resource.Red, Resource.Gear, Resource.Red)));
+        assertFalse(counts.containsAll(List.of(Resource.Gear, Resource.Gear)));
+        assertFalse(counts.containsAll(List.of(Resource.Red, Resource.Bulb)));
+        assertTrue(counts.containsAll(null));
+        assertEquals(ResourceCounts.of(List.of(Resource.Red, Resource.Red, Resource.Gear)), counts);
+        assertEquals(3, counts.total());
+    }
+
+    @Test
+    public void testNullElementIsRejectedWithoutChanges() {
+        ResourceCounts counts = ResourceCounts.of(List.of(Resource.Green, Resource.Red));
+
+        assertFalse(counts.containsAll(Arrays.asList(Resource.Green, null)));
+        try {
+            counts.subtractAll(Arrays.asList(Resource.Red, null));
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(ResourceCounts.of(List.of(Resource.Green, Resource.Red)), counts);
+        assertEquals(2, counts.total());
+    }
+
+    @Test
+    public void testContainsAllBeyondByteCounts() {
+        ResourceCounts counts = new ResourceCounts();
+        counts.add(Resource.Car, 300);
+        List<Resource> needed = new ArrayList<>(Collections.nCopies(300, Resource.Car));
+
+        assertTrue(counts.containsAll(needed));
+        needed.add(Resource.Car);
+        assertFalse(counts.containsAll(needed));
+        assertEquals(300, counts.get(Resource.Car));
+    }
+
+    @Test
+    public void testContainsAndSubtractAllCounts() {
+        ResourceCounts counts = ResourceCounts.of(List.of(Resource.Bulb, Resource.Bulb, Resource.Yellow));
+        ResourceCounts taken = ResourceCounts.of(List.of(Resource.Bulb, Resource.Yellow));
+
+        assertTrue(counts.contains(taken));
+        counts.subtractAll(taken);
+        assertEquals(ResourceCounts.of(List.of(Resource.Bulb)), counts);
+        assertFalse(counts.contains(taken));
+    }
+
+    @Test
+    public void testCombinations() {
+        ResourceCounts owned = ResourceCounts.of(List.of(
+                Resource.Green, Resource.Green, Resource.Green, Resource.Green, Resource.Green,
+                Resource.Car, Resource.Car));
+
+        assertEquals(2, owned.combinations(ResourceCounts.of(List.of(Resource.Green, Resource.Green, Resource.Car))));
+        assertEquals(0, owned.combinations(ResourceCounts.of(List.of(Resource.Money))));
+        assertEquals(0, owned.combinations(new ResourceCounts()));
+    }
+}
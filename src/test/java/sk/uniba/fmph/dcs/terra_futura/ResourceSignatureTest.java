@@ -0,0 +1,85 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ResourceSignatureTest {
+
+    @Test
+    public void testOrderDoesNotMatter() {
+        long a = ResourceSignature.of(List.of(Resource.Green, Resource.Red, Resource.Green));
+        long b = ResourceSignature.of(List.of(Resource.Red, Resource.Green, Resource.Green));
+
+        assertEquals(a, b);
+        assertNotEquals(a, ResourceSignature.of(List.of(Resource.Red, Resource.Green)));
+        assertEquals(2, ResourceSignature.count(a, Resource.Green));
+        assertEquals(3, ResourceSignature.size(a));
+        assertEquals(List.of(Resource.Green, Resource.Green, Resource.Red), ResourceSignature.toList(a));
+    }
+
+    @Test
+    public void testMatchesResourceCounts() {
+        List<Resource> resources = List.of(Resource.Polution, Resource.Money, Resource.Polution);
+        assertEquals(ResourceSignature.of(resources), ResourceSignature.of(ResourceCounts.of(resources)));
+    }
+
+    @Test
+    public void testOverflow() {
+        assertEquals(ResourceSignature.OVERFLOW, ResourceSignature.of(Collections.nCopies(256, Resource.Car)));
+        assertNotEquals(ResourceSignature.OVERFLOW, ResourceSignature.of(Collections.nCopies(255, Resource.Car)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEffectRejectsUnpackableDefinition() {
+        new TransformationFixed(Collections.nCopies(300, Resource.Car), List.of(), 0);
+    }
+
+    @Test
+    public void testTransformationFixedIgnoresOrder() {
+        Effect effect = new TransformationFixed(List.of(Resource.Green, Resource.Red), List.of(Resource.Gear), 1);
+
+        assertTrue(effect.check(List.of(Resource.Red, Resource.Green), List.of(Resource.Gear), 1));
+        assertFalse(effect.check(List.of(Resource.Red, Resource.Red), List.of(Resource.Gear), 1));
+        assertFalse(effect.check(List.of(Resource.Red, Resource.Green), List.of(Resource.Gear), 0));
+        assertTrue(effect.check(ResourceSignature.of(List.of(Resource.Green, Resource.Red)),
+                ResourceSignature.of(List.of(Resource.Gear)), 1));
+    }
+
+    @Test
+    public void testArbitraryBasicCountsInputOnly() {
+        Effect effect = new ArbitraryBasic(2, List.of(Resource.Money, Resource.Bulb), 0);
+
+        assertTrue(effect.check(List.of(Resource.Car, Resource.Green), List.of(Resource.Bulb, Resource.Money), 0));
+        assertFalse(effect.check(List.of(Resource.Car), List.of(Resource.Bulb, Resource.Money), 0));
+        assertTrue(effect.check(ResourceSignature.of(List.of(Resource.Red, Resource.Red)),
+                ResourceSignature.of(List.of(Resource.Money, Resource.Bulb)), 0));
+    }
+
+    @Test
+    public void testCustomEffectFallsBackToLists() {
+        Effect custom = new Effect() {
+            @Override
+            public boolean check(List<Resource> input, List<Resource> output, int pollution) {
+                return input.equals(List.of(Resource.Green)) && output.isEmpty();
+            }
+
+            @Override
+            public boolean hasAssistance() {
+                return false;
+            }
+
+            @Override
+            public String state() {
+                return "{}";
+            }
+        };
+        Effect or = new EffectOr(new TransformationFixed(List.of(), List.of(), 5), custom);
+
+        assertTrue(or.check(List.of(Resource.Green), List.of(), 0));
+        assertFalse(or.check(List.of(Resource.Red), List.of(), 0));
+    }
+}
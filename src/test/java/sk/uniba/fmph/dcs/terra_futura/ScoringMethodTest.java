@@ -3,6 +3,7 @@ package sk.uniba.fmph.dcs.terra_futura;
 import org.json.JSONObject;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
@@ -128,4 +129,23 @@ public class ScoringMethodTest {
         assertEquals(10, after.getInt("total"));
         assertEquals(5, after.getInt("pointsPerCombination"));
     }
+
+    @Test
+    public void needsFollowTheResourcesGiven() {
+        final List<Resource> pattern = new ArrayList<>(List.of(Resource.Green, Resource.Car));
+
+        final ScoringMethod method =
+                new ScoringMethod(pattern, new Points(3), () -> Map.of(Resource.Green, 2, Resource.Car, 2));
+        pattern.add(Resource.Car);
+
+        method.selectThisMethodAndCalculate();
+        assertEquals(6, method.calculatedTotal.get().value());
+        assertEquals(List.of(Resource.Green, Resource.Car), method.resources);
+        try {
+            method.resources.add(Resource.Car);
+            fail();
+        } catch (UnsupportedOperationException ex) {
+            // the needs are derived once, so the resources cannot change under them
+        }
+    }
 }
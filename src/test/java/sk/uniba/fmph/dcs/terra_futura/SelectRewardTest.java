@@ -0,0 +1,195 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class SelectRewardTest {
+
+    // lets the card lend its effect to other players; never activated itself
+    private static class AssistanceEffect implements Effect {
+        public boolean check(List<Resource> input, List<Resource> output, int pollution) { return false; }
+        public boolean hasAssistance() { return true; }
+        public String state() { return "{\"type\":\"Assistance\"}"; }
+    }
+
+    private static final GridPosition ACTIVATED = new GridPosition(0, 0);
+    private static final GridPosition ASSISTING = new GridPosition(1, 1);
+
+    private FakeObserver observer;
+    private Game game;
+    private SelectReward reward;
+    private Card activated;
+    private Card assisting;
+
+    @Before
+    public void setUp() {
+        observer = new FakeObserver();
+        Player[] players = {
+                new Player(1, new Grid(), null, null, null, null),
+                new Player(2, new Grid(), null, null, null, null)
+        };
+        activated = new Card(1, new TransformationFixed(List.of(Resource.Green, Resource.Money),
+                List.of(Resource.Car), 0), null);
+        activated.putResources(List.of(Resource.Green, Resource.Money));
+        assisting = new Card(0, new AssistanceEffect(), null);
+        players[0].grid.putCard(ACTIVATED, activated);
+        players[1].grid.putCard(ASSISTING, assisting);
+
+        reward = new SelectReward();
+        Pile pile = new Pile(new ArrayList<>(), new ArrayList<>());
+        game = new Game(players, pile, pile, null, new GameObserver(Map.of(2, observer)),
+                null, new ProcessActionAssistance(), reward);
+        game.state = GameState.ActivateCard;
+    }
+
+    private void activateWithAssistance() {
+        game.activateCard(1, ACTIVATED,
+                List.of(Pair.of(Resource.Green, ACTIVATED), Pair.of(Resource.Money, ACTIVATED)),
+                List.of(Pair.of(Resource.Car, ACTIVATED)), List.of(),
+                Optional.of(2), Optional.of(ASSISTING));
+    }
+
+    @Test
+    public void testOptionsAreMaskTests() {
+        reward.setReward(2, assisting, new Resource[] {Resource.Money, Resource.Green, Resource.Money});
+
+        assertTrue(reward.canSelectReward(Resource.Green));
+        assertTrue(reward.canSelectReward(Resource.Money));
+        assertFalse(reward.canSelectReward(Resource.Car));
+        assertFalse(reward.canSelectReward(null));
+        assertEquals(Optional.of(2), reward.player);
+        assertEquals(List.of(Resource.Green, Resource.Money), reward.selelction);
+    }
+
+    @Test
+    public void testSelectionCreditsCardAndClears() {
+        assisting.putResources(List.of(Resource.Gear));
+        reward.setReward(2, assisting, new Resource[] {Resource.Green});
+
+        reward.selectReward(Resource.Green);
+
+        assertEquals(1, assisting.getResourceCount(Resource.Green));
+        assertEquals(1, assisting.getResourceCount(Resource.Gear));
+        assertTrue(reward.player.isEmpty());
+        assertFalse(reward.canSelectReward(Resource.Green));
+    }
+
+    @Test
+    public void testOnlyResourcesTheCardCanHoldAreOffered() {
+        List<Resource> full = new ArrayList<>();
+        for (int i = 0; i < Card.RESOURCE_CAPACITY; i++) full.add(Resource.Bulb);
+        assisting.putResources(full);
+
+        reward.setReward(2, assisting, new Resource[] {Resource.Bulb, Resource.Polution, Resource.Gear});
+
+        assertEquals(List.of(Resource.Gear), reward.selelction);
+        assertFalse(reward.canSelectReward(Resource.Bulb));
+        assertFalse(reward.canSelectReward(Resource.Polution));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnlistedRewardIsRejected() {
+        reward.setReward(2, assisting, new Resource[] {Resource.Green});
+        reward.selectReward(Resource.Car);
+    }
+
+    @Test
+    public void testState() {
+        reward.setReward(2, assisting, new Resource[] {Resource.Red});
+
+        JSONObject state = new JSONObject(reward.state());
+        assertEquals(2, state.getInt("player"));
+        assertEquals("Red", state.getJSONArray("selection").getString(0));
+
+        reward.selectReward(Resource.Red);
+        state = new JSONObject(reward.state());
+        assertTrue(state.isNull("player"));
+        assertEquals(0, state.getJSONArray("selection").length());
+    }
+
+    @Test
+    public void testAssistanceRewardCycle() {
+        activateWithAssistance();
+
+        assertEquals(GameState.SelectReward, game.state);
+        assertEquals(1, activated.getResourceCount(Resource.Car));
+        assertTrue(reward.canSelectReward(Resource.Money));
+        assertFalse(reward.canSelectReward(Resource.Car));
+        JSONObject fields = new JSONObject(observer.lastState).getJSONObject("state").getJSONObject("game");
+        assertEquals(2, fields.getJSONObject("reward").getInt("player"));
+
+        game.selectReward(2, Resource.Money);
+
+        assertEquals(GameState.ActivateCard, game.state);
+        assertEquals(1, assisting.getResourceCount(Resource.Money));
+        assertFalse(reward.canSelectReward(Resource.Money));
+        assertEquals(1, game.players[game.onTurn].id);
+        assertTrue(game.turnFinished(1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOnlyAssistingPlayerSelects() {
+        activateWithAssistance();
+        game.selectReward(1, Resource.Green);
+    }
+
+    @Test
+    public void testGeneratorOffersRewardsToAssistingPlayer() {
+        activateWithAssistance();
+        MoveGenerator generator = new MoveGenerator();
+        MoveBuffer moves = new MoveBuffer(4);
+
+        assertEquals(0, generator.generate(game, 1, moves));
+        assertEquals(2, generator.generate(game, 2, moves));
+        assertEquals(2, moves.count(MoveType.SelectReward));
+
+        assertTrue(generator.apply(game, 2, moves, 0));
+        assertEquals(GameState.ActivateCard, game.state);
+        assertEquals(1, assisting.getResourceCount(Resource.Green));
+    }
+
+    @Test
+    public void testJournalRevertsCycle() {
+        UndoJournal journal = new UndoJournal();
+        game.setJournal(journal);
+
+        activateWithAssistance();
+        int chosen = journal.mark();
+        game.selectReward(2, Resource.Green);
+
+        journal.undoTo(chosen);
+        assertEquals(GameState.SelectReward, game.state);
+        assertEquals(0, assisting.getResourceCount(Resource.Green));
+        assertEquals(Optional.of(2), reward.player);
+        assertTrue(reward.canSelectReward(Resource.Green));
+
+        journal.undoTo(0);
+        assertEquals(GameState.ActivateCard, game.state);
+        assertTrue(reward.player.isEmpty());
+        assertEquals(1, activated.getResourceCount(Resource.Green));
+    }
+
+    @Test
+    public void testSnapshotRestoresPendingReward() {
+        GameSnapshot snapshot = new GameSnapshot(game);
+        activateWithAssistance();
+        int[] pending = snapshot.capture();
+
+        game.selectReward(2, Resource.Money);
+        snapshot.restore(pending);
+
+        assertEquals(GameState.SelectReward, game.state);
+        assertEquals(0, assisting.getResourceCount(Resource.Money));
+        assertTrue(reward.canSelectReward(Resource.Money));
+        game.selectReward(2, Resource.Green);
+        assertEquals(1, assisting.getResourceCount(Resource.Green));
+    }
+}
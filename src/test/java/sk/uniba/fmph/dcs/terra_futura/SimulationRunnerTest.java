@@ -0,0 +1,106 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class SimulationRunnerTest {
+
+    private CatalogueGameFactory factory;
+
+    @Before
+    public void setUp() {
+        List<Supplier<Card>> deckI = new ArrayList<>();
+        List<Supplier<Card>> deckII = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            final int pollution = i % 3;
+            deckI.add(() -> new Card(pollution));
+            deckII.add(() -> new Card(pollution + 1));
+        }
+        List<CatalogueGameFactory.ScoringMethodTemplate> scoring = List.of(
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Green), new Points(1)),
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Car, Resource.Gear), new Points(4)),
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Money), new Points(2)));
+        factory = new CatalogueGameFactory(deckI, deckII, scoring, 2);
+    }
+
+    @Test
+    public void testPlaysEveryGameToTheEnd() {
+        SimulationRunner runner = new SimulationRunner(factory, new RandomBotPolicy());
+
+        SimulationStats stats = runner.run(600, 7L, 4, null, Long.MAX_VALUE);
+
+        assertEquals(600, stats.games());
+        assertEquals(0, stats.aborted());
+        assertEquals(0, stats.failed());
+        assertEquals(10.0, stats.averageTurns(), 1e-9);
+        long picks = 0;
+        for (int id = 0; id < factory.catalogueSize(); id++) {
+            picks += stats.cardPicks(id);
+        }
+        assertEquals(600 * 2 * 9, picks);
+
+        JSONObject scores = stats.toJson().getJSONObject("scores");
+        long scored = 0;
+        for (String key : scores.keySet()) {
+            scored += scores.getJSONObject(key).getLong("count");
+        }
+        assertEquals(600 * 2, scored);
+    }
+
+    @Test
+    public void testSameSeedGivesSameResultAtAnyParallelism() {
+        SimulationRunner runner = new SimulationRunner(factory, new RandomBotPolicy());
+
+        String sequential = runner.run(300, 42L, 1, null, Long.MAX_VALUE).toJson().toString();
+        String parallel = runner.run(300, 42L, 3, null, Long.MAX_VALUE).toJson().toString();
+
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void testStreamsProgressAndTotals() {
+        SimulationRunner runner = new SimulationRunner(factory, new RandomBotPolicy());
+        StringWriter out = new StringWriter();
+
+        runner.run(SimulationRunner.GAMES_PER_TASK * 2, 1L, 1, out, SimulationRunner.GAMES_PER_TASK);
+
+        String[] lines = out.toString().trim().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(SimulationRunner.GAMES_PER_TASK, new JSONObject(lines[0]).getLong("games"));
+        assertEquals(SimulationRunner.GAMES_PER_TASK * 2, new JSONObject(lines[2]).getLong("games"));
+    }
+
+    @Test
+    public void testGameOverMoveLimitIsAborted() {
+        SimulationRunner runner = new SimulationRunner(factory, 5, new RandomBotPolicy());
+
+        SimulationStats stats = runner.run(10, 3L, 1, null, Long.MAX_VALUE);
+
+        assertEquals(0, stats.games());
+        assertEquals(10, stats.aborted());
+    }
+
+    @Test
+    public void testThrowingGameIsReportedApartFromAborted() {
+        SimulationRunner runner = new SimulationRunner(factory, (game, playerId, random) -> {
+            throw new IllegalStateException("bug");
+        });
+
+        SimulationStats stats = runner.run(10, 3L, 2, null, Long.MAX_VALUE);
+
+        assertEquals(0, stats.games());
+        assertEquals(0, stats.aborted());
+        assertEquals(10, stats.failed());
+        JSONObject failure = stats.toJson().getJSONObject("first_failure");
+        assertEquals(0, failure.getLong("game"));
+        assertTrue(failure.getString("error").contains("bug"));
+    }
+}
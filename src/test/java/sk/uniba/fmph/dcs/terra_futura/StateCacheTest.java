@@ -0,0 +1,120 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class StateCacheTest {
+
+    private Card card;
+    private Grid grid;
+
+    @Before
+    public void setUp() {
+        StateCache.resetStats();
+        card = new Card(2);
+        card.putResources(List.of(Resource.Green));
+        grid = new Grid();
+        grid.putCard(new GridPosition(1, 1), card);
+    }
+
+    @Test
+    public void repeatedStateIsServedFromCache() {
+        String first = card.state();
+        assertSame(first, card.state());
+        assertEquals(1, StateCache.misses(StateCache.Kind.CARD));
+        assertEquals(1, StateCache.hits(StateCache.Kind.CARD));
+        assertEquals(0.5, StateCache.hitRatio(StateCache.Kind.CARD), 1e-9);
+
+        String gridState = grid.state();
+        assertSame(gridState, grid.state());
+        assertEquals(1, StateCache.hits(StateCache.Kind.GRID));
+    }
+
+    @Test
+    public void cardChangeInvalidatesCardAndGrid() {
+        String cardState = card.state();
+        String gridState = grid.state();
+
+        card.addPollution(1);
+
+        assertNotEquals(cardState, card.state());
+        assertNotEquals(gridState, grid.state());
+        assertEquals(1, new JSONObject(grid.state()).getJSONObject("cards")
+                .getJSONObject("(1,1)").getInt("pollution_used"));
+    }
+
+    @Test
+    public void gridChangesInvalidate() {
+        String before = grid.state();
+        grid.putCard(new GridPosition(1, 2), new Card(1));
+        String placed = grid.state();
+        assertNotEquals(before, placed);
+
+        grid.setActivationPattern(List.of(new GridPosition(1, 2)));
+        assertNotEquals(placed, grid.state());
+    }
+
+    @Test
+    public void undoInvalidatesCache() {
+        UndoJournal journal = new UndoJournal();
+        String before = card.state();
+        int mark = journal.mark();
+        journal.card(card);
+        card.putResources(List.of(Resource.Car, Resource.Car));
+        assertNotEquals(before, card.state());
+
+        journal.undoTo(mark);
+        assertEquals(before, card.state());
+    }
+
+    @Test
+    public void pileTracksTakesAndVisibleCards() {
+        Card visible = new Card(1);
+        Pile pile = new Pile(new ArrayList<>(List.of(visible, new Card(2))), new ArrayList<>(List.of(new Card())));
+        String before = pile.state();
+        assertSame(before, pile.state());
+
+        visible.putResources(List.of(Resource.Money));
+        String changed = pile.state();
+        assertNotEquals(before, changed);
+
+        pile.takeFromDeck();
+        assertEquals(0, new JSONObject(pile.state()).getInt("hidden_count"));
+        pile.takeCard(0);
+        assertEquals(1, new JSONObject(pile.state()).getInt("visible_count"));
+    }
+
+    @Test
+    public void scoringFollowsReplacedTotal() {
+        ScoringMethod method = new ScoringMethod(List.of(Resource.Green), new Points(2),
+                () -> Map.of(Resource.Green, 3));
+        String before = method.state();
+        assertSame(before, method.state());
+
+        method.selectThisMethodAndCalculate();
+        assertEquals(6, new JSONObject(method.state()).getInt("total"));
+
+        method.calculatedTotal = Optional.empty();
+        assertEquals(before, method.state());
+    }
+
+    @Test
+    public void streamingUsesCachedComponents() {
+        String cardState = card.state();
+        StateCache.resetStats();
+        StateBuffer out = new StateBuffer();
+        grid.writeState(new JsonWriter(out));
+
+        assertEquals(1, StateCache.hits(StateCache.Kind.CARD));
+        assertTrue(out.toString().contains(cardState));
+        assertEquals(out.toString(), grid.state());
+    }
+}
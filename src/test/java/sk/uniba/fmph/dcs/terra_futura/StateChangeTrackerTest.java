@@ -0,0 +1,107 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class StateChangeTrackerTest {
+
+    private FakeObserver observer;
+    private Game game;
+    private Pile pile;
+
+    @Before
+    public void setUp() {
+        observer = new FakeObserver();
+        Player[] players = {
+                new Player(1, new Grid(), null, null, null, null),
+                new Player(2, new Grid(), null, null, null, null)
+        };
+        pile = new Pile(new ArrayList<>(List.of(new Card(1), new Card(2), new Card(3))), new ArrayList<>());
+        Pile other = new Pile(new ArrayList<>(), new ArrayList<>());
+        game = new Game(players, pile, other, null, new GameObserver(Map.of(1, observer)), null, null, null);
+    }
+
+    private static CardSource source(Deck deck, int index) {
+        CardSource source = new CardSource();
+        source.deck = deck;
+        source.index = index;
+        return source;
+    }
+
+    @Test
+    public void testFirstNotificationIsSnapshot() {
+        assertTrue(game.takeCard(1, source(Deck.I, 0), new GridPosition(1, 1)));
+
+        JSONObject json = new JSONObject(observer.lastState);
+        assertEquals("snapshot", json.getString("type"));
+        assertEquals(1, json.getLong("version"));
+        JSONObject state = json.getJSONObject("state");
+        assertEquals("ActivateCard", state.getJSONObject("game").getString("state"));
+        assertEquals(2, state.getJSONObject("piles").getJSONObject("I").getInt("visible_count"));
+        assertFalse(state.getJSONObject("players").getJSONObject("1").getJSONObject("grid")
+                .getJSONObject("cards").isNull("(1,1)"));
+    }
+
+    @Test
+    public void testPatchContainsOnlyChangedParts() {
+        StateChangeTracker tracker = new StateChangeTracker();
+        tracker.flush(game);  // initial snapshot
+
+        game.players[0].grid.putCard(new GridPosition(0, 2), new Card(4));
+        tracker.markCell(1, new GridPosition(0, 2));
+        assertTrue(tracker.hasChanges());
+
+        JSONObject json = new JSONObject(tracker.flush(game));
+        assertEquals("patch", json.getString("type"));
+        assertEquals(2, json.getLong("version"));
+        assertEquals(1, json.getLong("base"));
+        JSONArray ops = json.getJSONArray("ops");
+        assertEquals(2, ops.length());
+        assertEquals("/players/1/grid/cards/(0,2)", ops.getJSONObject(0).getString("path"));
+        assertEquals(4, ops.getJSONObject(0).getJSONObject("value").getInt("pollution_spaces"));
+        assertEquals("/players/1/grid/card_count", ops.getJSONObject(1).getString("path"));
+        assertEquals(1, ops.getJSONObject(1).getInt("value"));
+        assertFalse(tracker.hasChanges());
+    }
+
+    @Test
+    public void testTakenPileSlotShiftsAndRemovesLast() {
+        StateChangeTracker tracker = new StateChangeTracker();
+        tracker.flush(game);
+
+        pile.takeCard(1);
+        tracker.markPileSlotsFrom(Deck.I, 1);
+
+        JSONArray ops = new JSONObject(tracker.flush(game)).getJSONArray("ops");
+        assertEquals("replace", ops.getJSONObject(0).getString("op"));
+        assertEquals("/piles/I/visible_cards/1", ops.getJSONObject(0).getString("path"));
+        assertEquals(3, ops.getJSONObject(0).getJSONObject("value").getInt("pollution_spaces"));
+        assertEquals("remove", ops.getJSONObject(1).getString("op"));
+        assertEquals("/piles/I/visible_cards/2", ops.getJSONObject(1).getString("path"));
+        assertEquals("/piles/I/visible_count", ops.getJSONObject(2).getString("path"));
+        assertEquals(2, ops.getJSONObject(2).getInt("value"));
+    }
+
+    @Test
+    public void testPeriodicResync() {
+        StateChangeTracker tracker = new StateChangeTracker(2);
+        assertEquals("snapshot", new JSONObject(tracker.flush(game)).getString("type"));
+        tracker.markGameFields();
+        assertEquals("patch", new JSONObject(tracker.flush(game)).getString("type"));
+        tracker.markGameFields();
+        assertEquals("snapshot", new JSONObject(tracker.flush(game)).getString("type"));
+
+        tracker.requestResync();
+        JSONObject json = new JSONObject(tracker.flush(game));
+        assertEquals("snapshot", json.getString("type"));
+        assertEquals(4, json.getLong("version"));
+    }
+}
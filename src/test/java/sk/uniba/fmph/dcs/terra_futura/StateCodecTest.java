@@ -0,0 +1,204 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class StateCodecTest {
+
+    private final JsonStateCodec json = new JsonStateCodec();
+    private final BinaryStateCodec binary = new BinaryStateCodec();
+    private final StateBuffer out = new StateBuffer(16);
+
+    private Card card;
+    private Grid grid;
+    private Pile pile;
+    private ScoringMethod scoring;
+    private Game game;
+
+    @Before
+    public void setUp() {
+        card = new Card(2,
+                new TransformationFixed(List.of(Resource.Green), List.of(Resource.Red), 0), null);
+        card.putResources(List.of(Resource.Green, Resource.Green, Resource.Car));
+
+        grid = new Grid();
+        grid.putCard(new GridPosition(1, 1), card);
+        grid.putCard(new GridPosition(0, 2), new Card(1));
+        grid.setActivationPattern(List.of(new GridPosition(1, 1), new GridPosition(0, 2)));
+
+        ArrayList<Card> display = new ArrayList<>(List.of(new Card(1), new Card(3)));
+        pile = new Pile(display, new ArrayList<>(List.of(new Card())));
+
+        scoring = new ScoringMethod(List.of(Resource.Green, Resource.Car), new Points(3),
+                () -> Map.of(Resource.Green, 4, Resource.Car, 2));
+        scoring.selectThisMethodAndCalculate();
+
+        Player[] players = {player(1), player(2)};
+        game = new Game(players,
+                new Pile(new ArrayList<>(List.of(new Card(1))), new ArrayList<>()),
+                new Pile(new ArrayList<>(List.of(new Card(2))), new ArrayList<>(List.of(new Card()))),
+                null, new GameObserver(Map.of()), null,
+                new ProcessActionAssistance(), new SelectReward());
+    }
+
+    private static Player player(int id) {
+        Grid grid = new Grid();
+        return new Player(id, grid,
+                new ActivationPattern(grid, List.of(new SimpleEntry<>(0, 0))),
+                new ActivationPattern(grid, List.of(new SimpleEntry<>(1, 1))),
+                new ScoringMethod(List.of(Resource.Green), new Points(1), Map::of),
+                new ScoringMethod(List.of(Resource.Car), new Points(2), Map::of));
+    }
+
+    private JSONObject written() {
+        JSONObject result = new JSONObject(out.toString());
+        out.clear();
+        return result;
+    }
+
+    @Test
+    public void jsonCardMatchesState() {
+        json.writeCard(card, out);
+        assertTrue(written().similar(new JSONObject(card.state())));
+    }
+
+    @Test
+    public void jsonGridNestsCardsInsteadOfStrings() {
+        json.writeGrid(grid, out);
+        JSONObject written = written();
+        JSONObject cell = written.getJSONObject("cards").getJSONObject("(1,1)");
+        assertTrue(cell.similar(new JSONObject(card.state())));
+        assertTrue(written.getJSONObject("cards").isNull("(2,2)"));
+        assertEquals(2, written.getInt("card_count"));
+        assertEquals(new JSONArray(List.of("(1,1)", "(0,2)")).toString(),
+                written.getJSONArray("activation_pattern").toString());
+    }
+
+    @Test
+    public void jsonPileAndScoringMatchState() {
+        json.writePile(pile, out);
+        JSONObject written = written();
+        assertEquals(2, written.getInt("visible_count"));
+        assertEquals(1, written.getInt("hidden_count"));
+        assertEquals(3, written.getJSONArray("visible_cards").getJSONObject(1).getInt("pollution_spaces"));
+
+        json.writeScoring(scoring, out);
+        assertTrue(written().similar(new JSONObject(scoring.state())));
+
+        ActivationPattern pattern = new ActivationPattern(grid, List.of(new SimpleEntry<>(2, 0)));
+        json.writePattern(pattern, out);
+        assertTrue(written().similar(new JSONObject(pattern.state())));
+    }
+
+    @Test
+    public void jsonGameMatchesTrackerSnapshot() {
+        JSONObject snapshot = new JSONObject(game.getChangeTracker().flush(game)).getJSONObject("state");
+        json.writeGame(game, out);
+        JSONObject written = written();
+        assertTrue(written.getJSONObject("game").similar(snapshot.getJSONObject("game")));
+        assertEquals(snapshot.getJSONObject("players").keySet(), written.getJSONObject("players").keySet());
+        assertTrue(written.getJSONObject("piles").getJSONObject("II").getJSONArray("visible_cards")
+                .getJSONObject(0).similar(new JSONObject(game.getPile(Deck.II).getDisplayCards().get(0).state())));
+    }
+
+    @Test
+    public void jsonWriterEscapesStrings() {
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginObject().name("a\"b").value("line\nbreak\\ \u0001 é")
+                .name("n").value(-42L).name("x").nullValue().endObject();
+        JSONObject parsed = written();
+        assertEquals("line\nbreak\\ \u0001 é", parsed.getString("a\"b"));
+        assertEquals(-42, parsed.getInt("n"));
+        assertTrue(parsed.isNull("x"));
+    }
+
+    @Test
+    public void binaryCardLayout() {
+        binary.writeCard(new Card(2), out);
+        assertArrayEquals(new byte[]{(byte) 0x80, 2, 0, 0}, out.toByteArray());
+        out.clear();
+
+        binary.writeCard(card, out);
+        byte[] expected = {(byte) 0x81, 2, 0, 2,
+                (byte) Resource.Green.ordinal(), 2, (byte) Resource.Car.ordinal(), 1};
+        assertArrayEquals(expected, out.toByteArray());
+        out.clear();
+
+        binary.writeCard(null, out);
+        assertArrayEquals(new byte[]{0}, out.toByteArray());
+    }
+
+    @Test
+    public void binaryIsMuchSmallerThanJson() {
+        binary.writeGame(game, out);
+        byte[] bytes = out.toByteArray();
+        assertEquals(BinaryStateCodec.FORMAT, bytes[0]);
+        assertEquals(game.state.ordinal(), bytes[1]);
+        out.clear();
+
+        json.writeGame(game, out);
+        assertTrue(bytes.length * 5 < out.size());
+    }
+
+    @Test
+    public void binaryGameDecodesToTheJsonDocument() {
+        Player first = game.players[0];
+        first.grid.putCard(new GridPosition(1, 1), card);
+        first.grid.setActivationPattern(List.of(new GridPosition(1, 1), new GridPosition(2, 0)));
+        first.scoringMethods[1] = null;
+        first.scoringMethods[0].selectThisMethodAndCalculate();
+        Card assisting = new Card(1);
+        game.players[1].grid.putCard(new GridPosition(0, 0), assisting);
+        game.getSelectReward().setReward(2, assisting, new Resource[] {Resource.Money, Resource.Green});
+        game.state = GameState.SelectReward;
+
+        binary.writeGame(game, out);
+        StateBuffer decoded = new StateBuffer();
+        BinaryStateCodec.decodeGame(out.contents(), new JsonWriter(decoded));
+        out.clear();
+        json.writeGame(game, out);
+
+        JSONObject expected = written();
+        assertTrue(expected.getJSONObject("game").has("reward"));
+        assertTrue(game.players[0].scoringMethods.length > 1);
+        assertTrue(new JSONObject(decoded.toString()).similar(expected));
+    }
+
+    @Test
+    public void binaryDecoderRejectsTruncatedState() {
+        binary.writeGame(game, out);
+        byte[] bytes = out.toByteArray();
+        try {
+            BinaryStateCodec.decodeGame(ByteBuffer.wrap(bytes, 0, bytes.length - 1),
+                    new JsonWriter(new StateBuffer()));
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void varIntsUseSevenBitsPerByte() {
+        out.putVarInt(127).putVarInt(128).putSignedVarInt(-1).putSignedVarInt(1);
+        assertArrayEquals(new byte[]{0x7F, (byte) 0x80, 0x01, 0x01, 0x02}, out.toByteArray());
+    }
+
+    @Test
+    public void encodeReusesBuffer() {
+        binary.encode(game, out);
+        int size = out.size();
+        binary.encode(game, out);
+        assertEquals(size, out.size());
+        assertEquals(size, out.contents().remaining());
+    }
+}
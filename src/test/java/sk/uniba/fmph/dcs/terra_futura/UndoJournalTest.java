@@ -0,0 +1,156 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class UndoJournalTest {
+
+    private Game game;
+    private GameSnapshot snapshot;
+    private final UndoJournal journal = new UndoJournal();
+    private final MoveGenerator generator = new MoveGenerator();
+    private final MoveBuffer moves = new MoveBuffer();
+    private final SplittableRandom random = new SplittableRandom(9);
+
+    @Before
+    public void setUp() {
+        List<Supplier<Card>> deck = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            deck.add(() -> new Card(2));
+        }
+        List<CatalogueGameFactory.ScoringMethodTemplate> scoring = List.of(
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Green), new Points(1)),
+                new CatalogueGameFactory.ScoringMethodTemplate(List.of(Resource.Car), new Points(2)));
+        game = new CatalogueGameFactory(deck, deck, scoring, 2).newGame(new SplittableRandom(4)).game;
+        game.setJournal(journal);
+        snapshot = new GameSnapshot(game);
+    }
+
+    // plays random generated moves
+    private void play(int steps) {
+        for (int i = 0; i < steps && game.state != GameState.Finish; i++) {
+            int playerId = game.players[game.onTurn].id;
+            generator.generate(game, playerId, moves);
+            generator.apply(game, playerId, moves, random.nextInt(moves.size()));
+        }
+    }
+
+    @Test
+    public void testUndoRevertsEveryCommand() {
+        int[] start = snapshot.capture();
+        int mark = journal.mark();
+
+        play(1000);
+        assertEquals(GameState.Finish, game.state);
+        assertFalse(journal.isEmpty());
+
+        journal.undoTo(mark);
+        assertArrayEquals(start, snapshot.capture());
+        assertTrue(journal.isEmpty());
+    }
+
+    @Test
+    public void testNestedMarks() {
+        play(5);
+        int[] outer = snapshot.capture();
+        int outerMark = journal.mark();
+        play(3);
+        int[] inner = snapshot.capture();
+        int innerMark = journal.mark();
+        play(40);
+
+        journal.undoTo(innerMark);
+        assertArrayEquals(inner, snapshot.capture());
+        play(4);
+        journal.undoTo(outerMark);
+        assertArrayEquals(outer, snapshot.capture());
+    }
+
+    @Test
+    public void testDiscardKeepsTheChanges() {
+        int mark = journal.mark();
+        play(3);
+        int[] played = snapshot.capture();
+
+        journal.discardTo(mark);
+        assertEquals(mark, journal.size());
+        journal.undoTo(journal.mark());
+        assertArrayEquals(played, snapshot.capture());
+    }
+
+    @Test
+    public void testDiscardFromEmptyDisplayLeavesNoEntry() {
+        Player[] players = {
+                new Player(1, new Grid(), null, null, null, null),
+                new Player(2, new Grid(), null, null, null, null)
+        };
+        Pile pile = new Pile(new ArrayList<>(List.of(new Card(1), new Card(2))), new ArrayList<>());
+        Pile empty = new Pile(new ArrayList<>(), new ArrayList<>());
+        Game small = new Game(players, pile, empty, null, null, null, null, null);
+        UndoJournal log = new UndoJournal();
+        small.setJournal(log);
+
+        assertFalse(small.discardLastCardFromDeck(1, Deck.II));
+        assertEquals(0, log.size());
+        assertEquals(GameState.TakeCardNoCardDiscarded, small.state);
+
+        assertTrue(small.discardLastCardFromDeck(1, Deck.I));
+        log.undoTo(0);
+        assertEquals(2, pile.getDisplayCards().size());
+        assertTrue(pile.getDiscardedCards().isEmpty());
+        assertEquals(GameState.TakeCardNoCardDiscarded, small.state);
+    }
+
+    @Test
+    public void testRejectedActivationLeavesNoEntry() {
+        int playerId = game.players[game.onTurn].id;
+        generator.generate(game, playerId, moves);
+        int cell = moves.third(moves.size() - 1);
+        assertTrue(generator.apply(game, playerId, moves, moves.size() - 1));
+        GridPosition card = new GridPosition(cell / GridBits.SIZE, cell % GridBits.SIZE);
+        int size = journal.size();
+
+        // the card has no effect, and the assisting player has no card there
+        assertFalse(game.activateCard(playerId, card, List.of(), List.of(), List.of(),
+                Optional.empty(), Optional.empty()));
+        assertFalse(game.activateCard(playerId, card, List.of(), List.of(), List.of(),
+                Optional.of(game.players[1 - game.onTurn].id), Optional.of(new GridPosition(2, 2))));
+        assertEquals(size, journal.size());
+        assertEquals(GameState.ActivateCard, game.state);
+    }
+
+    @Test
+    public void testCardEntries() {
+        Card card = new Card(3);
+        card.putResources(List.of(Resource.Green, Resource.Gear));
+        int mark = journal.mark();
+
+        journal.card(card);
+        card.putResources(List.of(Resource.Car));
+        journal.card(card);
+        card.addPollution(2);
+
+        journal.undoTo(mark);
+        assertEquals(1, card.getResourceCount(Resource.Green));
+        assertEquals(1, card.getResourceCount(Resource.Gear));
+        assertEquals(0, card.getResourceCount(Resource.Car));
+        assertTrue(card.canAddPollution(3));
+    }
+
+    @Test
+    public void testInvalidMark() {
+        try {
+            journal.undoTo(1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+}
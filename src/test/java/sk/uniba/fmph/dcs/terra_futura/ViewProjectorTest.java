@@ -0,0 +1,135 @@
+package sk.uniba.fmph.dcs.terra_futura;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ViewProjectorTest {
+
+    private static final int HIDDEN_POLLUTION = 97;
+
+    // keeps the parts it is given
+    private static class PartsObserver implements TerraFuturaObserverInterface {
+        String shared;
+        String personal;
+
+        @Override
+        public void notify(String gameState) {
+            fail("Expected parts");
+        }
+
+        @Override
+        public void notifyView(String sharedState, String personalState) {
+            shared = sharedState;
+            personal = personalState;
+        }
+    }
+
+    private PartsObserver first;
+    private PartsObserver second;
+    private FakeObserver spectator;
+    private Game game;
+
+    @Before
+    public void setUp() {
+        first = new PartsObserver();
+        second = new PartsObserver();
+        spectator = new FakeObserver();
+        Player[] players = {
+                new Player(1, new Grid(), null, null, null, null),
+                new Player(2, new Grid(), null, null, null, null)
+        };
+        Pile pile = new Pile(new ArrayList<>(List.of(new Card(1), new Card(2))),
+                new ArrayList<>(List.of(new Card(5), new Card(HIDDEN_POLLUTION))));
+        Pile other = new Pile(new ArrayList<>(), new ArrayList<>());
+        game = new Game(players, pile, other, null,
+                new GameObserver(Map.of(1, first, 2, second, -1, spectator)), null, null, null);
+    }
+
+    private static CardSource source(Deck deck, int index) {
+        CardSource source = new CardSource();
+        source.deck = deck;
+        source.index = index;
+        return source;
+    }
+
+    @Test
+    public void playersGetPersonalPartBesideSharedUpdate() {
+        assertTrue(game.takeCard(1, source(Deck.I, 0), new GridPosition(1, 1)));
+
+        JSONObject mine = new JSONObject(first.personal);
+        JSONObject theirs = new JSONObject(second.personal);
+        assertEquals(1, mine.getInt("viewer"));
+        assertTrue(mine.getBoolean("yourTurn"));
+        assertEquals(2, theirs.getInt("viewer"));
+        assertFalse(theirs.getBoolean("yourTurn"));
+
+        assertSame(first.shared, second.shared);
+        assertEquals("snapshot", new JSONObject(first.shared).getString("type"));
+    }
+
+    @Test
+    public void plainObserversGetTheSharedStringItself() {
+        assertTrue(game.takeCard(1, source(Deck.I, 0), new GridPosition(1, 1)));
+
+        assertSame(first.shared, spectator.lastState);
+        assertEquals(1, spectator.notifyCount);
+    }
+
+    @Test
+    public void deckContentsAreNeverPublished() {
+        assertTrue(game.takeCard(1, source(Deck.I, 0), new GridPosition(1, 1)));
+
+        JSONObject pile = new JSONObject(spectator.lastState).getJSONObject("state")
+                .getJSONObject("piles").getJSONObject("I");
+        assertEquals(1, pile.getInt("hidden_count"));
+        assertFalse(spectator.lastState.contains(Integer.toString(HIDDEN_POLLUTION)));
+    }
+
+    @Test
+    public void personalPartsAreCachedPerSeatAndTurn() {
+        ViewProjector views = new ViewProjector();
+        views.update(game);
+        String onTurn = views.personal(1);
+        assertSame(onTurn, views.personal(1));
+        assertNull(views.personal(-1));
+
+        game.onTurn = 1;
+        views.update(game);
+        assertNotEquals(onTurn, views.personal(1));
+        game.onTurn = 0;
+        views.update(game);
+        assertSame(onTurn, views.personal(1));
+    }
+
+    @Test
+    public void splitAwareObserverReceivesSameSharedString() {
+        String[] received = new String[4];
+        TerraFuturaObserverInterface split = new TerraFuturaObserverInterface() {
+            @Override
+            public void notify(String gameState) {
+                fail("Expected parts");
+            }
+
+            @Override
+            public void notifyView(String sharedState, String personalState) {
+                int at = received[0] == null ? 0 : 2;
+                received[at] = sharedState;
+                received[at + 1] = personalState;
+            }
+        };
+        GameObserver observers = new GameObserver(Map.of(1, split, 2, split));
+        ViewProjector views = new ViewProjector();
+        views.update(game);
+        observers.publish("{\"type\":\"patch\"}", views);
+
+        assertSame(received[0], received[2]);
+        assertNotEquals(received[1], received[3]);
+    }
+}